@@ -0,0 +1,15 @@
+package me.sbahr.unblockmegenerator.benchmark;
+
+/**
+ * One operation measured by a {@link BenchmarkRunner}.
+ */
+public interface Benchmark {
+
+	/**
+	 * Runs the operation once.
+	 * 
+	 * @return Any value that depends on the work done, so it cannot be
+	 *         optimized away.
+	 */
+	long run();
+}
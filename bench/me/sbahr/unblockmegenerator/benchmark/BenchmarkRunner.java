@@ -0,0 +1,158 @@
+package me.sbahr.unblockmegenerator.benchmark;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Measures the throughput and allocation of {@link Benchmark}s. Each
+ * benchmark is run for a few warmup iterations that are thrown away, so the
+ * code is compiled before it is measured, then for a few measured
+ * iterations of a fixed time each.
+ * <p>
+ * Allocation is counted on the measuring thread only. Benchmarks that hand
+ * work to other threads are measured with
+ * {@link #measure(String, Benchmark, boolean)} and report no B/op, since the
+ * bytes allocated by the other threads would be missing from it.
+ * </p>
+ */
+public class BenchmarkRunner {
+
+	/** The default amount of warmup iterations */
+	public static final int DEFAULT_WARMUP_ITERATIONS = 3;
+	/** The default amount of measured iterations */
+	public static final int DEFAULT_ITERATIONS = 5;
+	/** The default time of one iteration, in milliseconds */
+	public static final long DEFAULT_ITERATION_MILLIS = 1000;
+
+	/** The amount of warmup iterations */
+	private final int warmupIterations;
+	/** The amount of measured iterations */
+	private final int iterations;
+	/** The time of one iteration, in nanoseconds */
+	private final long iterationNanos;
+	/** Where results are printed */
+	private final PrintStream out;
+	/** Thread bean that counts allocated bytes, {@code null} if unsupported */
+	private final com.sun.management.ThreadMXBean allocations;
+
+	/** Every value returned by the benchmarks, so none of them is dead code */
+	private volatile long sink;
+
+	/**
+	 * Construct a new runner.
+	 * 
+	 * @param warmupIterations - the amount of warmup iterations
+	 * @param iterations - the amount of measured iterations
+	 * @param iterationMillis - the time of one iteration, in milliseconds
+	 * @param out - where results are printed
+	 */
+	public BenchmarkRunner(int warmupIterations, int iterations, long iterationMillis, PrintStream out) {
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationNanos = iterationMillis * 1000000;
+		this.out = out;
+
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+			this.allocations = (com.sun.management.ThreadMXBean) threads;
+			this.allocations.setThreadAllocatedMemoryEnabled(true);
+		}
+		else {
+			this.allocations = null;
+		}
+	}
+
+	/**
+	 * Prints the header of the results.
+	 */
+	public void printHeader() {
+		this.out.println(String.format(Locale.ROOT, "%-40s %5s %14s %12s %12s %14s", "Benchmark", "Cnt", "ops/s", "error", "us/op", "B/op"));
+	}
+
+	/**
+	 * Measures a benchmark that runs on the calling thread and prints its
+	 * result.
+	 * 
+	 * @param name - the name of the benchmark
+	 * @param benchmark - the benchmark
+	 * @return The mean operations per second of the measured iterations.
+	 */
+	public double measure(String name, Benchmark benchmark) {
+		return measure(name, benchmark, false);
+	}
+
+	/**
+	 * Measures a benchmark and prints its result.
+	 * 
+	 * @param name - the name of the benchmark
+	 * @param benchmark - the benchmark
+	 * @param threaded - {@code true} if the benchmark does part of its work
+	 *            on other threads, so its allocation cannot be counted
+	 * @return The mean operations per second of the measured iterations.
+	 */
+	public double measure(String name, Benchmark benchmark, boolean threaded) {
+		for (int i = 0; i < this.warmupIterations; i++) {
+			iterate(benchmark, null);
+		}
+
+		double[] scores = new double[this.iterations];
+		long operations = 0;
+		long allocated = 0;
+		for (int i = 0; i < this.iterations; i++) {
+			long[] counts = new long[2];
+			scores[i] = iterate(benchmark, counts);
+			operations += counts[0];
+			allocated += counts[1];
+		}
+
+		double mean = 0;
+		for (double score : scores) {
+			mean += score;
+		}
+		mean /= scores.length;
+
+		double variance = 0;
+		for (double score : scores) {
+			variance += (score - mean) * (score - mean);
+		}
+		double error = scores.length > 1 ? Math.sqrt(variance / (scores.length - 1)) : 0;
+
+		String bytes = this.allocations != null && !threaded ? String.format(Locale.ROOT, "%.0f", (double) allocated / operations) : "n/a";
+		this.out.println(String.format(Locale.ROOT, "%-40s %5d %14.3f %12.3f %12.3f %14s", name, scores.length, mean, error, 1000000 / mean, bytes));
+		return mean;
+	}
+
+	/**
+	 * Runs a benchmark for one iteration.
+	 * 
+	 * @param benchmark - the benchmark
+	 * @param counts - if not {@code null}, the amount of operations and bytes
+	 *            allocated are stored as its first and second element
+	 * @return The operations per second of the iteration.
+	 */
+	private double iterate(Benchmark benchmark, long[] counts) {
+		long thread = Thread.currentThread().getId();
+		long allocatedBefore = this.allocations != null ? this.allocations.getThreadAllocatedBytes(thread) : 0;
+
+		long sink = 0;
+		long operations = 0;
+		long start = System.nanoTime();
+		long elapsed;
+		do {
+			sink ^= benchmark.run();
+			operations++;
+			elapsed = System.nanoTime() - start;
+		} while (elapsed < this.iterationNanos);
+
+		long allocatedAfter = this.allocations != null ? this.allocations.getThreadAllocatedBytes(thread) : 0;
+		this.sink ^= sink;
+
+		if (counts != null) {
+			counts[0] = operations;
+			counts[1] = allocatedAfter - allocatedBefore;
+		}
+		return operations * 1e9 / elapsed;
+	}
+}
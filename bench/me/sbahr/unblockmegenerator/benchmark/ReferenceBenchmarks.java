@@ -0,0 +1,235 @@
+package me.sbahr.unblockmegenerator.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+
+import me.sbahr.unblockmegenerator.component.Block;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.Zobrist;
+import me.sbahr.unblockmegenerator.generator.Generator;
+import me.sbahr.unblockmegenerator.solver.DistanceMap;
+import me.sbahr.unblockmegenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Benchmarks of the solver, successor generation, hashing and every generator
+ * variant over the reference boards of {@link PuzzleUtils}. Every input is
+ * fixed, the generators included, so runs before and after a change measure
+ * the same work.
+ * <p>
+ * Usage: {@code ReferenceBenchmarks [iterationMillis] [filter]}, where only
+ * benchmarks whose name contains the filter are run.
+ * </p>
+ */
+public class ReferenceBenchmarks {
+
+	/** The seed of every generator benchmark */
+	private static final long SEED = 20160101L;
+	/** The boards the successor and hashing benchmarks run on */
+	private static final String[] STATE_BOARDS = { "Beginner1", "Expert1" };
+	/** The most states of a component the successor and hashing benchmarks use */
+	private static final int MAX_STATES = 4096;
+	/** The max depth of every solve */
+	private static final int MAX_DEPTH = 100;
+	/** The path length asked of every generator */
+	private static final int GENERATED_LENGTH = 12;
+	/** The amount of blocks asked of every generator */
+	private static final int GENERATED_BLOCKS = 8;
+	/** The attempts given to every generator */
+	private static final int GENERATED_ATTEMPTS = 10;
+
+	/**
+	 * Runs the benchmarks.
+	 * 
+	 * @param args - the time of one iteration in milliseconds, and a filter on
+	 *            the names of the benchmarks to run, both optional
+	 */
+	public static void main(String[] args) {
+		long iterationMillis = args.length > 0 ? Long.parseLong(args[0]) : BenchmarkRunner.DEFAULT_ITERATION_MILLIS;
+		String filter = args.length > 1 ? args[1] : "";
+
+		BenchmarkRunner runner = new BenchmarkRunner(BenchmarkRunner.DEFAULT_WARMUP_ITERATIONS, BenchmarkRunner.DEFAULT_ITERATIONS, iterationMillis, System.out);
+		runner.printHeader();
+
+		Map<String, Board> boards = PuzzleUtils.getReferenceBoards();
+		for (Map.Entry<String, Board> entry : boards.entrySet()) {
+			run(runner, filter, "solve." + entry.getKey(), solve(entry.getValue()));
+		}
+
+		for (String name : STATE_BOARDS) {
+			Board board = boards.get(name);
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			long[] states = getStates(layout, layout.encode(board.getBlocks()));
+
+			run(runner, filter, "successors." + name, successors(layout, states));
+			run(runner, filter, "boards." + name, boards(board));
+			run(runner, filter, "hash." + name, hash(layout, states));
+		}
+
+		run(runner, filter, "generate.v1", generate(1, null));
+		run(runner, filter, "generate.v2", generate(2, null));
+		run(runner, filter, "generate.v3", generate(3, null));
+		// the candidates are solved on the pool, out of sight of B/op
+		run(runner, filter, "generate.v1.pool", generate(1, ForkJoinPool.commonPool()), true);
+		run(runner, filter, "generate.v2.pool", generate(2, ForkJoinPool.commonPool()), true);
+		run(runner, filter, "generate.v3.pool", generate(3, ForkJoinPool.commonPool()), true);
+	}
+
+	/**
+	 * Measures a benchmark if its name passes the filter.
+	 * 
+	 * @param runner - the runner
+	 * @param filter - the text the name must contain
+	 * @param name - the name of the benchmark
+	 * @param benchmark - the benchmark
+	 */
+	private static void run(BenchmarkRunner runner, String filter, String name, Benchmark benchmark) {
+		run(runner, filter, name, benchmark, false);
+	}
+
+	/**
+	 * Measures a benchmark if its name passes the filter.
+	 * 
+	 * @param runner - the runner
+	 * @param filter - the text the name must contain
+	 * @param name - the name of the benchmark
+	 * @param benchmark - the benchmark
+	 * @param threaded - {@code true} if the benchmark does part of its work
+	 *            on other threads
+	 */
+	private static void run(BenchmarkRunner runner, String filter, String name, Benchmark benchmark, boolean threaded) {
+		if (name.contains(filter)) {
+			runner.measure(name, benchmark, threaded);
+		}
+	}
+
+	/**
+	 * Get the first states of the component of a state.
+	 * 
+	 * @param layout - the layout of the state
+	 * @param start - the state
+	 * @return Up to {@link #MAX_STATES} states, in the order they are found.
+	 */
+	private static long[] getStates(BoardLayout layout, long start) {
+		DistanceMap map = DistanceMap.build(layout, start);
+		long[] states = new long[Math.min(map.getSize(), MAX_STATES)];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = map.getState(i);
+		}
+		return states;
+	}
+
+	/**
+	 * Solves a board.
+	 * 
+	 * @param board - the board
+	 * @return The benchmark, returning the length of the solution.
+	 */
+	private static Benchmark solve(final Board board) {
+		final Solver solver = new Solver();
+		return new Benchmark() {
+
+			@Override
+			public long run() {
+				return solver.solve(board, MAX_DEPTH).size();
+			}
+		};
+	}
+
+	/**
+	 * Generates the packed successors of every given state.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param states - the states
+	 * @return The benchmark, returning the amount of successors.
+	 */
+	private static Benchmark successors(final BoardLayout layout, final long[] states) {
+		final long[] next = new long[layout.getMaxSuccessors()];
+		return new Benchmark() {
+
+			@Override
+			public long run() {
+				long count = 0;
+				for (long state : states) {
+					count += layout.getNextStates(state, next);
+				}
+				return count;
+			}
+		};
+	}
+
+	/**
+	 * Constructs the boards that arise from a board.
+	 * 
+	 * @param board - the board
+	 * @return The benchmark, returning the amount of boards.
+	 */
+	private static Benchmark boards(final Board board) {
+		return new Benchmark() {
+
+			@Override
+			public long run() {
+				return board.getNextPossibleBoards().size();
+			}
+		};
+	}
+
+	/**
+	 * Hashes the blocks of every given state from scratch.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param states - the states
+	 * @return The benchmark, returning the XOR of the hashes.
+	 */
+	private static Benchmark hash(BoardLayout layout, long[] states) {
+		final List<List<Block>> blocks = new ArrayList<List<Block>>(states.length);
+		for (long state : states) {
+			blocks.add(layout.decode(state));
+		}
+		return new Benchmark() {
+
+			@Override
+			public long run() {
+				long hash = 0;
+				for (List<Block> b : blocks) {
+					hash ^= Zobrist.hash(b);
+				}
+				return hash;
+			}
+		};
+	}
+
+	/**
+	 * Generates a board from the same seed every time.
+	 * 
+	 * @param version - the generator variant, 1 to 3
+	 * @param executor - the pool scoring the candidates, or {@code null}
+	 * @return The benchmark, returning the amount of blocks of the board.
+	 */
+	private static Benchmark generate(final int version, final ExecutorService executor) {
+		final Solver solver = new Solver();
+		return new Benchmark() {
+
+			@Override
+			public long run() {
+				Generator generator = new Generator(new SplittableRandom(SEED), executor);
+				Board board;
+				if (version == 1) {
+					board = generator.generateRandomBoard(solver, GENERATED_LENGTH, GENERATED_BLOCKS, GENERATED_ATTEMPTS);
+				}
+				else if (version == 2) {
+					board = generator.generateRandomBoardv2(solver, GENERATED_LENGTH, GENERATED_BLOCKS, GENERATED_ATTEMPTS);
+				}
+				else {
+					board = generator.generateRandomBoardv3(solver, GENERATED_LENGTH, GENERATED_BLOCKS, GENERATED_ATTEMPTS);
+				}
+				return board.getBlocks().size();
+			}
+		};
+	}
+}
@@ -3,17 +3,25 @@ package me.sbahr.unblockmegenerator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
-import io.isles.puzzlecratesgenerator.component.Board;
-import io.isles.puzzlecratesgenerator.database.CoreDatabase;
-import io.isles.puzzlecratesgenerator.database.DatabaseCredentials;
-import io.isles.puzzlecratesgenerator.generator.Generator;
-import io.isles.puzzlecratesgenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardVisitor;
+import me.sbahr.unblockmegenerator.database.CoreDatabase;
+import me.sbahr.unblockmegenerator.database.DatabaseCredentials;
+import me.sbahr.unblockmegenerator.generator.BatchGenerator;
+import me.sbahr.unblockmegenerator.solver.LruSolveCache;
+import me.sbahr.unblockmegenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.solver.SolverKind;
+import me.sbahr.unblockmegenerator.solver.SolverMetrics;
 
 public class Main {
 
-	public static void main(String[] args) {
+	public static void main(String[] args) throws InterruptedException {
+		// the solves can be watched through JMX while puzzles are generated
+		SolverMetrics.getDefault().register(SolverMetrics.DEFAULT_NAME);
 		Scanner console = new Scanner(System.in);
 
 		System.out.println("--------------------");
@@ -86,23 +94,58 @@ public class Main {
 				db.getConnection();
 			}
 
+			System.out.println("Seed of the boards, to generate the same boards again (0 for a random seed): ");
+			long seed = console.nextLong();
+			if (seed == 0) {
+				seed = System.nanoTime();
+				System.out.println("-Seed: " + seed);
+			}
+
+			System.out.println("Solver to use (" + SolverKind.getNames() + "): ");
+			SolverKind kind = SolverKind.BFS;
+			input = console.next();
+			try {
+				kind = SolverKind.forName(input);
+			}
+			catch (IllegalArgumentException e) {
+				System.out.println("-Default: " + kind.getName());
+			}
+
 			long startTime = System.currentTimeMillis();
 
 			// Create a new solver
-			Solver solv = new Solver();
-			Generator gen = new Generator();
-
-			List<Board> possibleBoards = new ArrayList<Board>();
-			int initialBoards = numBoards;
-			while (numBoards-- > 0) {
-				System.out.println((int) ((initialBoards - numBoards - 1) / (double) initialBoards * 100) + "% generated...");
-				Board b = generateAndSolve(gen, solv, 40, false, minPathLength, minNumBlocks, numAttempts);
-				if (b != null && b.getPath().size() >= minPathLength) {
-					possibleBoards.add(b);
-				}
-				else {
-					System.out.println("Fail");
-				}
+			final Solver solv = kind.newSolver();
+			// the generators solve the same boards over and over
+			LruSolveCache cache = new LruSolveCache(1 << 18);
+			solv.setCache(cache);
+			ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+			BatchGenerator gen = new BatchGenerator(solv, executor);
+
+			final List<Board> possibleBoards = new ArrayList<Board>();
+			final int initialBoards = numBoards;
+			final int desiredLength = minPathLength;
+			try {
+				// boards are solved as they are generated, the rest keep generating
+				gen.generate(seed, numBoards, minPathLength, minNumBlocks, numAttempts, new BoardVisitor() {
+
+					private int generated = 0;
+
+					@Override
+					public boolean visit(Board board) {
+						System.out.println((int) (++this.generated / (double) initialBoards * 100) + "% generated...");
+						Board b = solveGenerated(board, solv, 40, false);
+						if (b != null && b.getPath().size() >= desiredLength) {
+							possibleBoards.add(b);
+						}
+						else {
+							System.out.println("Fail");
+						}
+						return true;
+					}
+				});
+			}
+			finally {
+				executor.shutdownNow();
 			}
 
 			if (possibleBoards != null && !possibleBoards.isEmpty()) {
@@ -116,7 +159,8 @@ public class Main {
 				}
 			}
 
-			System.out.println("\n\n" + TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime) + " secs.");
+			System.out.println("\n\n" + cache);
+			System.out.println(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime) + " secs.");
 		}
 		else {
 			System.out.println("\n\nGoodbye!\n\n");
@@ -124,19 +168,16 @@ public class Main {
 	}
 
 	/**
-	 * Generates a random board and then solves it.
+	 * Solves a generated board.
 	 * 
-	 * @param gen - the generator
+	 * @param board - the generated board
 	 * @param sol - the solver
 	 * @param maxDepth - the max depth to break (stops stack overflow)
 	 * @param printPath - if correct board, print the path of the solution
 	 * 
-	 * @return A random generated board that can be solved. Can return null.
+	 * @return The generated board if it can be solved. Can return null.
 	 */
-	private static Board generateAndSolve(Generator gen, Solver sol, int maxDepth, boolean printPath, int desiredLength, int desiredBlocks, int numAttempts) {
-
-		// Solve the board
-		Board board = gen.generateRandomBoard(sol, desiredLength, desiredBlocks, numAttempts);
+	private static Board solveGenerated(Board board, Solver sol, int maxDepth, boolean printPath) {
 
 		// Attempt to solve the board, breaking when we hit the max depth or
 		// solution is found.
@@ -164,12 +205,8 @@ public class Main {
 			System.out.println("The amount of blocks on this board: " + board.getBlocks().size());
 			System.out.println("---------------");
 
-			// TODO messy way of getting path size
-			List<Board> p = board.getPath();
-			p.clear();
-			for (Board o : path) {
-				p.add(o);
-			}
+			// the path size is the length of the puzzle
+			board.setPath(path);
 
 			return board;
 		}
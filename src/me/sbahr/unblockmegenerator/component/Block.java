@@ -144,6 +144,18 @@ public class Block {
 		return true;
 	}
 
+	/**
+	 * Does this block have the same geometry as the other block, whatever
+	 * their ids.
+	 * 
+	 * @param other - the block to compare
+	 * @return {@code true} if both blocks have the same orientation, kind,
+	 *         length and position. {@code false} otherwise.
+	 */
+	public boolean isEquivalent(Block other) {
+		return this.x == other.x && this.y == other.y && this.isHorizontal == other.isHorizontal && this.kind == other.kind && this.length == other.length;
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
@@ -1,10 +1,14 @@
 package me.sbahr.unblockmegenerator.component;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import me.sbahr.unblockmegenerator.solver.CandidateScorer;
 import me.sbahr.unblockmegenerator.solver.Solver;
 
 public class Board {
@@ -15,6 +19,12 @@ public class Board {
 	private byte[][] gameboard;
 	/** Path to this board state */
 	private List<Board> path;
+	/** Zobrist hash of the blocks */
+	private long hash;
+	/** Layout of the blocks, {@code null} until the board is first packed */
+	private volatile BoardLayout layout;
+	/** Packed state of the blocks, set before the layout */
+	private long state;
 	// TODO
 	public int length;
 
@@ -25,8 +35,36 @@ public class Board {
 	 * @param path - the path that gets to this board
 	 */
 	public Board(List<Block> blocks, List<Board> path) {
+		this(blocks, path, Zobrist.hash(blocks));
+	}
+
+	/**
+	 * Construct a new board with the given blocks and a known hash.
+	 * 
+	 * @param blocks - the blocks to be on the board
+	 * @param path - the path that gets to this board
+	 * @param hash - the Zobrist hash of the blocks
+	 */
+	Board(List<Block> blocks, List<Board> path, long hash) {
+		this(blocks, path, hash, null, 0);
+	}
+
+	/**
+	 * Construct a new board with the given blocks, already packed.
+	 * 
+	 * @param blocks - the blocks to be on the board, in the order of the
+	 *            layout
+	 * @param path - the path that gets to this board
+	 * @param hash - the Zobrist hash of the blocks
+	 * @param layout - the layout of the blocks, or {@code null} to pack them
+	 *            when needed
+	 * @param state - the packed blocks, if the layout is given
+	 */
+	Board(List<Block> blocks, List<Board> path, long hash, BoardLayout layout, long state) {
 		this.blocks = blocks;
-		this.path = new ArrayList<Board>();
+		this.hash = hash;
+		this.state = state;
+		this.layout = layout;
 		this.gameboard = new byte[6][6];
 
 		for (Block b : blocks) {
@@ -43,10 +81,13 @@ public class Board {
 			}
 		}
 
-		for (Board node : path) {
-			this.path.add(node);
+		// the path of another board is never changed, so it is shared
+		if (path instanceof Path) {
+			this.path = new Path(path, this);
+		}
+		else {
+			this.path = new Path(Collections.unmodifiableList(new ArrayList<Board>(path)), this);
 		}
-		this.path.add(this);
 	}
 
 	/**
@@ -59,103 +100,40 @@ public class Board {
 	 * @return A list of boards from this possible board.
 	 */
 	public List<Board> getNextPossibleBoards() {
-		List<Board> possibleBoards = new ArrayList<Board>();
+		BoardLayout layout = getLayout();
+		long state = this.state;
+		long[] next = new long[layout.getMaxSuccessors()];
+		int count = layout.getNextStates(state, next);
 
 		/** Construct all boards that arise from this one */
-		for (int i = 0; i < this.blocks.size(); i++) {
-			Block block = this.blocks.get(i);
-
-			// try to move each block once
-			if (block.isHorizontal) {
-				// Can the block move to the left?
-				if ((block.x > 0) && (this.gameboard[block.y][block.x - 1] == 0)) {
-
-					// All moves go to as far left as they can
-					int counter = block.x;
-					while (counter > 0 && this.gameboard[block.y][counter - 1] == 0) {
-						counter--;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, block.y, counter, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, this.path));
-
-				}
-
-				// Can the block move to the right?
-				if ((block.x + block.length < this.gameboard.length) && (this.gameboard[block.y][block.x + block.length] == 0)) {
-
-					// All moves go to as far right as they can
-					int counter = block.x;
-					while (counter < this.gameboard.length - block.length && this.gameboard[block.y][counter + block.length] <= 0) {
-						counter++;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, block.y, counter, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, this.path));
-
-				}
-			}
-			else {
-
-				// Can the block move up?
-				if ((block.y > 0) && (this.gameboard[block.y - 1][block.x] == 0)) {
-
-					// All moves go to as far up as they can
-					int counter = block.y;
-					while (counter > 0 && this.gameboard[counter - 1][block.x] == 0) {
-						counter--;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, counter, block.x, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, this.path));
-				}
+		List<Board> possibleBoards = new ArrayList<Board>(count);
+		for (int i = 0; i < count; i++) {
+			possibleBoards.add(getChild(layout, state, next[i], this.path));
+		}
 
-				// Can the block move down?
-				if ((block.y + block.length < this.gameboard.length) && (this.gameboard[block.y + block.length][block.x] == 0)) {
+		return possibleBoards;
+	}
 
-					// All moves go to as far down as they can
-					int counter = block.y;
-					while (counter < this.gameboard.length - block.length && this.gameboard[counter + block.length][block.x] == 0) {
-						counter++;
-					}
+	/**
+	 * Constructs the boards of {@link #getNextPossibleBoards()} one at a time,
+	 * in the same order, stopping as soon as the visitor asks to. Boards after
+	 * that are never constructed.
+	 * 
+	 * @param visitor - the visitor of the boards
+	 * @return {@code true} if every board was visited. {@code false} if the
+	 *         visitor stopped.
+	 */
+	public boolean visitNextPossibleBoards(final BoardVisitor visitor) {
+		final BoardLayout layout = getLayout();
+		final long state = this.state;
 
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, counter, block.x, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, this.path));
-				}
+		return layout.visitNextStates(state, new StateVisitor() {
 
+			@Override
+			public boolean visit(long child) {
+				return visitor.visit(getChild(layout, state, child, Board.this.path));
 			}
-
-		}
-
-		return possibleBoards;
+		});
 	}
 
 	/**
@@ -168,124 +146,65 @@ public class Board {
 	 * @return A list of boards from this boards.
 	 */
 	public List<Board> getBoardPermutation() {
-		List<Board> possibleBoards = new ArrayList<Board>();
+		BoardLayout layout = getLayout();
+		long state = this.state;
+		long[] next = new long[layout.getMaxSuccessors()];
+		int count = layout.getNeighbourStates(state, next);
 
 		/** Construct all boards that arise from this one */
-		for (int i = 0; i < this.blocks.size(); i++) {
-			Block block = this.blocks.get(i);
-
-			// try to move each block once
-			if (block.isHorizontal) {
-				// Can the block move to the left?
-				if ((block.x > 0) && (this.gameboard[block.y][block.x - 1] == 0)) {
-
-					// All moves go to as far left as they can
-					int counter = block.x;
-					while (counter > 0 && this.gameboard[block.y][counter - 1] == 0) {
-						counter--;
-						// added to make it only move one space
-						break;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, block.y, counter, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, new ArrayList<Board>()));
-
-				}
-
-				// Can the block move to the right?
-				if ((block.x + block.length < this.gameboard.length) && (this.gameboard[block.y][block.x + block.length] == 0)) {
-
-					// All moves go to as far right as they can
-					int counter = block.x;
-					while (counter < this.gameboard.length - block.length && this.gameboard[block.y][counter + block.length] <= 0) {
-						counter++;
-						// added to make it only move one space
-						break;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, block.y, counter, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, new ArrayList<Board>()));
-
-				}
-			}
-			else {
-
-				// Can the block move up?
-				if ((block.y > 0) && (this.gameboard[block.y - 1][block.x] == 0)) {
-
-					// All moves go to as far up as they can
-					int counter = block.y;
-					while (counter > 0 && this.gameboard[counter - 1][block.x] == 0) {
-						counter--;
-						// added to make it only move one space
-						break;
-					}
-
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, counter, block.x, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, new ArrayList<Board>()));
-				}
-
-				// Can the block move down?
-				if ((block.y + block.length < this.gameboard.length) && (this.gameboard[block.y + block.length][block.x] == 0)) {
-
-					// All moves go to as far down as they can
-					int counter = block.y;
-					while (counter < this.gameboard.length - block.length && this.gameboard[counter + block.length][block.x] == 0) {
-						counter++;
-						// added to make it only move one space
-						break;
-					}
+		List<Board> possibleBoards = new ArrayList<Board>(count);
+		for (int i = 0; i < count; i++) {
+			possibleBoards.add(getChild(layout, state, next[i], new ArrayList<Board>()));
+		}
 
-					// Construct a new list of blocks to make new gameboard
-					List<Block> blocks = new ArrayList<Block>();
-					for (int j = 0; j < this.blocks.size(); j++) {
-						if (j == i)
-							blocks.add(j, new Block(block.id, counter, block.x, block.isHorizontal, block.kind, block.length));
-						else
-							blocks.add(j, this.blocks.get(j).getCopy());
-					}
-					possibleBoards.add(new Board(blocks, new ArrayList<Board>()));
-				}
+		return possibleBoards;
+	}
 
-			}
+	/**
+	 * Constructs the board of a state that arises from this board by moving
+	 * one block, updating the hash by the moved block only. The new board
+	 * shares the layout of this board.
+	 * 
+	 * @param layout - the layout of this board
+	 * @param state - the state of this board
+	 * @param child - the state that arises from this board
+	 * @param path - the path that gets to the new board
+	 * @return The board of the child state.
+	 */
+	private Board getChild(BoardLayout layout, long state, long child, List<Board> path) {
+		int index = layout.getMovedBlock(state, child);
+		long hash = this.hash ^ layout.getKey(state, index) ^ layout.getKey(child, index);
+		return new Board(layout.decode(child), path, hash, layout, child);
+	}
 
+	/**
+	 * Get the layout of the blocks, packing them the first time.
+	 * 
+	 * @return The layout of the blocks, with {@link #state} set to their
+	 *         state.
+	 */
+	private BoardLayout getLayout() {
+		BoardLayout layout = this.layout;
+		if (layout == null) {
+			layout = new BoardLayout(this.blocks);
+			// the state is published by the write of the layout
+			this.state = layout.encode(this.blocks);
+			this.layout = layout;
 		}
-
-		return possibleBoards;
+		return layout;
 	}
 
 	/**
 	 * Explore the immediate children of this board, and see if they have the
 	 * reqLength size.
 	 * 
-	 * @param solver - the implementation of the solving method
+	 * @param scorer - the scorer solving the children
 	 * @param reqLength - the requested path length
 	 * 
 	 * @return One instance of a board if it exists as the reqLength. Else it
 	 *         returns empty. If this board has no children, return null.
 	 */
-	private Set<Board> exploreChildren(Solver solver, int reqLength) {
+	private Set<Board> exploreChildren(CandidateScorer scorer, int reqLength) {
 
 		List<Board> children = this.getBoardPermutation();
 
@@ -293,13 +212,16 @@ public class Board {
 			return null;
 
 		Set<Board> possible = new HashSet<Board>();
+		// children after the first of the reqLength are never looked at
+		int[] scores = scorer.score(children, reqLength + 1, reqLength, reqLength);
 
-		for (Board child : children) {
+		for (int i = 0; i < children.size(); i++) {
+			Board child = children.get(i);
 			// we need to solve the board
 			if (child.length == 0) {
-				List<Board> solved = solver.solve(child, reqLength + 1);
+				int length = scores[i];
 				// either this is a solution or not (or sol > reqLength)
-				child.length = solved != null ? solved.size() : -1;
+				child.length = length > 0 ? length : -1;
 			}
 
 			// add it cause it's a descendent
@@ -310,12 +232,29 @@ public class Board {
 			}
 		}
 
+		scorer.getSolver().getMetrics().recordTraversal(possible.size());
 		return possible;
 	}
 
 	public Set<Board> traverse(Solver solver, Board parent, int depth, int reqLength) {
+		return traverse(new CandidateScorer(solver, null), parent, depth, reqLength);
+	}
 
-		Set<Board> descendents = parent.exploreChildren(solver, reqLength);
+	/**
+	 * Traverse the tree of boards made from a board, solving the children of
+	 * each board with a scorer.
+	 * 
+	 * @param scorer - the scorer solving the children of each board
+	 * @param parent - the board at the root of the tree
+	 * @param depth - the amount of levels below the children to explore
+	 * @param reqLength - the requested path length
+	 * 
+	 * @return The boards found, ending with one of the reqLength if it
+	 *         exists. If the parent has no children, return null.
+	 */
+	public Set<Board> traverse(CandidateScorer scorer, Board parent, int depth, int reqLength) {
+
+		Set<Board> descendents = parent.exploreChildren(scorer, reqLength);
 
 		if (descendents == null || descendents.isEmpty()) {
 			System.out.println("Breaking from tree traversal as this board doesn't have any children.");
@@ -330,7 +269,7 @@ public class Board {
 			children.addAll(descendents);
 
 			for (Board child : children) {
-				Set<Board> relatives = traverse(solver, child, depth - 1, reqLength);
+				Set<Board> relatives = traverse(scorer, child, depth - 1, reqLength);
 
 				if (relatives != null) {
 
@@ -352,10 +291,13 @@ public class Board {
 	}
 
 	/**
-	 * Force updates the gameboard representation with the blocks.
+	 * Force updates the gameboard representation and the hash with the
+	 * blocks. Must be called after changing the blocks of this board.
 	 */
 	public void updateGameboard() {
 
+		this.hash = Zobrist.hash(this.blocks);
+		this.layout = null;
 		this.gameboard = new byte[6][6];
 
 		for (Block b : blocks) {
@@ -418,10 +360,101 @@ public class Board {
 		return this.path;
 	}
 
+	/**
+	 * Replaces the path of this board, such as with the solution of the board
+	 * so the path length is the length of the puzzle.
+	 * 
+	 * @param path - the new path
+	 */
+	public void setPath(List<Board> path) {
+		this.path = Collections.unmodifiableList(new ArrayList<Board>(path));
+	}
+
+	/**
+	 * Get the Zobrist hash of this board.
+	 * 
+	 * @return The 64-bit hash of the blocks on this board.
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+
+	/**
+	 * Get the blocks of this board in canonical form. Boards that differ only
+	 * in the ids and order of their blocks have the same canonical blocks.
+	 * <p>
+	 * Blocks are ordered by the row, then the column, of their top-left cell
+	 * and renumbered as the {@link me.sbahr.unblockmegenerator.generator.Generator}
+	 * numbers them: 1 for the prisoner, odd ids for the other horizontal
+	 * blocks and even ids for the vertical blocks.
+	 * </p>
+	 * 
+	 * @return A new list of new blocks, this board is unchanged.
+	 */
+	public List<Block> getCanonicalBlocks() {
+		List<Block> sorted = new ArrayList<Block>(this.blocks);
+		Collections.sort(sorted, new Comparator<Block>() {
+
+			@Override
+			public int compare(Block a, Block b) {
+				return Integer.compare(a.y * 6 + a.x, b.y * 6 + b.x);
+			}
+		});
+
+		List<Block> canonical = new ArrayList<Block>(sorted.size());
+		int odd = 3;
+		int even = 2;
+		for (Block b : sorted) {
+			byte id;
+			if (b.kind == TileKind.PRISONER) {
+				id = 1;
+			}
+			else if (b.isHorizontal) {
+				id = (byte) odd;
+				odd += 2;
+			}
+			else {
+				id = (byte) even;
+				even += 2;
+			}
+			canonical.add(new Block(id, b.y, b.x, b.isHorizontal, b.kind, b.length));
+		}
+		return canonical;
+	}
+
+	/**
+	 * Does this board have the same geometry as the other board. Only the
+	 * orientation, kind, length and position of the blocks are compared, not
+	 * their ids or order, so boards that only number their blocks differently
+	 * are the same puzzle. Only the blocks are read, so the boards do not need
+	 * to be updated after their blocks change.
+	 * 
+	 * @param other - the board to compare
+	 * @return {@code true} if every block of each board has an equivalent
+	 *         block on the other board. {@code false} otherwise.
+	 */
+	public boolean isEquivalent(Board other) {
+		if (this.blocks.size() != other.blocks.size())
+			return false;
+
+		// blocks never overlap, so each block can only match one other block
+		for (Block b : this.blocks) {
+			boolean found = false;
+			for (Block o : other.blocks) {
+				if (o.isEquivalent(b)) {
+					found = true;
+					break;
+				}
+			}
+			if (!found)
+				return false;
+		}
+		return true;
+	}
+
 	@Override
 	public int hashCode() {
-		int result = ((this.blocks == null) ? 0 : this.blocks.hashCode());
-		return result;
+		return (int) (this.hash ^ (this.hash >>> 32));
 	}
 
 	@Override
@@ -433,12 +466,55 @@ public class Board {
 		if (getClass() != obj.getClass())
 			return false;
 		Board other = (Board) obj;
-		if (this.blocks == null) {
-			if (other.blocks != null)
-				return false;
+		if (this.blocks == null || other.blocks == null)
+			return this.blocks == other.blocks;
+		return isEquivalent(other);
+	}
+
+	/**
+	 * The path to a board, made of the path to the board before it and the
+	 * board itself. Paths never change, so the boards along a path share the
+	 * path before them instead of copying it.
+	 */
+	private static final class Path extends AbstractList<Board> {
+
+		/** The path to the board before the last board */
+		private final List<Board> previous;
+		/** The last board of the path */
+		private final Board last;
+		/** The amount of boards of the path */
+		private final int size;
+
+		/**
+		 * Construct a new path.
+		 * 
+		 * @param previous - the path to the board before the last board,
+		 *            never changed
+		 * @param last - the last board of the path
+		 */
+		Path(List<Board> previous, Board last) {
+			this.previous = previous;
+			this.last = last;
+			this.size = previous.size() + 1;
+		}
+
+		@Override
+		public Board get(int index) {
+			if (index < 0 || index >= this.size) {
+				throw new IndexOutOfBoundsException("Index " + index + " of a path of " + this.size);
+			}
+
+			// walk back to the path the board ends
+			List<Board> path = this;
+			while (path instanceof Path && index < ((Path) path).size - 1) {
+				path = ((Path) path).previous;
+			}
+			return path instanceof Path ? ((Path) path).last : path.get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.size;
 		}
-		else if (!this.blocks.equals(other.blocks))
-			return false;
-		return true;
 	}
 }
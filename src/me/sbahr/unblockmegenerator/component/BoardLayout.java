@@ -0,0 +1,603 @@
+package me.sbahr.unblockmegenerator.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import me.sbahr.unblockmegenerator.util.LongQueue;
+
+/**
+ * Compact representation of the blocks on a board.
+ * <p>
+ * Every block slides along a single row (horizontal blocks) or column
+ * (vertical blocks), so the only thing that changes between two states of the
+ * same puzzle is the offset of each block along its line. The layout stores
+ * the parts of the blocks that never change once, and a state is a single
+ * {@code long} that packs the offset of every block into 3 bits.
+ * </p>
+ * <p>
+ * Occupancy of a state is a 36-bit mask where bit {@code y * 6 + x} is set if
+ * the cell at row y, column x is covered by a block.
+ * </p>
+ */
+public class BoardLayout {
+
+	/** The width and height of the board */
+	public static final int SIZE = 6;
+	/** The amount of bits used to store the position of one block */
+	private static final int BITS = 3;
+	/** The mask of the position of one block */
+	private static final long POSITION_MASK = (1L << BITS) - 1;
+	/** The maximum amount of blocks that fit in one state */
+	public static final int MAX_BLOCKS = Long.SIZE / BITS;
+	/** A value that is never a valid state, as states never use the sign bit */
+	public static final long NO_STATE = -1L;
+	/** The first cell of every row, used to gather a column into a line */
+	private static final long COLUMN_CELLS = 0x041041041L;
+	/** Multiplier that moves the cells of a column next to each other */
+	private static final long COLUMN_GATHER = 0x42108420L;
+
+	/** The ID representation of each block */
+	private final byte[] ids;
+	/** Horizontal or vertical piece */
+	private final boolean[] horizontal;
+	/** Prisoner or regular block */
+	private final TileKind[] kinds;
+	/** Length of each block */
+	private final int[] lengths;
+	/** The row of each horizontal block, the column of each vertical block */
+	private final int[] lines;
+	/** Occupancy of each block at each of its positions */
+	private final long[][] masks;
+	/** Index of the prisoner block */
+	private final int prisoner;
+	/** Cells that must be empty for the prisoner to escape, per position */
+	private final long[] exits;
+	/** The most states that can arise from one state */
+	private final int maxSuccessors;
+
+	/**
+	 * Construct a new layout from the given blocks. The blocks keep the order
+	 * of the list, which is also the order that {@link #encode(List)} expects.
+	 * 
+	 * @param blocks - the blocks on the board
+	 */
+	public BoardLayout(List<Block> blocks) {
+		int size = blocks.size();
+		if (size > MAX_BLOCKS) {
+			throw new IllegalArgumentException("A board can hold at most " + MAX_BLOCKS + " blocks, got " + size);
+		}
+
+		this.ids = new byte[size];
+		this.horizontal = new boolean[size];
+		this.kinds = new TileKind[size];
+		this.lengths = new int[size];
+		this.lines = new int[size];
+		this.masks = new long[size][];
+
+		int prisoner = -1;
+		int maxSuccessors = 0;
+		for (int i = 0; i < size; i++) {
+			Block b = blocks.get(i);
+			this.ids[i] = b.id;
+			this.horizontal[i] = b.isHorizontal;
+			this.kinds[i] = b.kind;
+			this.lengths[i] = b.length;
+			this.lines[i] = b.isHorizontal ? b.y : b.x;
+			this.masks[i] = new long[SIZE - b.length + 1];
+			// every position but the current one
+			maxSuccessors += this.masks[i].length - 1;
+
+			for (int pos = 0; pos < this.masks[i].length; pos++) {
+				long mask = 0;
+				for (int k = pos; k < pos + b.length; k++) {
+					mask |= b.isHorizontal ? cell(b.y, k) : cell(k, b.x);
+				}
+				this.masks[i][pos] = mask;
+			}
+
+			if (b.kind == TileKind.PRISONER && prisoner < 0) {
+				prisoner = i;
+			}
+		}
+
+		if (prisoner < 0) {
+			throw new IllegalArgumentException("A board must contain a prisoner block");
+		}
+		this.prisoner = prisoner;
+		this.maxSuccessors = maxSuccessors;
+
+		// the prisoner escapes when every cell to its right is empty
+		this.exits = new long[this.masks[prisoner].length];
+		for (int pos = 0; pos < this.exits.length; pos++) {
+			long mask = 0;
+			for (int x = pos + this.lengths[prisoner]; x < SIZE; x++) {
+				mask |= this.horizontal[prisoner] ? cell(this.lines[prisoner], x) : cell(x, this.lines[prisoner]);
+			}
+			this.exits[pos] = mask;
+		}
+	}
+
+	/**
+	 * Get the occupancy bit of a cell.
+	 * 
+	 * @param y - y-coordinate
+	 * @param x - x-coordinate
+	 * @return The bit representing the cell at (y, x).
+	 */
+	public static long cell(int y, int x) {
+		return 1L << (y * SIZE + x);
+	}
+
+	/**
+	 * Packs the positions of the given blocks into a state.
+	 * 
+	 * @param blocks - the blocks, in the same order as this layout was built
+	 *            with
+	 * @return The state representing the blocks.
+	 */
+	public long encode(List<Block> blocks) {
+		long state = 0;
+		for (int i = 0; i < blocks.size(); i++) {
+			Block b = blocks.get(i);
+			state = setPosition(state, i, b.isHorizontal ? b.x : b.y);
+		}
+		return state;
+	}
+
+	/**
+	 * Unpacks a state into a new list of blocks.
+	 * 
+	 * @param state - the state to unpack
+	 * @return A new list of blocks, in the order of this layout.
+	 */
+	public List<Block> decode(long state) {
+		List<Block> blocks = new ArrayList<Block>(this.ids.length);
+		for (int i = 0; i < this.ids.length; i++) {
+			int pos = getPosition(state, i);
+			int y = this.horizontal[i] ? this.lines[i] : pos;
+			int x = this.horizontal[i] ? pos : this.lines[i];
+			blocks.add(new Block(this.ids[i], y, x, this.horizontal[i], this.kinds[i], this.lengths[i]));
+		}
+		return blocks;
+	}
+
+	/**
+	 * Unpacks a state into a new board.
+	 * 
+	 * @param state - the state to unpack
+	 * @param path - the path that gets to this board
+	 * @return A new board with the blocks of the state.
+	 */
+	public Board toBoard(long state, List<Board> path) {
+		List<Block> blocks = decode(state);
+		return new Board(blocks, path, Zobrist.hash(blocks), this, state);
+	}
+
+	/**
+	 * Get the amount of blocks in this layout.
+	 * 
+	 * @return The amount of blocks.
+	 */
+	public int getSize() {
+		return this.ids.length;
+	}
+
+	/**
+	 * Get the index of the prisoner block.
+	 * 
+	 * @return The index of the prisoner.
+	 */
+	public int getPrisoner() {
+		return this.prisoner;
+	}
+
+	/**
+	 * Is a block horizontal or vertical.
+	 * 
+	 * @param index - the index of the block
+	 * @return {@code true} if the block is horizontal. {@code false} if the
+	 *         block is vertical.
+	 */
+	public boolean isHorizontal(int index) {
+		return this.horizontal[index];
+	}
+
+	/**
+	 * Get the line a block moves along.
+	 * 
+	 * @param index - the index of the block
+	 * @return The row of a horizontal block, or the column of a vertical
+	 *         block.
+	 */
+	public int getLine(int index) {
+		return this.lines[index];
+	}
+
+	/**
+	 * Get the cells a block covers at a position.
+	 * 
+	 * @param index - the index of the block
+	 * @param position - the position of the block
+	 * @return The occupancy mask of the block.
+	 */
+	public long getMask(int index, int position) {
+		return this.masks[index][position];
+	}
+
+	/**
+	 * Get the amount of positions a block can take along its line.
+	 * 
+	 * @param index - the index of the block
+	 * @return The amount of positions.
+	 */
+	public int getPositions(int index) {
+		return this.masks[index].length;
+	}
+
+	/**
+	 * Get the cells that must be empty for the prisoner to escape.
+	 * 
+	 * @param state - the state
+	 * @return The cells between the prisoner and the exit.
+	 */
+	public long getExit(long state) {
+		return this.exits[getPosition(state, this.prisoner)];
+	}
+
+	/**
+	 * Get the maximum amount of states that can arise from one state.
+	 * 
+	 * @return The size of the buffer needed by {@link #getNextStates(long, long[])}.
+	 */
+	public int getMaxSuccessors() {
+		return this.maxSuccessors;
+	}
+
+	/**
+	 * Get the position of a block in the given state.
+	 * 
+	 * @param state - the state
+	 * @param index - the index of the block
+	 * @return The x-coordinate of a horizontal block, or the y-coordinate of a
+	 *         vertical block.
+	 */
+	public int getPosition(long state, int index) {
+		return (int) ((state >>> (index * BITS)) & POSITION_MASK);
+	}
+
+	/**
+	 * Get a copy of the state with a block moved to a new position.
+	 * 
+	 * @param state - the state
+	 * @param index - the index of the block
+	 * @param position - the new position of the block
+	 * @return The new state.
+	 */
+	public long setPosition(long state, int index, int position) {
+		int shift = index * BITS;
+		return (state & ~(POSITION_MASK << shift)) | ((long) position << shift);
+	}
+
+	/**
+	 * Get the state that a move leads to.
+	 * 
+	 * @param state - the state before the move
+	 * @param move - the encoded move
+	 * @return The state after the move.
+	 * @see Move
+	 */
+	public long move(long state, int move) {
+		return setPosition(state, Move.getIndex(move), Move.getTo(move));
+	}
+
+	/**
+	 * Get the occupancy that a move leads to, from the moved block only.
+	 * 
+	 * @param occupied - the occupancy mask before the move
+	 * @param move - the encoded move
+	 * @return The occupancy mask after the move.
+	 */
+	public long moveCells(long occupied, int move) {
+		long[] mask = this.masks[Move.getIndex(move)];
+		return occupied ^ mask[Move.getFrom(move)] ^ mask[Move.getTo(move)];
+	}
+
+	/**
+	 * Get the index of the block that moved between two states that arise
+	 * from one another.
+	 * 
+	 * @param from - the state before the move
+	 * @param to - the state after the move
+	 * @return The index of the moved block.
+	 */
+	public int getMovedBlock(long from, long to) {
+		return Long.numberOfTrailingZeros(from ^ to) / BITS;
+	}
+
+	/**
+	 * Get the Zobrist key of a block in the given state.
+	 * 
+	 * @param state - the state
+	 * @param index - the index of the block
+	 * @return The key of the block at its position in the state.
+	 */
+	public long getKey(long state, int index) {
+		int pos = getPosition(state, index);
+		int y = this.horizontal[index] ? this.lines[index] : pos;
+		int x = this.horizontal[index] ? pos : this.lines[index];
+		return Zobrist.getKey(this.kinds[index], this.horizontal[index], this.lengths[index], y, x);
+	}
+
+	/**
+	 * Get the cells covered by blocks in the given state.
+	 * 
+	 * @param state - the state
+	 * @return The occupancy mask of the state.
+	 */
+	public long getOccupancy(long state) {
+		long occupied = 0;
+		for (int i = 0; i < this.masks.length; i++) {
+			occupied |= this.masks[i][getPosition(state, i)];
+		}
+		return occupied;
+	}
+
+	/**
+	 * Is this state a winner. A winner is defined as a state that has the
+	 * prisoner able to move off the board to the right in its row.
+	 * 
+	 * @param state - the state in question
+	 * @return {@code true} if there exists no blocks between the prisoner and
+	 *         the exit. {@code false} otherwise.
+	 */
+	public boolean isWinner(long state) {
+		return (getOccupancy(state) & this.exits[getPosition(state, this.prisoner)]) == 0;
+	}
+
+	/**
+	 * Is this state a winner, when its occupancy is already known.
+	 * 
+	 * @param state - the state in question
+	 * @param occupied - the occupancy mask of the state
+	 * @return {@code true} if there exists no blocks between the prisoner and
+	 *         the exit. {@code false} otherwise.
+	 */
+	public boolean isWinner(long state, long occupied) {
+		return (occupied & this.exits[getPosition(state, this.prisoner)]) == 0;
+	}
+
+	/**
+	 * Constructs the states that arise from sliding one block any amount of
+	 * cells, which is one move no matter how far the block goes. The states
+	 * of each block are ordered from its leftmost (topmost) position to its
+	 * rightmost (bottommost). Blocks are taken in the order of the layout.
+	 * 
+	 * @param state - the state to move from
+	 * @param next - the buffer to write the states into, of at least
+	 *            {@link #getMaxSuccessors()} in size
+	 * @return The amount of states written into the buffer.
+	 */
+	public int getNextStates(long state, long[] next) {
+		long occupied = getOccupancy(state);
+		int count = 0;
+
+		for (int i = 0; i < this.masks.length; i++) {
+			int pos = getPosition(state, i);
+			int range = getRange(i, pos, occupied);
+			int high = SlideTable.getHigh(range);
+
+			// every free position along the line, near or far
+			for (int to = SlideTable.getLow(range); to <= high; to++) {
+				if (to != pos) {
+					next[count++] = setPosition(state, i, to);
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Generates the states of {@link #getNextStates(long, long[])} one at a
+	 * time, in the same order, stopping as soon as the visitor asks to.
+	 * 
+	 * @param state - the state to move from
+	 * @param visitor - the visitor of the states
+	 * @return {@code true} if every state was visited. {@code false} if the
+	 *         visitor stopped.
+	 */
+	public boolean visitNextStates(long state, StateVisitor visitor) {
+		long occupied = getOccupancy(state);
+
+		for (int i = 0; i < this.masks.length; i++) {
+			int pos = getPosition(state, i);
+			int range = getRange(i, pos, occupied);
+			int high = SlideTable.getHigh(range);
+
+			for (int to = SlideTable.getLow(range); to <= high; to++) {
+				if (to != pos && !visitor.visit(setPosition(state, i, to))) {
+					return false;
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Encodes the moves that slide each block to each free position along its
+	 * line, in the order of {@link #getNextStates(long, long[])}.
+	 * 
+	 * @param state - the state to move from
+	 * @param occupied - the occupancy mask of the state
+	 * @param moves - the buffer to write the moves into, of at least
+	 *            {@link #getMaxSuccessors()} in size
+	 * @return The amount of moves written into the buffer.
+	 * @see Move
+	 */
+	public int getMoves(long state, long occupied, int[] moves) {
+		int count = 0;
+
+		for (int i = 0; i < this.masks.length; i++) {
+			int pos = getPosition(state, i);
+			int range = getRange(i, pos, occupied);
+			int high = SlideTable.getHigh(range);
+
+			for (int to = SlideTable.getLow(range); to <= high; to++) {
+				if (to != pos) {
+					moves[count++] = Move.encode(i, pos, to);
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the positions a block can slide between, from the table of
+	 * {@link SlideTable}.
+	 * 
+	 * @param index - the index of the block
+	 * @param pos - the position of the block
+	 * @param occupied - the occupancy mask of the state
+	 * @return The range of the block.
+	 */
+	private int getRange(int index, int pos, long occupied) {
+		int line;
+		if (this.horizontal[index]) {
+			line = (int) (occupied >>> (this.lines[index] * SIZE)) & ((1 << SIZE) - 1);
+		}
+		else {
+			// bit y * 6 of the column ends up at bit 30 + y
+			line = (int) ((((occupied >>> this.lines[index]) & COLUMN_CELLS) * COLUMN_GATHER) >>> 30) & ((1 << SIZE) - 1);
+		}
+		return SlideTable.getRange(line, pos, this.lengths[index]);
+	}
+
+	/**
+	 * Constructs the states that arise from moving each block by one in each
+	 * direction that it can move. The order matches
+	 * {@link Board#getBoardPermutation()}.
+	 * 
+	 * @param state - the state to move from
+	 * @param next - the buffer to write the states into, of at least
+	 *            {@link #getMaxSuccessors()} in size
+	 * @return The amount of states written into the buffer.
+	 */
+	public int getNeighbourStates(long state, long[] next) {
+		long occupied = getOccupancy(state);
+		int count = 0;
+
+		for (int i = 0; i < this.masks.length; i++) {
+			int pos = getPosition(state, i);
+			int range = getRange(i, pos, occupied);
+
+			if (SlideTable.getLow(range) < pos) {
+				next[count++] = setPosition(state, i, pos - 1);
+			}
+			if (SlideTable.getHigh(range) > pos) {
+				next[count++] = setPosition(state, i, pos + 1);
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Get the maximum amount of states that one state can arise from.
+	 * 
+	 * @return The size of the buffer needed by
+	 *         {@link #getPreviousStates(long, long[])}.
+	 */
+	public int getMaxPredecessors() {
+		return this.maxSuccessors;
+	}
+
+	/**
+	 * Constructs the states that the given state arises from, which are the
+	 * states that have the given state in {@link #getNextStates(long, long[])}.
+	 * Every move can be taken back by sliding the block to where it was, so
+	 * these are the same states that arise from the given state.
+	 * 
+	 * @param state - the state to move back from
+	 * @param previous - the buffer to write the states into, of at least
+	 *            {@link #getMaxPredecessors()} in size
+	 * @return The amount of states written into the buffer.
+	 */
+	public int getPreviousStates(long state, long[] previous) {
+		return getNextStates(state, previous);
+	}
+
+	/**
+	 * Collects every winning state of this layout, which are all the ways of
+	 * placing the blocks without overlap while the prisoner can escape.
+	 * 
+	 * @param winners - the queue to add the winning states to
+	 * @param limit - the maximum amount of states to collect
+	 * @return {@code true} if every winning state was collected.
+	 *         {@code false} if there are more than limit.
+	 */
+	public boolean getWinningStates(LongQueue winners, int limit) {
+		for (int pos = 0; pos < this.exits.length; pos++) {
+			// cells in front of the prisoner are kept empty
+			long occupied = this.masks[this.prisoner][pos] | this.exits[pos];
+			if (!collect(0, occupied, setPosition(0, this.prisoner, pos), winners, limit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Collects every state of this layout, which are all the ways of placing
+	 * the blocks without overlap.
+	 * 
+	 * @param states - the queue to add the states to
+	 * @param limit - the maximum amount of states to collect
+	 * @return {@code true} if every state was collected. {@code false} if
+	 *         there are more than limit.
+	 */
+	public boolean getStates(LongQueue states, int limit) {
+		for (int pos = 0; pos < this.exits.length; pos++) {
+			long occupied = this.masks[this.prisoner][pos];
+			if (!collect(0, occupied, setPosition(0, this.prisoner, pos), states, limit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Places the blocks from the given index onward in every way that does not
+	 * overlap, collecting the resulting states.
+	 * 
+	 * @param index - the index of the block to place
+	 * @param occupied - the cells that are taken
+	 * @param state - the state with the blocks before index placed
+	 * @param states - the queue to add the states to
+	 * @param limit - the maximum amount of states to collect
+	 * @return {@code false} if more than limit states exist.
+	 */
+	private boolean collect(int index, long occupied, long state, LongQueue states, int limit) {
+		if (index == this.masks.length) {
+			if (states.size() >= limit) {
+				return false;
+			}
+			states.add(state);
+			return true;
+		}
+
+		// the prisoner is already placed
+		if (index == this.prisoner) {
+			return collect(index + 1, occupied, state, states, limit);
+		}
+
+		long[] mask = this.masks[index];
+		for (int pos = 0; pos < mask.length; pos++) {
+			if ((mask[pos] & occupied) == 0 && !collect(index + 1, occupied | mask[pos], setPosition(state, index, pos), states, limit)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
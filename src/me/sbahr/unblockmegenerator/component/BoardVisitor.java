@@ -0,0 +1,15 @@
+package me.sbahr.unblockmegenerator.component;
+
+/**
+ * Receives boards one at a time as they are generated.
+ */
+public interface BoardVisitor {
+
+	/**
+	 * Visits a board.
+	 * 
+	 * @param board - the board
+	 * @return {@code true} to keep generating boards. {@code false} to stop.
+	 */
+	boolean visit(Board board);
+}
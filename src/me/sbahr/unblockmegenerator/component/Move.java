@@ -0,0 +1,73 @@
+package me.sbahr.unblockmegenerator.component;
+
+/**
+ * Compact encoding of a move as a single {@code int}, so moves can be
+ * generated into a reused buffer without creating any objects. A move holds
+ * the index of the block in its {@link BoardLayout}, and the position along
+ * its line it moves from and to.
+ */
+public final class Move {
+
+	/** The amount of bits used to store a position */
+	private static final int BITS = 3;
+	/** The mask of a position */
+	private static final int POSITION_MASK = (1 << BITS) - 1;
+
+	/**
+	 * Moves are only ever encoded as ints.
+	 */
+	private Move() {
+	}
+
+	/**
+	 * Encodes a move.
+	 * 
+	 * @param index - the index of the block
+	 * @param from - the position of the block before the move
+	 * @param to - the position of the block after the move
+	 * @return The encoded move.
+	 */
+	public static int encode(int index, int from, int to) {
+		return (index << (2 * BITS)) | (from << BITS) | to;
+	}
+
+	/**
+	 * Get the index of the block a move slides.
+	 * 
+	 * @param move - the encoded move
+	 * @return The index of the block.
+	 */
+	public static int getIndex(int move) {
+		return move >>> (2 * BITS);
+	}
+
+	/**
+	 * Get the position of the block before a move.
+	 * 
+	 * @param move - the encoded move
+	 * @return The position the block moves from.
+	 */
+	public static int getFrom(int move) {
+		return (move >>> BITS) & POSITION_MASK;
+	}
+
+	/**
+	 * Get the position of the block after a move.
+	 * 
+	 * @param move - the encoded move
+	 * @return The position the block moves to.
+	 */
+	public static int getTo(int move) {
+		return move & POSITION_MASK;
+	}
+
+	/**
+	 * Get the move that takes back a move.
+	 * 
+	 * @param move - the encoded move
+	 * @return The encoded move of the same block, from and to swapped.
+	 */
+	public static int getReverse(int move) {
+		return encode(getIndex(move), getTo(move), getFrom(move));
+	}
+}
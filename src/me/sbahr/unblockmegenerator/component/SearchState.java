@@ -0,0 +1,157 @@
+package me.sbahr.unblockmegenerator.component;
+
+import java.util.List;
+
+/**
+ * A state of a {@link BoardLayout} that is changed in place by applying and
+ * undoing {@link Move moves}. The occupancy and the Zobrist hash are kept up
+ * to date by the moved block only, so depth first searches can walk the
+ * states without creating any objects.
+ */
+public class SearchState {
+
+	/** The layout of the state */
+	private final BoardLayout layout;
+	/** The packed state */
+	private long state;
+	/** The cells covered by blocks */
+	private long occupied;
+	/** The Zobrist hash of the blocks */
+	private long hash;
+
+	/**
+	 * Construct a new search state.
+	 * 
+	 * @param layout - the layout of the state
+	 * @param state - the packed state to start from
+	 */
+	public SearchState(BoardLayout layout, long state) {
+		this.layout = layout;
+		set(state);
+	}
+
+	/**
+	 * Replaces the current state.
+	 * 
+	 * @param state - the new packed state
+	 */
+	public void set(long state) {
+		this.state = state;
+		this.occupied = this.layout.getOccupancy(state);
+		this.hash = 0;
+		for (int i = 0; i < this.layout.getSize(); i++) {
+			this.hash ^= this.layout.getKey(state, i);
+		}
+	}
+
+	/**
+	 * Encodes the moves that can be made from the current state, in the order
+	 * of {@link BoardLayout#getNextStates(long, long[])}.
+	 * 
+	 * @param moves - the buffer to write the moves into, of at least
+	 *            {@link BoardLayout#getMaxSuccessors()} in size
+	 * @return The amount of moves written into the buffer.
+	 */
+	public int getMoves(int[] moves) {
+		return this.layout.getMoves(this.state, this.occupied, moves);
+	}
+
+	/**
+	 * Get the state a move leads to, without making it.
+	 * 
+	 * @param move - a move from the current state
+	 * @return The packed state after the move.
+	 */
+	public long getNextState(int move) {
+		return this.layout.move(this.state, move);
+	}
+
+	/**
+	 * Makes a move from the current state.
+	 * 
+	 * @param move - a move from the current state
+	 */
+	public void apply(int move) {
+		slide(Move.getIndex(move), Move.getFrom(move), Move.getTo(move));
+	}
+
+	/**
+	 * Takes back the last move made.
+	 * 
+	 * @param move - the last move applied
+	 */
+	public void undo(int move) {
+		slide(Move.getIndex(move), Move.getTo(move), Move.getFrom(move));
+	}
+
+	/**
+	 * Slides a block, updating the occupancy and hash.
+	 * 
+	 * @param index - the index of the block
+	 * @param from - the current position of the block
+	 * @param to - the new position of the block
+	 */
+	private void slide(int index, int from, int to) {
+		this.hash ^= this.layout.getKey(this.state, index);
+		this.occupied ^= this.layout.getMask(index, from) ^ this.layout.getMask(index, to);
+		this.state = this.layout.setPosition(this.state, index, to);
+		this.hash ^= this.layout.getKey(this.state, index);
+	}
+
+	/**
+	 * Is the current state a winner.
+	 * 
+	 * @return {@code true} if there exists no blocks between the prisoner and
+	 *         the exit. {@code false} otherwise.
+	 */
+	public boolean isWinner() {
+		return this.layout.isWinner(this.state, this.occupied);
+	}
+
+	/**
+	 * Unpacks the current state into a new board.
+	 * 
+	 * @param path - the path that gets to this board
+	 * @return A new board with the blocks of the current state.
+	 */
+	public Board toBoard(List<Board> path) {
+		return new Board(this.layout.decode(this.state), path, this.hash, this.layout, this.state);
+	}
+
+	/**
+	 * Get the layout of this state.
+	 * 
+	 * @return The layout.
+	 */
+	public BoardLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * Get the current packed state.
+	 * 
+	 * @return The packed state.
+	 */
+	public long getState() {
+		return this.state;
+	}
+
+	/**
+	 * Get the cells covered by blocks in the current state.
+	 * 
+	 * @return The occupancy mask of the state.
+	 */
+	public long getOccupancy() {
+		return this.occupied;
+	}
+
+	/**
+	 * Get the Zobrist hash of the current state, equal to the hash of the
+	 * board of the state.
+	 * 
+	 * @return The 64-bit hash of the blocks.
+	 */
+	public long getHash() {
+		return this.hash;
+	}
+}
@@ -0,0 +1,93 @@
+package me.sbahr.unblockmegenerator.component;
+
+/**
+ * Precomputed slide limits of a block along a line of the board.
+ * <p>
+ * A line has only 64 occupancy patterns, so for every pattern, block length
+ * and block position the lowest and highest positions the block can slide to
+ * are worked out once. Finding how far a block slides is then a single table
+ * lookup instead of a walk over the cells of its line.
+ * </p>
+ */
+public final class SlideTable {
+
+	/** The amount of bits used to store a position in a range */
+	private static final int BITS = 3;
+	/** The mask of a position in a range */
+	private static final int POSITION_MASK = (1 << BITS) - 1;
+	/** The amount of occupancy patterns of a line */
+	private static final int PATTERNS = 1 << BoardLayout.SIZE;
+
+	/** The range of each length, pattern and position */
+	private static final byte[] RANGES = new byte[(BoardLayout.SIZE + 1) * PATTERNS << BITS];
+
+	static {
+		for (int length = 1; length <= BoardLayout.SIZE; length++) {
+			for (int line = 0; line < PATTERNS; line++) {
+				for (int pos = 0; pos + length <= BoardLayout.SIZE; pos++) {
+					int low = pos;
+					while (low > 0 && (line & (1 << (low - 1))) == 0) {
+						low--;
+					}
+					int high = pos;
+					while (high + length < BoardLayout.SIZE && (line & (1 << (high + length))) == 0) {
+						high++;
+					}
+					RANGES[getIndex(line, pos, length)] = (byte) (low | (high << BITS));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The table is only ever used through its static lookups.
+	 */
+	private SlideTable() {
+	}
+
+	/**
+	 * Looks up the positions a block can slide between.
+	 * 
+	 * @param line - the occupancy of the line of the block, bit i set if the
+	 *            cell at position i is covered, the block's own cells included
+	 * @param pos - the position of the block
+	 * @param length - the length of the block
+	 * @return The range of the block, read with {@link #getLow(int)} and
+	 *         {@link #getHigh(int)}.
+	 */
+	public static int getRange(int line, int pos, int length) {
+		return RANGES[getIndex(line, pos, length)];
+	}
+
+	/**
+	 * Get the lowest position of a range.
+	 * 
+	 * @param range - the range from {@link #getRange(int, int, int)}
+	 * @return The leftmost (topmost) position the block can slide to.
+	 */
+	public static int getLow(int range) {
+		return range & POSITION_MASK;
+	}
+
+	/**
+	 * Get the highest position of a range.
+	 * 
+	 * @param range - the range from {@link #getRange(int, int, int)}
+	 * @return The rightmost (bottommost) position the block can slide to.
+	 */
+	public static int getHigh(int range) {
+		return range >>> BITS;
+	}
+
+	/**
+	 * Get the index of a range in the table.
+	 * 
+	 * @param line - the occupancy of the line
+	 * @param pos - the position of the block
+	 * @param length - the length of the block
+	 * @return The index into the table.
+	 */
+	private static int getIndex(int line, int pos, int length) {
+		return ((length * PATTERNS + line) << BITS) | pos;
+	}
+}
@@ -0,0 +1,16 @@
+package me.sbahr.unblockmegenerator.component;
+
+/**
+ * Receives the states of a {@link BoardLayout} one at a time as they are
+ * generated.
+ */
+public interface StateVisitor {
+
+	/**
+	 * Visits a state.
+	 * 
+	 * @param state - the packed state
+	 * @return {@code true} to keep generating states. {@code false} to stop.
+	 */
+	boolean visit(long state);
+}
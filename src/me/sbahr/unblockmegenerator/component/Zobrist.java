@@ -0,0 +1,76 @@
+package me.sbahr.unblockmegenerator.component;
+
+import java.util.Random;
+
+/**
+ * Zobrist keys for hashing boards. Every possible placement of a block has a
+ * random 64-bit key, and the hash of a board is the XOR of the keys of its
+ * blocks. Moving a block only changes the hash by the keys of its old and new
+ * placement, so the hash of a board that arises from another is computed in
+ * constant time.
+ * <p>
+ * Keys depend only on the geometry of a block, never on its id, so boards
+ * that differ only in how their blocks are numbered have the same hash.
+ * </p>
+ */
+public class Zobrist {
+
+	/** Version of the keys, changed whenever the seed or key indexing does */
+	public static final int VERSION = 1;
+	/** Seed of the keys, fixed so hashes are the same between runs */
+	private static final long SEED = 0x5bd1e995L;
+	/** Keys by prisoner or not, orientation, length and cell */
+	private static final long[][][][] KEYS = new long[2][2][2][BoardLayout.SIZE * BoardLayout.SIZE];
+
+	static {
+		Random random = new Random(SEED);
+		for (long[][][] kind : KEYS) {
+			for (long[][] orientation : kind) {
+				for (long[] length : orientation) {
+					for (int cell = 0; cell < length.length; cell++) {
+						length[cell] = random.nextLong();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the key of a block placement. Only blocks of length 2 and 3 exist on
+	 * a board, other lengths share their keys, which only costs collisions.
+	 * 
+	 * @param kind - Block or Prisoner
+	 * @param isHorizontal - horizontal or vertical
+	 * @param length - length of the block
+	 * @param y - y-coordinate
+	 * @param x - x-coordinate
+	 * @return The key of the block at the given position.
+	 */
+	public static long getKey(TileKind kind, boolean isHorizontal, int length, int y, int x) {
+		return KEYS[kind == TileKind.PRISONER ? 1 : 0][isHorizontal ? 1 : 0][length & 1][y * BoardLayout.SIZE + x];
+	}
+
+	/**
+	 * Get the key of a block at its current position.
+	 * 
+	 * @param b - the block
+	 * @return The key of the block.
+	 */
+	public static long getKey(Block b) {
+		return getKey(b.kind, b.isHorizontal, b.length, b.y, b.x);
+	}
+
+	/**
+	 * Get the hash of a list of blocks.
+	 * 
+	 * @param blocks - the blocks
+	 * @return The XOR of the keys of every block.
+	 */
+	public static long hash(Iterable<Block> blocks) {
+		long hash = 0;
+		for (Block b : blocks) {
+			hash ^= getKey(b);
+		}
+		return hash;
+	}
+}
@@ -3,6 +3,8 @@ package me.sbahr.unblockmegenerator.database;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 import me.sbahr.unblockmegenerator.component.Block;
 import me.sbahr.unblockmegenerator.component.Board;
@@ -11,8 +13,88 @@ import me.sbahr.unblockmegenerator.util.PuzzleUtils;
 
 public class CoreDatabase extends BaseDatabase {
 
+	/**
+	 * The version of the tables this class reads and writes. Version 1 hashed
+	 * puzzles by the ids of their blocks, version 2 only by their geometry.
+	 */
+	public static final int SCHEMA_VERSION = 2;
+
 	public CoreDatabase(DatabaseCredentials credentials) {
 		super(credentials);
+		migrate();
+	}
+
+	/**
+	 * Brings the tables up to {@link #SCHEMA_VERSION}. Databases without a
+	 * {@code schema_version} table are version 1, whose hash codes are
+	 * computed again from the stored blocks so {@link #findPuzzle(Board)}
+	 * finds the puzzles inserted before the hash changed.
+	 */
+	public void migrate() {
+		int version = getSchemaVersion();
+		if (version >= SCHEMA_VERSION) {
+			return;
+		}
+
+		System.out.println("Migrating the puzzles from schema version " + version + " to " + SCHEMA_VERSION + "...");
+		List<Integer> puzzles = new ArrayList<Integer>();
+		try (Statement statement = getConnection().createStatement()) {
+			ResultSet rs = statement.executeQuery("SELECT id FROM puzzle");
+			while (rs.next()) {
+				puzzles.add(rs.getInt(1));
+			}
+		}
+		catch (SQLException exc) {
+			System.out.println("Error executing migrate puzzles: " + exc.getMessage());
+			return;
+		}
+
+		for (int puzzleID : puzzles) {
+			List<Block> blocks = getBlocks(puzzleID);
+			if (blocks == null) {
+				return;
+			}
+
+			int hashCode = new Board(blocks, new ArrayList<Board>()).hashCode();
+			try (Statement statement = getConnection().createStatement()) {
+				statement.executeUpdate("UPDATE puzzle SET hash_code = '" + hashCode + "' WHERE id = '" + puzzleID + "'");
+			}
+			catch (SQLException exc) {
+				System.out.println("Error executing rehash puzzle: " + exc.getMessage());
+				return;
+			}
+		}
+
+		try (Statement statement = getConnection().createStatement()) {
+			statement.executeUpdate("CREATE INDEX puzzle_hash_code ON puzzle (hash_code)");
+			statement.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (version INT NOT NULL)");
+			statement.executeUpdate("DELETE FROM schema_version");
+			statement.executeUpdate("INSERT INTO schema_version (version) VALUES ('" + SCHEMA_VERSION + "')");
+		}
+		catch (SQLException exc) {
+			System.out.println("Error executing migrate schema: " + exc.getMessage());
+			return;
+		}
+		System.out.println("Migrated " + puzzles.size() + " puzzles.");
+	}
+
+	/**
+	 * Get the version of the tables.
+	 * 
+	 * @return The version stored in {@code schema_version}, or 1 if there is
+	 *         none.
+	 */
+	private int getSchemaVersion() {
+		try (Statement statement = getConnection().createStatement()) {
+			ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version");
+			if (rs.next() && rs.getInt(1) > 0) {
+				return rs.getInt(1);
+			}
+		}
+		catch (SQLException exc) {
+			// the table only exists from version 2 on
+		}
+		return 1;
 	}
 
 	public boolean insertPuzzle(Board board) {
@@ -21,6 +103,11 @@ public class CoreDatabase extends BaseDatabase {
 			return false;
 		}
 
+		if (findPuzzle(board) >= 0) {
+			System.out.println("Skipping puzzle already in the database.");
+			return false;
+		}
+
 		int puzzleID = -1;
 		int hashCode = board.hashCode();
 		int puzzleLength = board.getPath().size();
@@ -42,7 +129,7 @@ public class CoreDatabase extends BaseDatabase {
 			System.out.println("Error executing insert puzzle: " + exc.getMessage());
 		}
 
-		for (Block b : board.getBlocks()) {
+		for (Block b : board.getCanonicalBlocks()) {
 
 			int blockID = b.getId();
 			int yCoord = b.getY();
@@ -66,4 +153,61 @@ public class CoreDatabase extends BaseDatabase {
 		return true;
 
 	}
+
+	/**
+	 * Find a stored puzzle with the same geometry as a board. Puzzles are
+	 * matched on the hash of their blocks, then compared block by block, so
+	 * boards that only number their blocks differently are the same puzzle.
+	 * 
+	 * @param board - the board to look up
+	 * @return The id of the stored puzzle, or -1 if there is none.
+	 */
+	public int findPuzzle(Board board) {
+		List<Integer> candidates = new ArrayList<Integer>();
+		String query = "SELECT id FROM puzzle WHERE hash_code = '" + board.hashCode() + "'";
+
+		try (Statement statement = getConnection().createStatement()) {
+			ResultSet rs = statement.executeQuery(query);
+			while (rs.next()) {
+				candidates.add(rs.getInt(1));
+			}
+		}
+		catch (SQLException exc) {
+			System.out.println("Error executing find puzzle: " + exc.getMessage());
+		}
+
+		for (int puzzleID : candidates) {
+			List<Block> blocks = getBlocks(puzzleID);
+			if (blocks != null && board.isEquivalent(new Board(blocks, new ArrayList<Board>()))) {
+				return puzzleID;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * Get the blocks of a stored puzzle.
+	 * 
+	 * @param puzzleID - the id of the puzzle
+	 * @return The blocks of the puzzle, or {@code null} if they could not be
+	 *         read.
+	 */
+	private List<Block> getBlocks(int puzzleID) {
+		List<Block> blocks = new ArrayList<Block>();
+		String blockQuery = "SELECT block_id, y_coord, x_coord, horizontal, tile_kind, length FROM puzzle_component WHERE puzzle_id = '" + puzzleID + "'";
+
+		try (Statement statement = getConnection().createStatement()) {
+			ResultSet rs = statement.executeQuery(blockQuery);
+			while (rs.next()) {
+				TileKind kind = rs.getInt(5) == 1 ? TileKind.PRISONER : TileKind.BLOCK;
+				blocks.add(new Block((byte) rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4) == 1, kind, rs.getInt(6)));
+			}
+		}
+		catch (SQLException exc) {
+			System.out.println("Error executing find puzzle component: " + exc.getMessage());
+			return null;
+		}
+		return blocks;
+	}
 }
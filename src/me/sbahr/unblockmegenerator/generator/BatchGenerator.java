@@ -0,0 +1,187 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardVisitor;
+import me.sbahr.unblockmegenerator.solver.CancellationToken;
+import me.sbahr.unblockmegenerator.solver.Solver;
+
+/**
+ * Generates many boards at the same time, one {@link Generator} per board.
+ * <p>
+ * Every board has an index in the batch, and its generator gets its own
+ * {@link SplittableRandom} seeded by {@link #getSeed(long, long)} from the
+ * master seed and that index. The board at each index only depends on the
+ * master seed, never on which thread or machine generates it or when, and can
+ * be generated again on its own. Nothing is
+ * shared between the tasks but the solver, which keeps no state between
+ * solves.
+ * </p>
+ */
+public class BatchGenerator {
+
+	/** The solver every generator uses */
+	private final Solver solver;
+	/** The executor that runs the generators */
+	private final ExecutorService executor;
+
+	/**
+	 * Construct a new batch generator.
+	 * 
+	 * @param solver - the solver every generator uses
+	 * @param executor - the executor that runs the generators
+	 */
+	public BatchGenerator(Solver solver, ExecutorService executor) {
+		this.solver = solver;
+		this.executor = executor;
+	}
+
+	/**
+	 * Get the seed of the generator of a board, mixing the master seed and
+	 * the index of the board with the SplitMix64 finalizer so neighbouring
+	 * indices get unrelated seeds.
+	 * 
+	 * @param seed - the master seed of the batch
+	 * @param index - the index of the board in the batch
+	 * @return The seed of the board.
+	 */
+	public static long getSeed(long seed, long index) {
+		long z = seed + (index + 1) * 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * Generates the board at an index of a batch, the same board the batch
+	 * generates at that index.
+	 * 
+	 * @param seed - the master seed of the batch
+	 * @param index - the index of the board in the batch
+	 * @param desiredLength - the minimum path length
+	 * @param desiredBlocks - the minimum amount of blocks
+	 * @param attempts - the number of repetitions of generating the board
+	 * @return The board at the index.
+	 */
+	public Board generate(long seed, long index, int desiredLength, int desiredBlocks, int attempts) {
+		return generate(seed, index, desiredLength, desiredBlocks, attempts, null);
+	}
+
+	/**
+	 * Generates the board at an index of a batch, stopping early once a token
+	 * is cancelled.
+	 * 
+	 * @param seed - the master seed of the batch
+	 * @param index - the index of the board in the batch
+	 * @param desiredLength - the minimum path length
+	 * @param desiredBlocks - the minimum amount of blocks
+	 * @param attempts - the number of repetitions of generating the board
+	 * @param token - the token that stops the generation, or {@code null}
+	 * @return The board at the index, or the board generated so far if the
+	 *         token was cancelled.
+	 */
+	private Board generate(long seed, long index, int desiredLength, int desiredBlocks, int attempts, CancellationToken token) {
+		Generator generator = new Generator(new SplittableRandom(getSeed(seed, index)), null, token);
+		return generator.generateRandomBoard(this.solver, desiredLength, desiredBlocks, attempts);
+	}
+
+	/**
+	 * Generates the boards at the first indices of a batch.
+	 * 
+	 * @param seed - the master seed of the batch
+	 * @param count - the amount of boards to generate
+	 * @param desiredLength - the minimum path length
+	 * @param desiredBlocks - the minimum amount of blocks
+	 * @param attempts - the number of repetitions of generating each board
+	 * @param visitor - visits each board in the order they are generated,
+	 *            from the calling thread, or {@code null}. Returning
+	 *            {@code false} stops the boards still being generated.
+	 * @return The generated boards, in the order of their index in the batch.
+	 * @throws InterruptedException if interrupted while waiting on a board.
+	 */
+	public List<Board> generate(long seed, int count, int desiredLength, int desiredBlocks, int attempts, BoardVisitor visitor) throws InterruptedException {
+		long[] indices = new long[count];
+		for (int i = 0; i < count; i++) {
+			indices[i] = i;
+		}
+		return generate(seed, indices, desiredLength, desiredBlocks, attempts, visitor);
+	}
+
+	/**
+	 * Generates boards with
+	 * {@link Generator#generateRandomBoard(Solver, int, int, int)}, handing
+	 * each to the visitor as soon as it is generated.
+	 * 
+	 * @param seed - the master seed of the batch
+	 * @param indices - the indices in the batch of the boards to generate
+	 * @param desiredLength - the minimum path length
+	 * @param desiredBlocks - the minimum amount of blocks
+	 * @param attempts - the number of repetitions of generating each board
+	 * @param visitor - visits each board in the order they are generated,
+	 *            from the calling thread, or {@code null}. Returning
+	 *            {@code false} stops the boards still being generated.
+	 * @return The generated boards, in the order of the indices.
+	 * @throws InterruptedException if interrupted while waiting on a board.
+	 */
+	public List<Board> generate(final long seed, final long[] indices, final int desiredLength, final int desiredBlocks, final int attempts, BoardVisitor visitor) throws InterruptedException {
+		int count = indices.length;
+		CompletionService<Integer> completion = new ExecutorCompletionService<Integer>(this.executor);
+		List<Future<Integer>> tasks = new ArrayList<Future<Integer>>(count);
+		final Board[] boards = new Board[count];
+		// the generators never look at the interrupt flag
+		final CancellationToken[] tokens = new CancellationToken[count];
+
+		for (int i = 0; i < count; i++) {
+			final int index = i;
+			tokens[i] = new CancellationToken();
+			tasks.add(completion.submit(new Callable<Integer>() {
+
+				@Override
+				public Integer call() {
+					boards[index] = generate(seed, indices[index], desiredLength, desiredBlocks, attempts, tokens[index]);
+					return index;
+				}
+			}));
+		}
+
+		try {
+			for (int i = 0; i < count; i++) {
+				int index;
+				try {
+					index = completion.take().get();
+				}
+				catch (ExecutionException exc) {
+					throw new IllegalStateException("Board generation failed", exc.getCause());
+				}
+
+				if (visitor != null && !visitor.visit(boards[index])) {
+					break;
+				}
+			}
+		}
+		finally {
+			// cancelled tasks are left out of the boards, even once they stop
+			for (int i = 0; i < count; i++) {
+				tasks.get(i).cancel(false);
+				tokens[i].cancel();
+			}
+		}
+
+		List<Board> generated = new ArrayList<Board>(count);
+		for (int i = 0; i < count; i++) {
+			if (tasks.get(i).isDone() && !tasks.get(i).isCancelled() && boards[i] != null) {
+				generated.add(boards[i]);
+			}
+		}
+		return generated;
+	}
+}
@@ -0,0 +1,431 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import me.sbahr.unblockmegenerator.component.Block;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.solver.DistanceMap;
+import me.sbahr.unblockmegenerator.solver.SolverMetrics;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+import me.sbahr.unblockmegenerator.util.StateTable;
+
+/**
+ * Enumerates every puzzle of the 6x6 board instead of growing random boards.
+ * <p>
+ * A layout is the choice of which blocks slide along each row and column. The
+ * prisoner always slides along row 2, which holds no other horizontal block.
+ * Every way of placing the blocks of a layout is split into its connected
+ * components, and the hardest state of each component is recorded as a
+ * puzzle.
+ * </p>
+ * <p>
+ * Layouts are numbered in a fixed order and handed to shards by their number,
+ * so shards are independent and can run on different threads or machines.
+ * Each shard appends its puzzles to its own file in the output directory,
+ * marking every finished layout, and continues after the last marked layout
+ * when it is run again. The file starts with the settings of the
+ * enumeration, and a shard refuses to continue a file of other settings.
+ * </p>
+ */
+public class Enumerator {
+
+	/** The row of the prisoner */
+	private static final int PRISONER_ROW = 2;
+	/** The lengths of the blocks that can share a line, in order */
+	private static final int[][] LINE_BLOCKS = { {}, { 2 }, { 3 }, { 2, 2 }, { 2, 3 }, { 3, 2 }, { 3, 3 }, { 2, 2, 2 } };
+	/** The amount of lines blocks can slide along besides the prisoner row */
+	private static final int LINES = BoardLayout.SIZE * 2 - 1;
+	/** Line that starts every shard file, followed by the settings */
+	private static final String HEADER = "# enumeration ";
+	/** Line written after the puzzles of each finished layout */
+	private static final String DONE = "# done ";
+	/** Line written for a layout with too many states to enumerate */
+	private static final String SKIPPED = "# skipped ";
+
+	/** The default minimum amount of moves of a recorded puzzle */
+	public static final int DEFAULT_MIN_MOVES = 1;
+	/** The default maximum amount of states of a layout */
+	public static final int DEFAULT_MAX_STATES = 1 << 22;
+
+	/** The directory the shard files are written to */
+	private final File directory;
+	/** The minimum amount of blocks, including the prisoner */
+	private final int minBlocks;
+	/** The maximum amount of blocks, including the prisoner */
+	private final int maxBlocks;
+	/** The minimum amount of moves of a recorded puzzle */
+	private final int minMoves;
+	/** The maximum amount of states of a layout, larger ones are skipped */
+	private final int maxStates;
+
+	/**
+	 * Construct a new enumerator.
+	 * 
+	 * @param directory - the directory the shard files are written to
+	 * @param minBlocks - the minimum amount of blocks, including the prisoner
+	 * @param maxBlocks - the maximum amount of blocks, including the prisoner
+	 */
+	public Enumerator(File directory, int minBlocks, int maxBlocks) {
+		this(directory, minBlocks, maxBlocks, DEFAULT_MIN_MOVES, DEFAULT_MAX_STATES);
+	}
+
+	/**
+	 * Construct a new enumerator.
+	 * 
+	 * @param directory - the directory the shard files are written to
+	 * @param minBlocks - the minimum amount of blocks, including the prisoner
+	 * @param maxBlocks - the maximum amount of blocks, including the prisoner
+	 * @param minMoves - the minimum amount of moves of a recorded puzzle
+	 * @param maxStates - the maximum amount of states of a layout, larger
+	 *            ones are skipped
+	 */
+	public Enumerator(File directory, int minBlocks, int maxBlocks, int minMoves, int maxStates) {
+		if (maxBlocks > BoardLayout.MAX_BLOCKS) {
+			throw new IllegalArgumentException("A board can hold at most " + BoardLayout.MAX_BLOCKS + " blocks, got " + maxBlocks);
+		}
+		this.directory = directory;
+		this.minBlocks = minBlocks;
+		this.maxBlocks = maxBlocks;
+		this.minMoves = minMoves;
+		this.maxStates = maxStates;
+	}
+
+	/**
+	 * Runs every shard, several at a time.
+	 * 
+	 * @param shardCount - the amount of shards to split the layouts into
+	 * @param threads - the amount of shards to run at the same time
+	 * @return The amount of puzzles recorded by this run.
+	 * @throws IOException if a shard file cannot be read or written.
+	 * @throws InterruptedException if interrupted while waiting on a shard.
+	 */
+	public long run(final int shardCount, int threads) throws IOException, InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<Long>> shards = new ArrayList<Future<Long>>();
+
+		try {
+			for (int i = 0; i < shardCount; i++) {
+				final int shard = i;
+				shards.add(executor.submit(new Callable<Long>() {
+
+					@Override
+					public Long call() throws IOException {
+						return runShard(shard, shardCount);
+					}
+				}));
+			}
+
+			long puzzles = 0;
+			for (Future<Long> shard : shards) {
+				try {
+					puzzles += shard.get();
+				}
+				catch (ExecutionException exc) {
+					if (exc.getCause() instanceof IOException) {
+						throw (IOException) exc.getCause();
+					}
+					throw new IllegalStateException("Shard failed", exc.getCause());
+				}
+			}
+			return puzzles;
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Runs one shard, continuing after the last layout its file marks as
+	 * finished.
+	 * 
+	 * @param shard - the index of the shard, below shardCount
+	 * @param shardCount - the amount of shards the layouts are split into
+	 * @return The amount of puzzles recorded by this run.
+	 * @throws IOException if the shard file cannot be read or written.
+	 * @throws IllegalStateException if the shard file was written with other
+	 *             settings.
+	 */
+	public long runShard(int shard, int shardCount) throws IOException {
+		File file = new File(this.directory, "shard-" + shard + "-of-" + shardCount + ".txt");
+		String header = getHeader(shardCount);
+		long resume = restore(file, header);
+
+		Writer out = new BufferedWriter(new FileWriter(file, true));
+		try {
+			if (file.length() == 0) {
+				out.write(header);
+				out.write('\n');
+			}
+			long[] puzzles = new long[1];
+			visit(0, new int[LINES], 1, 0, shard, shardCount, resume, out, puzzles);
+			return puzzles[0];
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Get the line describing the settings of this enumeration, which every
+	 * shard file starts with.
+	 * 
+	 * @param shardCount - the amount of shards the layouts are split into
+	 * @return The header of the shard files.
+	 */
+	private String getHeader(int shardCount) {
+		return HEADER + "minBlocks=" + this.minBlocks + " maxBlocks=" + this.maxBlocks + " minMoves=" + this.minMoves + " maxStates=" + this.maxStates + " shards=" + shardCount;
+	}
+
+	/**
+	 * Reads a shard file to find where the shard stopped, dropping anything
+	 * written after the last finished layout.
+	 * 
+	 * @param file - the shard file
+	 * @param header - the header the file must start with
+	 * @return The number of the last finished layout, or -1 if there is none.
+	 * @throws IOException if the file cannot be read or written.
+	 * @throws IllegalStateException if the file was written with other
+	 *             settings.
+	 */
+	private long restore(File file, String header) throws IOException {
+		if (!file.exists()) {
+			return -1;
+		}
+
+		List<String> kept = new ArrayList<String>();
+		long resume = -1;
+
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			List<String> pending = new ArrayList<String>();
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith(HEADER)) {
+					if (!line.equals(header)) {
+						throw new IllegalStateException(file + " was enumerated with other settings: " + line);
+					}
+					kept.add(line);
+					continue;
+				}
+				// the layout numbers only mean something with the settings
+				if (kept.isEmpty()) {
+					throw new IllegalStateException(file + " does not start with the settings of its enumeration");
+				}
+
+				pending.add(line);
+				if (line.startsWith(DONE)) {
+					resume = Long.parseLong(line.substring(DONE.length()).trim());
+					kept.addAll(pending);
+					pending.clear();
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		Writer out = new BufferedWriter(new FileWriter(file, false));
+		try {
+			for (String line : kept) {
+				out.write(line);
+				out.write('\n');
+			}
+		}
+		finally {
+			out.close();
+		}
+
+		return resume;
+	}
+
+	/**
+	 * Chooses the blocks of each line from the given one onward, processing
+	 * the layouts of this shard that are not finished yet.
+	 * 
+	 * @param line - the line to choose the blocks of
+	 * @param choices - the index into {@link #LINE_BLOCKS} of every line
+	 * @param blocks - the amount of blocks chosen so far
+	 * @param index - the number of the next layout
+	 * @param shard - the index of the shard
+	 * @param shardCount - the amount of shards
+	 * @param resume - the number of the last finished layout
+	 * @param out - the shard file
+	 * @param puzzles - the amount of puzzles recorded, as its only element
+	 * @return The number of the layout after the ones chosen.
+	 * @throws IOException if the shard file cannot be written.
+	 */
+	private long visit(int line, int[] choices, int blocks, long index, int shard, int shardCount, long resume, Writer out, long[] puzzles) throws IOException {
+		if (line == LINES) {
+			if (blocks < this.minBlocks) {
+				return index;
+			}
+			if (index % shardCount == shard && index > resume) {
+				puzzles[0] += process(index, choices, out);
+			}
+			return index + 1;
+		}
+
+		for (int choice = 0; choice < LINE_BLOCKS.length; choice++) {
+			int added = LINE_BLOCKS[choice].length;
+			if (blocks + added <= this.maxBlocks) {
+				choices[line] = choice;
+				index = visit(line + 1, choices, blocks + added, index, shard, shardCount, resume, out, puzzles);
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Splits every state of a layout into its components, recording the
+	 * hardest state of each.
+	 * 
+	 * @param index - the number of the layout
+	 * @param choices - the index into {@link #LINE_BLOCKS} of every line
+	 * @param out - the shard file
+	 * @return The amount of puzzles recorded.
+	 * @throws IOException if the shard file cannot be written.
+	 */
+	private int process(long index, int[] choices, Writer out) throws IOException {
+		List<Block> blocks = getBlocks(choices);
+		BoardLayout layout = new BoardLayout(blocks);
+
+		LongQueue states = new LongQueue();
+		if (!layout.getStates(states, this.maxStates)) {
+			out.write(SKIPPED + index + "\n");
+			out.write(DONE + index + "\n");
+			out.flush();
+			return 0;
+		}
+
+		StringBuilder results = new StringBuilder();
+		StateTable assigned = new StateTable();
+		int puzzles = 0;
+
+		while (!states.isEmpty()) {
+			long state = states.poll();
+			if (assigned.contains(state) || !isOrdered(layout, blocks, state)) {
+				continue;
+			}
+
+			DistanceMap distances = DistanceMap.build(layout, state);
+			for (int i = 0; i < distances.getSize(); i++) {
+				assigned.put(distances.getState(i), 0);
+			}
+
+			if (distances.getMaxMoves() >= this.minMoves) {
+				results.append(index).append('\t');
+				results.append(distances.getMaxMoves()).append('\t');
+				results.append(distances.getSize()).append('\t');
+				results.append(PuzzleUtils.serialize(layout.toBoard(distances.getFarthestState(), new ArrayList<Board>())));
+				results.append('\n');
+				puzzles++;
+			}
+		}
+
+		// the puzzles of a layout and its mark are written together
+		out.write(results.toString());
+		out.write(DONE + index + "\n");
+		out.flush();
+		return puzzles;
+	}
+
+	/**
+	 * Constructs the blocks of a layout. Blocks sharing a line are next to
+	 * each other in the list, in the order they are along the line.
+	 * 
+	 * @param choices - the index into {@link #LINE_BLOCKS} of every line
+	 * @return The blocks, the prisoner first.
+	 */
+	private List<Block> getBlocks(int[] choices) {
+		List<Block> blocks = new ArrayList<Block>();
+		blocks.add(new Block((byte) 1, PRISONER_ROW, 0, true, TileKind.PRISONER, 2));
+
+		// unique for block ids
+		int odd = 3;
+		int even = 2;
+
+		for (int line = 0; line < LINES; line++) {
+			boolean isHorz = line >= BoardLayout.SIZE;
+			int row = line - BoardLayout.SIZE;
+			if (row >= PRISONER_ROW) {
+				row++;
+			}
+
+			int pos = 0;
+			for (int length : LINE_BLOCKS[choices[line]]) {
+				if (isHorz) {
+					blocks.add(new Block((byte) odd, row, pos, true, TileKind.BLOCK, length));
+					odd += 2;
+				}
+				else {
+					blocks.add(new Block((byte) even, pos, line, false, TileKind.BLOCK, length));
+					even += 2;
+				}
+				pos += length;
+			}
+		}
+
+		return blocks;
+	}
+
+	/**
+	 * Are the blocks sharing a line in the order of the layout. Blocks can
+	 * never pass each other, so other orders belong to other layouts.
+	 * 
+	 * @param layout - the layout of the state
+	 * @param blocks - the blocks of the layout
+	 * @param state - the state
+	 * @return {@code true} if every line is in order. {@code false} otherwise.
+	 */
+	private boolean isOrdered(BoardLayout layout, List<Block> blocks, long state) {
+		for (int i = 1; i < blocks.size(); i++) {
+			Block previous = blocks.get(i - 1);
+			Block b = blocks.get(i);
+			boolean sameLine = previous.isHorizontal() == b.isHorizontal() && (b.isHorizontal() ? previous.getY() == b.getY() : previous.getX() == b.getX());
+			if (sameLine && layout.getPosition(state, i - 1) > layout.getPosition(state, i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the enumeration from the command line.
+	 * 
+	 * @param args - the output directory, the minimum and maximum amount of
+	 *            blocks, the amount of shards and optionally the amount of
+	 *            threads
+	 * @throws Exception if the enumeration fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		if (args.length < 4) {
+			System.out.println("Usage: Enumerator <directory> <minBlocks> <maxBlocks> <shards> [threads]");
+			return;
+		}
+
+		SolverMetrics.getDefault().register(SolverMetrics.DEFAULT_NAME);
+		File directory = new File(args[0]);
+		directory.mkdirs();
+		int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+		Enumerator enumerator = new Enumerator(directory, Integer.parseInt(args[1]), Integer.parseInt(args[2]));
+		long puzzles = enumerator.run(Integer.parseInt(args[3]), threads);
+		System.out.println("Recorded " + puzzles + " puzzles.");
+	}
+}
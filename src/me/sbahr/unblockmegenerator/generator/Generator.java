@@ -2,18 +2,79 @@ package me.sbahr.unblockmegenerator.generator;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
 
 import me.sbahr.unblockmegenerator.component.Block;
 import me.sbahr.unblockmegenerator.component.Board;
 import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.solver.CancellationToken;
+import me.sbahr.unblockmegenerator.solver.CandidateScorer;
+import me.sbahr.unblockmegenerator.solver.DistanceMap;
+import me.sbahr.unblockmegenerator.solver.IncrementalSolver;
+import me.sbahr.unblockmegenerator.solver.SolveBudget;
 import me.sbahr.unblockmegenerator.solver.Solver;
 
 public class Generator {
 
-	/** Random instance */
-	private static final Random RANDOM = new Random();
+	/** Largest component scored at once rather than solving each board */
+	private static final int MAX_COMPONENT_SIZE = 1 << 14;
+
+	/** Random instance, only ever used by the thread running this generator */
+	private final SplittableRandom random;
+	/** Pool scoring the candidates of a round, {@code null} to score in order */
+	private final ExecutorService executor;
+	/** The token that stops the generation, {@code null} if there is none */
+	private final CancellationToken token;
+
+	/**
+	 * Construct a new generator with a randomly seeded random instance.
+	 */
+	public Generator() {
+		this(new SplittableRandom());
+	}
+
+	/**
+	 * Construct a new generator. Generators given random instances with the
+	 * same seed generate the same boards. A generator must only be used by
+	 * one thread at a time, give each thread its own generator from
+	 * {@link SplittableRandom#split()}.
+	 * 
+	 * @param random - the source of every random choice of the generator
+	 */
+	public Generator(SplittableRandom random) {
+		this(random, null);
+	}
+
+	/**
+	 * Construct a new generator that scores the candidates of each round on
+	 * a pool. The candidates after one of the desired length stop being
+	 * solved, and the boards generated are the same as without a pool.
+	 * 
+	 * @param random - the source of every random choice of the generator
+	 * @param executor - the pool solving the candidates, shared by any amount
+	 *            of generators, or {@code null} to solve them in order
+	 */
+	public Generator(SplittableRandom random, ExecutorService executor) {
+		this(random, executor, null);
+	}
+
+	/**
+	 * Construct a new generator that can be stopped. Once the token is
+	 * cancelled, the running solves stop and the generation returns the board
+	 * it has so far.
+	 * 
+	 * @param random - the source of every random choice of the generator
+	 * @param executor - the pool solving the candidates, shared by any amount
+	 *            of generators, or {@code null} to solve them in order
+	 * @param token - the token that stops the generation, or {@code null}
+	 */
+	public Generator(SplittableRandom random, ExecutorService executor, CancellationToken token) {
+		this.random = random;
+		this.executor = executor;
+		this.token = token;
+	}
 
 	/**
 	 * Generates a random board based and returns it. This board will attempt to
@@ -34,26 +95,31 @@ public class Generator {
 		List<Board> path = new ArrayList<Board>();
 
 		// add the prisoner at a random position in the 2nd row
-		possibleBlocks.add(new Block((byte) 1, 2, RANDOM.nextInt(2), true, TileKind.PRISONER, 2));
+		possibleBlocks.add(new Block((byte) 1, 2, this.random.nextInt(2), true, TileKind.PRISONER, 2));
 
 		// construct the new board, currently just has a prisoner block on it.
 		Board board = new Board(possibleBlocks, path);
+		// placements are solved from the board they are placed on
+		IncrementalSolver incremental = new IncrementalSolver(solver);
 
 		// unique for block ids
 		int odd = 3;
 		int even = 2;
 		// the last solved path length
 		int pathLength = 0;
+		// the distances of the component of the board, once known
+		DistanceMap component = null;
 
 		// continue until we have the desired path length
-		while (pathLength < desiredLength && attempts-- > 0) {
+		while (pathLength < desiredLength && attempts-- > 0 && !isCancelled()) {
 
 			// if we should try to put blocks on the board
 			if (board.getBlocks().size() < desiredBlocks) {
 
+				incremental.setBase(board, component);
 				int tries = 50;
 				// keep trying to place the block on the board
-				while (tries-- > 0) {
+				while (tries-- > 0 && !isCancelled()) {
 					// Get a random block to place
 					Block rand = getRandomBlock(odd, even);
 
@@ -65,9 +131,9 @@ public class Generator {
 						// update the board
 						board.updateGameboard();
 
-						List<Board> solved = solver.solve(board, desiredLength + 1);
+						int solved = incremental.solveLength(board, desiredLength + 1, SolveBudget.UNLIMITED, this.token);
 						// this new 'arisen' board can still be solved.
-						if (solved != null && !solved.isEmpty() && solved.size() > pathLength) {
+						if (solved > 0 && solved > pathLength) {
 							// increment the index counters
 							if (rand.isHorizontal()) {
 								odd += 2;
@@ -88,13 +154,21 @@ public class Generator {
 				// set the winning board this round
 				Board winner = board;
 				int steps = pathLength;
+				// every board made from this board is in the same component
+				DistanceMap distances = solver.getDistanceMap(board, MAX_COMPONENT_SIZE);
+				component = distances;
+				List<Board> candidates = board.getBoardPermutation();
+				int[] scores = null;
+				if (distances == null) {
+					scores = new CandidateScorer(solver, this.executor, this.token).score(candidates, desiredLength + 1, desiredLength, Integer.MAX_VALUE);
+				}
 				// for each board that can be made from this board
-				for (Board b : board.getBoardPermutation()) {
+				for (int i = 0; i < candidates.size(); i++) {
+					Board b = candidates.get(i);
 					// solve the board
-					List<Board> solved = solver.solve(b, desiredLength + 1);
+					int solveLength = distances != null ? distances.getLength(b, desiredLength + 1) : scores[i];
 					// if solvable, find the one with greatest length
-					if (solved != null && !solved.isEmpty()) {
-						int solveLength = solved.size();
+					if (solveLength > 0) {
 						// System.out.println("Generating... [length: " +
 						// solveLength + "]");
 						// b.printBoard();
@@ -134,10 +208,12 @@ public class Generator {
 		List<Board> path = new ArrayList<Board>();
 
 		// add the prisoner at a random position in the 2nd row
-		possibleBlocks.add(new Block((byte) 1, 2, RANDOM.nextInt(2), true, TileKind.PRISONER, 2));
+		possibleBlocks.add(new Block((byte) 1, 2, this.random.nextInt(2), true, TileKind.PRISONER, 2));
 
 		// construct the new board, currently just has a prisoner block on it.
 		Board board = new Board(possibleBlocks, path);
+		// placements are solved from the board they are placed on
+		IncrementalSolver incremental = new IncrementalSolver(solver);
 
 		// unique for block ids
 		int odd = 3;
@@ -146,14 +222,15 @@ public class Generator {
 		int pathLength = 0;
 
 		// continue until we have the desired path length
-		while (pathLength < desiredLength && attempts-- > 0) {
+		while (pathLength < desiredLength && attempts-- > 0 && !isCancelled()) {
 
 			// if we should try to put blocks on the board
 			if (board.getBlocks().size() < desiredBlocks) {
 
+				incremental.setBase(board);
 				int tries = 50;
 				// keep trying to place the block on the board
-				while (tries-- > 0) {
+				while (tries-- > 0 && !isCancelled()) {
 					// Get a random block to place
 					Block rand = getRandomBlock(odd, even);
 
@@ -165,9 +242,9 @@ public class Generator {
 						// update the board
 						board.updateGameboard();
 
-						List<Board> solved = solver.solve(board, desiredLength + 1);
+						int solved = incremental.solveLength(board, desiredLength + 1, SolveBudget.UNLIMITED, this.token);
 						// this new 'arisen' board can still be solved.
-						if (solved != null && !solved.isEmpty() && solved.size() >= pathLength) {
+						if (solved > 0 && solved >= pathLength) {
 							// increment the index counters
 							if (rand.isHorizontal()) {
 								odd += 2;
@@ -180,7 +257,7 @@ public class Generator {
 							Board winner = board;
 							int steps = pathLength;
 
-							Set<Board> tree = board.traverse(solver, board, 2, desiredLength);
+							Set<Board> tree = board.traverse(new CandidateScorer(solver, this.executor, this.token), board, 2, desiredLength);
 							// System.out.println("Tree size: " + tree.size());
 
 							// for each board that can be made from this board
@@ -234,10 +311,12 @@ public class Generator {
 		List<Board> path = new ArrayList<Board>();
 
 		// add the prisoner at a random position in the 2nd row
-		possibleBlocks.add(new Block((byte) 1, 2, RANDOM.nextInt(2), true, TileKind.PRISONER, 2));
+		possibleBlocks.add(new Block((byte) 1, 2, this.random.nextInt(2), true, TileKind.PRISONER, 2));
 
 		// construct the new board, currently just has a prisoner block on it.
 		Board board = new Board(possibleBlocks, path);
+		// placements are solved from the board they are placed on
+		IncrementalSolver incremental = new IncrementalSolver(solver);
 
 		// unique for block ids
 		int odd = 3;
@@ -246,14 +325,15 @@ public class Generator {
 		int pathLength = 0;
 
 		// continue until we have the desired path length
-		while (pathLength < desiredLength && attempts-- > 0) {
+		while (pathLength < desiredLength && attempts-- > 0 && !isCancelled()) {
 
 			// if we should try to put blocks on the board
 			if (board.getBlocks().size() < desiredBlocks) {
 
+				incremental.setBase(board);
 				int tries = 50;
 				// keep trying to place the block on the board
-				while (tries-- > 0) {
+				while (tries-- > 0 && !isCancelled()) {
 					// Get a random block to place
 					Block rand = getRandomBlock(odd, even);
 
@@ -265,9 +345,9 @@ public class Generator {
 						// update the board
 						board.updateGameboard();
 
-						List<Board> solved = solver.solve(board, desiredLength + 1);
+						int solved = incremental.solveLength(board, desiredLength + 1, SolveBudget.UNLIMITED, this.token);
 						// this new 'arisen' board can still be solved.
-						if (solved != null && !solved.isEmpty() && solved.size() > pathLength) {
+						if (solved > 0 && solved > pathLength) {
 							// increment the index counters
 							if (rand.isHorizontal()) {
 								odd += 2;
@@ -280,7 +360,7 @@ public class Generator {
 							Board winner = board;
 							int steps = pathLength;
 
-							Set<Board> tree = board.traverse(solver, board, 3, desiredLength);
+							Set<Board> tree = board.traverse(new CandidateScorer(solver, this.executor, this.token), board, 3, desiredLength);
 							// System.out.println("Tree size: " + tree.size());
 
 							// for each board that can be made from this board
@@ -327,6 +407,16 @@ public class Generator {
 
 	}
 
+	/**
+	 * Has the generation been asked to stop.
+	 * 
+	 * @return {@code true} if the token of this generator was cancelled.
+	 *         {@code false} otherwise.
+	 */
+	private boolean isCancelled() {
+		return this.token != null && this.token.isCancelled();
+	}
+
 	/**
 	 * Get a random block.
 	 * 
@@ -335,10 +425,10 @@ public class Generator {
 	 * @return A pseudorandom generated block
 	 */
 	private Block getRandomBlock(int odd, int even) {
-		boolean isHorz = RANDOM.nextBoolean();
+		boolean isHorz = this.random.nextBoolean();
 		int id = isHorz ? odd : even;
-		int col = RANDOM.nextInt(6);
-		int row = RANDOM.nextInt(6);
+		int col = this.random.nextInt(6);
+		int row = this.random.nextInt(6);
 
 		// if horizontal, we can't have it on the prisoner row
 		if (isHorz && row == 2) {
@@ -387,7 +477,7 @@ public class Generator {
 	 * @return A random block size which is either 2 or 3.
 	 */
 	private int getRandomSize() {
-		if (RANDOM.nextInt(4) == 0)
+		if (this.random.nextInt(4) == 0)
 			return 3;
 		else
 			return 2;
@@ -0,0 +1,391 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.solver.MappedSolveCache;
+import me.sbahr.unblockmegenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.solver.SolverKind;
+import me.sbahr.unblockmegenerator.solver.SolverMetrics;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Generation job that splits a batch of boards over shards, so it can be
+ * spread over several machines.
+ * <p>
+ * A job is a master seed and the parameters of the generator. Board number i
+ * of the job belongs to shard i modulo the amount of shards, and is generated
+ * from its own seed derived from the master seed and i, see
+ * {@link BatchGenerator#getSeed(long, long)}. Shards never overlap, and any
+ * board can be generated again on its own from the job and its number.
+ * </p>
+ * <p>
+ * Each shard appends its boards to its own file in the output directory, one
+ * line per board with its number, seed, path length, the board
+ * {@link PuzzleUtils#serialize(Board) serialized} and its amount of blocks,
+ * which tells a complete line from one cut short. A shard that is run again
+ * skips the boards its file already holds. {@link #merge(File, File)} then
+ * combines the files of every shard, dropping boards that are the same
+ * puzzle as a board with a lower number.
+ * </p>
+ * <p>
+ * Shards share a {@link MappedSolveCache} in the output directory, so runs
+ * started again, or new jobs in the same directory, do not search the boards
+ * earlier runs solved.
+ * </p>
+ */
+public class ShardedGenerator {
+
+	/** Line that starts every shard file, followed by the job */
+	private static final String HEADER = "# job ";
+	/** The amount of boards generated between two writes per thread */
+	private static final int CHUNK_PER_THREAD = 4;
+	/** The max depth of the solve that measures each board */
+	private static final int MAX_DEPTH = 100;
+	/** The file of the output directory caching what is known of boards */
+	private static final String CACHE_FILE = "solve-cache.bin";
+	/** The amount of boards a new cache file has room for */
+	private static final int CACHE_SLOTS = 1 << 22;
+
+	/** The directory of the shard files */
+	private final File directory;
+	/** The master seed of the job */
+	private final long seed;
+	/** The amount of boards of the job */
+	private final long boards;
+	/** The minimum path length of each board */
+	private final int desiredLength;
+	/** The minimum amount of blocks of each board */
+	private final int desiredBlocks;
+	/** The number of repetitions of generating each board */
+	private final int attempts;
+	/** The solver of the generators */
+	private final Solver solver;
+
+	/**
+	 * Construct a new job.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param seed - the master seed of the job
+	 * @param boards - the amount of boards of the job
+	 * @param desiredLength - the minimum path length of each board
+	 * @param desiredBlocks - the minimum amount of blocks of each board
+	 * @param attempts - the number of repetitions of generating each board
+	 */
+	public ShardedGenerator(File directory, long seed, long boards, int desiredLength, int desiredBlocks, int attempts) {
+		this(directory, seed, boards, desiredLength, desiredBlocks, attempts, SolverKind.BFS);
+	}
+
+	/**
+	 * Construct a new job. Every kind of solver finds the same path lengths,
+	 * so a job generates the same boards whatever solver it runs.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param seed - the master seed of the job
+	 * @param boards - the amount of boards of the job
+	 * @param desiredLength - the minimum path length of each board
+	 * @param desiredBlocks - the minimum amount of blocks of each board
+	 * @param attempts - the number of repetitions of generating each board
+	 * @param kind - the kind of solver of the generators
+	 */
+	public ShardedGenerator(File directory, long seed, long boards, int desiredLength, int desiredBlocks, int attempts, SolverKind kind) {
+		this.solver = kind.newSolver();
+		this.directory = directory;
+		this.seed = seed;
+		this.boards = boards;
+		this.desiredLength = desiredLength;
+		this.desiredBlocks = desiredBlocks;
+		this.attempts = attempts;
+	}
+
+	/**
+	 * Generates the boards of one shard that its file does not hold yet.
+	 * 
+	 * @param shard - the index of the shard, below shardCount
+	 * @param shardCount - the amount of shards the boards are split into
+	 * @param threads - the amount of boards to generate at the same time
+	 * @return The amount of boards generated by this run.
+	 * @throws IOException if the shard file cannot be read or written.
+	 * @throws InterruptedException if interrupted while generating.
+	 */
+	public int runShard(int shard, int shardCount, int threads) throws IOException, InterruptedException {
+		if (shard < 0 || shard >= shardCount) {
+			throw new IllegalArgumentException("Shard " + shard + " is not one of " + shardCount + " shards");
+		}
+
+		File file = new File(this.directory, "shard-" + shard + "-of-" + shardCount + ".txt");
+		Set<Long> done = restore(file);
+
+		List<Long> pending = new ArrayList<Long>();
+		for (long index = shard; index < this.boards; index += shardCount) {
+			if (!done.contains(index)) {
+				pending.add(index);
+			}
+		}
+
+		// boards solved by earlier runs of any shard are not searched again
+		MappedSolveCache cache = new MappedSolveCache(new File(this.directory, CACHE_FILE), CACHE_SLOTS);
+		this.solver.setCache(cache);
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Writer out = new BufferedWriter(new FileWriter(file, true));
+		try {
+			if (file.length() == 0) {
+				out.write(getHeader());
+				out.write('\n');
+			}
+
+			BatchGenerator generator = new BatchGenerator(this.solver, executor);
+			int chunk = threads * CHUNK_PER_THREAD;
+			for (int from = 0; from < pending.size(); from += chunk) {
+				long[] indices = new long[Math.min(chunk, pending.size() - from)];
+				for (int i = 0; i < indices.length; i++) {
+					indices[i] = pending.get(from + i);
+				}
+
+				List<Board> generated = generator.generate(this.seed, indices, this.desiredLength, this.desiredBlocks, this.attempts, null);
+				for (int i = 0; i < indices.length; i++) {
+					Board board = generated.get(i);
+					int length = this.solver.solveLength(board, MAX_DEPTH);
+					out.write(indices[i] + "\t" + BatchGenerator.getSeed(this.seed, indices[i]) + "\t" + length + "\t" + PuzzleUtils.serialize(board) + "\t" + board.getBlocks().size() + "\n");
+				}
+				// a crash only loses the chunk being generated
+				out.flush();
+			}
+			return pending.size();
+		}
+		finally {
+			out.close();
+			executor.shutdownNow();
+			this.solver.setCache(null);
+			cache.close();
+		}
+	}
+
+	/**
+	 * Generates one board of this job again.
+	 * 
+	 * @param index - the number of the board in the job
+	 * @return The same board the shard of the number generates.
+	 */
+	public Board regenerate(long index) {
+		return new BatchGenerator(this.solver, null).generate(this.seed, index, this.desiredLength, this.desiredBlocks, this.attempts);
+	}
+
+	/**
+	 * Get the line describing this job, which every shard file starts with.
+	 * 
+	 * @return The header of the shard files of this job.
+	 */
+	private String getHeader() {
+		return HEADER + "seed=" + this.seed + " boards=" + this.boards + " length=" + this.desiredLength + " blocks=" + this.desiredBlocks + " attempts=" + this.attempts;
+	}
+
+	/**
+	 * Reads a shard file to find the boards it holds, dropping any line that
+	 * was not written completely.
+	 * 
+	 * @param file - the shard file
+	 * @return The numbers of the boards in the file.
+	 * @throws IOException if the file cannot be read or written.
+	 * @throws IllegalStateException if the file belongs to another job.
+	 */
+	private Set<Long> restore(File file) throws IOException {
+		Set<Long> done = new HashSet<Long>();
+		if (!file.exists()) {
+			return done;
+		}
+
+		List<String> kept = new ArrayList<String>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.startsWith(HEADER)) {
+					if (!line.equals(getHeader())) {
+						throw new IllegalStateException(file + " belongs to another job: " + line);
+					}
+					kept.add(line);
+					continue;
+				}
+
+				// a line cut short by a crash, its board is generated again
+				long index = getIndex(line);
+				if (index >= 0) {
+					done.add(index);
+					kept.add(line);
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+
+		Writer out = new BufferedWriter(new FileWriter(file, false));
+		try {
+			for (String line : kept) {
+				out.write(line);
+				out.write('\n');
+			}
+		}
+		finally {
+			out.close();
+		}
+
+		return done;
+	}
+
+	/**
+	 * Get the number of the board of a line of a shard file.
+	 * 
+	 * @param line - the line
+	 * @return The number of the board, or {@code -1} if the line is not a
+	 *         complete board, such as a line cut short by a crash.
+	 */
+	private static long getIndex(String line) {
+		String[] fields = line.split("\t");
+		if (fields.length != 5) {
+			return -1;
+		}
+
+		try {
+			long index = Long.parseLong(fields[0]);
+			Long.parseLong(fields[1]);
+			Integer.parseInt(fields[2]);
+			// the block count comes last, so a line cut anywhere fails it
+			int blocks = Integer.parseInt(fields[4]);
+			return index >= 0 && PuzzleUtils.deserialize(fields[3]).getBlocks().size() == blocks ? index : -1;
+		}
+		catch (IllegalArgumentException exc) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Combines the files of every shard of a job into one file, ordered by
+	 * the number of each board. A board that is the same puzzle as a board
+	 * with a lower number, whatever the ids of their blocks, is dropped, as
+	 * are lines of shards that crashed while writing them.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param output - the file to write
+	 * @return The amount of boards written.
+	 * @throws IOException if a file cannot be read or written.
+	 * @throws IllegalStateException if the shard files belong to different
+	 *             jobs.
+	 */
+	public static int merge(File directory, File output) throws IOException {
+		String header = null;
+		TreeMap<Long, String> lines = new TreeMap<Long, String>();
+
+		File[] files = directory.listFiles();
+		if (files == null) {
+			throw new IOException("Cannot list " + directory);
+		}
+		for (File file : files) {
+			if (!file.getName().startsWith("shard-")) {
+				continue;
+			}
+
+			BufferedReader in = new BufferedReader(new FileReader(file));
+			try {
+				String line;
+				while ((line = in.readLine()) != null) {
+					if (line.startsWith(HEADER)) {
+						if (header != null && !header.equals(line)) {
+							throw new IllegalStateException(file + " belongs to another job: " + line);
+						}
+						header = line;
+					}
+					else if (getIndex(line) >= 0) {
+						lines.put(getIndex(line), line);
+					}
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+
+		Set<String> puzzles = new HashSet<String>();
+		int written = 0;
+		Writer out = new BufferedWriter(new FileWriter(output, false));
+		try {
+			if (header != null) {
+				out.write(header);
+				out.write('\n');
+			}
+			for (String line : lines.values()) {
+				Board board = PuzzleUtils.deserialize(line.split("\t")[3]);
+				Board canonical = new Board(board.getCanonicalBlocks(), new ArrayList<Board>());
+				if (puzzles.add(PuzzleUtils.serialize(canonical))) {
+					out.write(line);
+					out.write('\n');
+					written++;
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+		return written;
+	}
+
+	/**
+	 * Runs a job from the command line.
+	 * 
+	 * @param args - {@code generate} followed by the output directory, the
+	 *            master seed, the amount of boards, the minimum path length,
+	 *            the minimum amount of blocks, the attempts, the shard, the
+	 *            amount of shards, optionally the amount of threads and
+	 *            optionally the solver. {@code merge} followed by the output
+	 *            directory and the merged file. {@code regenerate} followed by
+	 *            the master seed, the minimum path length, the minimum amount
+	 *            of blocks, the attempts, the number of the board and
+	 *            optionally the solver.
+	 * @throws Exception if the job fails.
+	 */
+	public static void main(String[] args) throws Exception {
+		SolverMetrics.getDefault().register(SolverMetrics.DEFAULT_NAME);
+		if (args.length >= 9 && args.length <= 11 && args[0].equals("generate")) {
+			File directory = new File(args[1]);
+			directory.mkdirs();
+			int threads = args.length > 9 ? Integer.parseInt(args[9]) : Runtime.getRuntime().availableProcessors();
+			SolverKind kind = args.length > 10 ? SolverKind.forName(args[10]) : SolverKind.BFS;
+
+			ShardedGenerator job = new ShardedGenerator(directory, Long.parseLong(args[2]), Long.parseLong(args[3]), Integer.parseInt(args[4]), Integer.parseInt(args[5]), Integer.parseInt(args[6]), kind);
+			int generated = job.runShard(Integer.parseInt(args[7]), Integer.parseInt(args[8]), threads);
+			System.out.println("Generated " + generated + " boards.");
+		}
+		else if (args.length == 3 && args[0].equals("merge")) {
+			int merged = merge(new File(args[1]), new File(args[2]));
+			System.out.println("Merged " + merged + " boards.");
+		}
+		else if ((args.length == 6 || args.length == 7) && args[0].equals("regenerate")) {
+			SolverKind kind = args.length > 6 ? SolverKind.forName(args[6]) : SolverKind.BFS;
+			ShardedGenerator job = new ShardedGenerator(null, Long.parseLong(args[1]), Long.MAX_VALUE, Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]), kind);
+			Board board = job.regenerate(Long.parseLong(args[5]));
+			System.out.println(PuzzleUtils.serialize(board));
+			board.printBoard();
+		}
+		else {
+			System.out.println("Usage: ShardedGenerator generate <directory> <seed> <boards> <length> <blocks> <attempts> <shard> <shards> [threads] [solver]");
+			System.out.println("       ShardedGenerator merge <directory> <output>");
+			System.out.println("       ShardedGenerator regenerate <seed> <length> <blocks> <attempts> <board> [solver]");
+			System.out.println("Solvers: " + SolverKind.getNames());
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.Arrays;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+import me.sbahr.unblockmegenerator.util.StateTable;
+
+/**
+ * Solver that expands the states closest to a solution first, by the moves
+ * taken so far plus the {@link BlockerHeuristic} estimate of the moves left.
+ * As the estimate never overestimates, the solution found is as short as the
+ * one of {@link Solver}, while far fewer states are expanded.
+ */
+public class AStarSolver extends Solver {
+
+	@Override
+	protected int search(SearchContext context) {
+		return search(context, new BlockerHeuristic(context.getLayout()));
+	}
+
+	/**
+	 * Searches from a state to the closest winning state, expanding the
+	 * states with the fewest estimated total moves first.
+	 * 
+	 * @param context - the start of the search and its limits, where the
+	 *            states from the start to the winning state are stored
+	 * @param heuristic - the estimate of the moves left from each state,
+	 *            states estimated {@link #UNSOLVABLE} are never queued
+	 * @return The path length of the winning state, {@link #UNSOLVABLE},
+	 *         {@link #DEPTH_EXCEEDED}, or the interruption of the context.
+	 */
+	static int search(SearchContext context, Heuristic heuristic) {
+		BoardLayout layout = context.getLayout();
+		long start = context.getStart();
+		int depth = context.getDepth();
+		int maxDepth = context.getMaxDepth();
+		long[] next = new long[layout.getMaxSuccessors()];
+		int maxMoves = maxDepth - depth;
+
+		/**
+		 * The fewest moves found to each state, and the state it arises from
+		 * along those moves.
+		 */
+		StateTable moves = new StateTable();
+		StateTable parents = new StateTable();
+		moves.put(start, 0);
+		parents.put(start, BoardLayout.NO_STATE);
+
+		/**
+		 * States are queued by their estimated total moves, each entry being
+		 * the state followed by the moves taken to it.
+		 */
+		int estimate = heuristic.estimate(start);
+		if (estimate == UNSOLVABLE) {
+			return UNSOLVABLE;
+		}
+		if (estimate > maxMoves) {
+			return DEPTH_EXCEEDED;
+		}
+		LongQueue[] buckets = push(new LongQueue[estimate + 1], estimate, start, 0);
+		// the amount of states waiting in the buckets
+		int queued = 1;
+
+		// if states were left unexplored because of the max depth
+		boolean exceeded = false;
+
+		for (int f = estimate; f < buckets.length; f++) {
+			LongQueue bucket = buckets[f];
+			if (f > estimate) {
+				context.layer(queued);
+			}
+
+			while (bucket != null && !bucket.isEmpty()) {
+				long state = bucket.poll();
+				int g = (int) bucket.poll();
+				queued--;
+
+				// a shorter way to this state was found after it was queued
+				if (moves.get(state, Long.MAX_VALUE) < g) {
+					continue;
+				}
+
+				// If board can win
+				if (layout.isWinner(state)) {
+					context.setPath(getPath(parents, state));
+					return depth + g;
+				}
+				if (!context.expand(1, moves.size())) {
+					return context.getInterruption();
+				}
+
+				int count = layout.getNextStates(state, next);
+				int duplicates = 0;
+				for (int i = 0; i < count; i++) {
+					if (moves.get(next[i], Long.MAX_VALUE) <= g + 1) {
+						duplicates++;
+						continue;
+					}
+
+					int left = heuristic.estimate(next[i]);
+					if (left == UNSOLVABLE) {
+						continue;
+					}
+
+					int total = g + 1 + left;
+					if (total > maxMoves) {
+						exceeded = true;
+						continue;
+					}
+
+					moves.put(next[i], g + 1);
+					parents.put(next[i], state);
+					// never expand a state before the one it arises from
+					buckets = push(buckets, Math.max(total, f), next[i], g + 1);
+					bucket = buckets[f];
+					queued++;
+				}
+				context.generate(count, duplicates);
+			}
+		}
+
+		return exceeded ? DEPTH_EXCEEDED : UNSOLVABLE;
+	}
+
+	/**
+	 * Queues a state into the bucket of its estimated total moves.
+	 * 
+	 * @param buckets - the buckets
+	 * @param total - the estimated total moves of the state
+	 * @param state - the state
+	 * @param moves - the moves taken to the state
+	 * @return The buckets, grown if needed.
+	 */
+	private static LongQueue[] push(LongQueue[] buckets, int total, long state, int moves) {
+		if (total >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, Math.max(buckets.length * 2, total + 1));
+		}
+		if (buckets[total] == null) {
+			buckets[total] = new LongQueue();
+		}
+		buckets[total].add(state);
+		buckets[total].add(moves);
+		return buckets;
+	}
+}
@@ -0,0 +1,174 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+import me.sbahr.unblockmegenerator.util.StateTable;
+
+/**
+ * Solver that searches forward from the board and backward from every winning
+ * state at the same time, one depth at a time, until the two searches meet.
+ * Each side only has to reach about half of the solution length, which
+ * explores far fewer states than a forward search on long puzzles.
+ * <p>
+ * The winning states are enumerated up front. Boards with few blocks have a
+ * very large amount of them, in which case this falls back to the forward
+ * search of {@link Solver}.
+ * </p>
+ */
+public class BidirectionalSolver extends Solver {
+
+	/** The default maximum amount of winning states to search back from */
+	public static final int DEFAULT_MAX_WINNERS = 200000;
+
+	/** The maximum amount of winning states to search back from */
+	private final int maxWinners;
+
+	/**
+	 * Construct a new bidirectional solver.
+	 */
+	public BidirectionalSolver() {
+		this(DEFAULT_MAX_WINNERS);
+	}
+
+	/**
+	 * Construct a new bidirectional solver.
+	 * 
+	 * @param maxWinners - the maximum amount of winning states to search back
+	 *            from, above which the forward search is used instead
+	 */
+	public BidirectionalSolver(int maxWinners) {
+		this.maxWinners = maxWinners;
+	}
+
+	@Override
+	protected int search(SearchContext context) {
+		BoardLayout layout = context.getLayout();
+		long start = context.getStart();
+		int depth = context.getDepth();
+		int maxDepth = context.getMaxDepth();
+
+		// If board can win
+		if (layout.isWinner(start)) {
+			context.setPath(new long[] { start });
+			return depth;
+		}
+
+		/**
+		 * Every winning state is where the backward search begins, too many of
+		 * them and the forward search is cheaper.
+		 */
+		LongQueue backwardQueue = new LongQueue();
+		if (!layout.getWinningStates(backwardQueue, this.maxWinners)) {
+			return super.search(context);
+		}
+
+		/**
+		 * Forward states point at the state they arise from, backward states
+		 * point at the state they move to on the way to a winner.
+		 */
+		StateTable forward = new StateTable();
+		forward.put(start, BoardLayout.NO_STATE);
+		StateTable backward = new StateTable(backwardQueue.size());
+		for (int i = backwardQueue.size(); i > 0; i--) {
+			long winner = backwardQueue.poll();
+			backward.put(winner, BoardLayout.NO_STATE);
+			backwardQueue.add(winner);
+		}
+
+		LongQueue forwardQueue = new LongQueue();
+		forwardQueue.add(start);
+
+		long[] next = new long[Math.max(layout.getMaxSuccessors(), layout.getMaxPredecessors())];
+		// the moves explored by each side
+		int forwardDepth = 0;
+		int backwardDepth = 0;
+		// the shortest meeting found, and where
+		int best = Integer.MAX_VALUE;
+		long meeting = BoardLayout.NO_STATE;
+
+		while (!forwardQueue.isEmpty() && !backwardQueue.isEmpty()) {
+
+			// no path is shorter than both depths, as the searches haven't met
+			if (depth + forwardDepth + backwardDepth >= maxDepth) {
+				return DEPTH_EXCEEDED;
+			}
+
+			// expand the smaller side by a whole depth
+			boolean forwards = forwardQueue.size() <= backwardQueue.size();
+			LongQueue queue = forwards ? forwardQueue : backwardQueue;
+			StateTable seen = forwards ? forward : backward;
+			StateTable other = forwards ? backward : forward;
+			int moves = forwards ? ++forwardDepth : ++backwardDepth;
+
+			for (int remaining = queue.size(); remaining > 0; remaining--) {
+				long state = queue.poll();
+				if (!context.expand(1, forward.size() + backward.size())) {
+					return context.getInterruption();
+				}
+
+				int count = forwards ? layout.getNextStates(state, next) : layout.getPreviousStates(state, next);
+				int duplicates = 0;
+				for (int i = 0; i < count; i++) {
+					if (!seen.putIfAbsent(next[i], state)) {
+						duplicates++;
+						continue;
+					}
+					queue.add(next[i]);
+
+					// the searches meet, keep the shortest path through here
+					if (other.contains(next[i])) {
+						int length = moves + getDistance(other, next[i]);
+						if (length < best) {
+							best = length;
+							meeting = next[i];
+						}
+					}
+				}
+				context.generate(count, duplicates);
+			}
+			context.layer(forwardQueue.size() + backwardQueue.size());
+
+			if (meeting != BoardLayout.NO_STATE) {
+				context.setPath(join(getPath(forward, meeting), backward, meeting));
+				return depth + best;
+			}
+		}
+
+		return UNSOLVABLE;
+	}
+
+	/**
+	 * Get the amount of moves between a state and the end of its chain.
+	 * 
+	 * @param links - the state each state points at
+	 * @param state - the state to start from
+	 * @return The amount of links followed until {@link BoardLayout#NO_STATE}.
+	 */
+	private int getDistance(StateTable links, long state) {
+		int distance = 0;
+		for (long s = links.get(state, BoardLayout.NO_STATE); s != BoardLayout.NO_STATE; s = links.get(s, BoardLayout.NO_STATE)) {
+			distance++;
+		}
+		return distance;
+	}
+
+	/**
+	 * Joins the forward path up to the meeting state with the backward path
+	 * from it to a winner.
+	 * 
+	 * @param head - the states from the start up to the meeting state
+	 * @param backward - the state each backward state moves to
+	 * @param meeting - the meeting state
+	 * @return The states from the start to a winner.
+	 */
+	private long[] join(long[] head, StateTable backward, long meeting) {
+		long[] states = new long[head.length + getDistance(backward, meeting)];
+		System.arraycopy(head, 0, states, 0, head.length);
+
+		int i = head.length;
+		for (long s = backward.get(meeting, BoardLayout.NO_STATE); s != BoardLayout.NO_STATE; s = backward.get(s, BoardLayout.NO_STATE)) {
+			states[i++] = s;
+		}
+		return states;
+	}
+}
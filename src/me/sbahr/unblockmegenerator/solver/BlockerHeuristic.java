@@ -0,0 +1,138 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+
+/**
+ * Estimates the amount of moves left to solve a state without ever
+ * overestimating it, so searches guided by it still find the shortest
+ * solution.
+ * <p>
+ * Every block between the prisoner and the exit has to move at least once.
+ * On top of that, a blocker that can only leave the prisoner's row in one
+ * direction needs every block in the way on that side to move first. A
+ * blocker that could go either way but is blocked on both sides needs at
+ * least one more block to move, which is counted when those blocks are not
+ * already counted for anything else.
+ * </p>
+ */
+public class BlockerHeuristic implements Heuristic {
+
+	/** The layout of the states */
+	private final BoardLayout layout;
+	/** Index of the prisoner block */
+	private final int prisoner;
+	/** Every cell of the prisoner's row */
+	private final long line;
+
+	/**
+	 * Construct a new heuristic for the states of a layout.
+	 * 
+	 * @param layout - the layout of the states
+	 */
+	public BlockerHeuristic(BoardLayout layout) {
+		this.layout = layout;
+		this.prisoner = layout.getPrisoner();
+
+		long line = 0;
+		for (int pos = 0; pos < layout.getPositions(this.prisoner); pos++) {
+			line |= layout.getMask(this.prisoner, pos);
+		}
+		this.line = line;
+	}
+
+	@Override
+	public int estimate(long state) {
+		long exit = this.layout.getExit(state);
+
+		// blocks that are between the prisoner and the exit
+		int blockers = 0;
+		for (int i = 0; i < this.layout.getSize(); i++) {
+			if (i != this.prisoner && (getMask(state, i) & exit) != 0) {
+				blockers |= 1 << i;
+			}
+		}
+		if (blockers == 0) {
+			return 0;
+		}
+
+		// blocks in the way of a blocker that can only go one way
+		int counted = blockers;
+		for (int i = 0; i < this.layout.getSize(); i++) {
+			if ((blockers & (1 << i)) != 0) {
+				int up = getBlocksInWay(state, i, -1);
+				int down = getBlocksInWay(state, i, 1);
+				if (up < 0 && down >= 0) {
+					counted |= down;
+				}
+				else if (down < 0 && up >= 0) {
+					counted |= up;
+				}
+			}
+		}
+
+		// blockers stuck both ways, each needing a block nothing else needs
+		int extra = 0;
+		int claimed = counted;
+		for (int i = 0; i < this.layout.getSize(); i++) {
+			if ((blockers & (1 << i)) != 0) {
+				int up = getBlocksInWay(state, i, -1);
+				int down = getBlocksInWay(state, i, 1);
+				if (up > 0 && down > 0 && ((up | down) & claimed) == 0) {
+					claimed |= up | down;
+					extra++;
+				}
+			}
+		}
+
+		return Integer.bitCount(counted) + extra;
+	}
+
+	/**
+	 * Finds the blocks that have to move before a blocker can leave the
+	 * prisoner's row in one direction.
+	 * 
+	 * @param state - the state
+	 * @param index - the index of the blocker
+	 * @param direction - -1 to move left (up), 1 to move right (down)
+	 * @return The blocks in the way, one bit per block index. -1 if the
+	 *         blocker can never leave the row that way.
+	 */
+	private int getBlocksInWay(long state, int index, int direction) {
+		int pos = this.layout.getPosition(state, index);
+
+		// the cells the blocker passes over until it is out of the row
+		long cells = 0;
+		int target = pos + direction;
+		while (true) {
+			if (target < 0 || target >= this.layout.getPositions(index)) {
+				return -1;
+			}
+			long mask = this.layout.getMask(index, target);
+			cells |= mask;
+			if ((mask & this.line) == 0) {
+				break;
+			}
+			target += direction;
+		}
+		cells &= ~getMask(state, index);
+
+		int blocks = 0;
+		for (int i = 0; i < this.layout.getSize(); i++) {
+			if (i != index && (getMask(state, i) & cells) != 0) {
+				blocks |= 1 << i;
+			}
+		}
+		return blocks;
+	}
+
+	/**
+	 * Get the cells a block covers in a state.
+	 * 
+	 * @param state - the state
+	 * @param index - the index of the block
+	 * @return The occupancy mask of the block.
+	 */
+	private long getMask(long state, int index) {
+		return this.layout.getMask(index, this.layout.getPosition(state, index));
+	}
+}
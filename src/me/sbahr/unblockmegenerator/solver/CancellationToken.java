@@ -0,0 +1,48 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * Flag that asks running solves to stop. Solves check it as they expand
+ * states and stop with {@link Solver#CANCELLED} once it is set, so a solve can
+ * be stopped from any thread without interrupting the thread running it.
+ */
+public class CancellationToken {
+
+	/** The token that cancels this token too, {@code null} if there is none */
+	private final CancellationToken parent;
+	/** If the solves using this token should stop */
+	private volatile boolean cancelled;
+
+	/**
+	 * Construct a new token that is not cancelled.
+	 */
+	public CancellationToken() {
+		this(null);
+	}
+
+	/**
+	 * Construct a new token that is also cancelled by another token, so one
+	 * part of a larger task can be stopped on its own or along with the rest.
+	 * 
+	 * @param parent - the token that cancels this token too, or {@code null}
+	 */
+	public CancellationToken(CancellationToken parent) {
+		this.parent = parent;
+	}
+
+	/**
+	 * Asks every solve using this token to stop. A token cannot be reset.
+	 */
+	public void cancel() {
+		this.cancelled = true;
+	}
+
+	/**
+	 * Has this token been cancelled.
+	 * 
+	 * @return {@code true} if this token or its parent was cancelled.
+	 *         {@code false} otherwise.
+	 */
+	public boolean isCancelled() {
+		return this.cancelled || (this.parent != null && this.parent.isCancelled());
+	}
+}
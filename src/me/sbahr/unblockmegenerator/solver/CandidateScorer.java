@@ -0,0 +1,192 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import me.sbahr.unblockmegenerator.component.Board;
+
+/**
+ * Solves a list of candidate boards to score them, stopping at the first
+ * candidate whose solution has a wanted length.
+ * <p>
+ * Candidates can be solved one after another, or all at once on an executor.
+ * On an executor, a candidate reaching a wanted length cancels the solves of
+ * every candidate after it, but the candidates before it are still solved, so
+ * the scores are exactly those of solving the candidates in order.
+ * </p>
+ */
+public class CandidateScorer {
+
+	/** Score of a candidate that was never solved */
+	public static final int NOT_SCORED = 0;
+
+	/** The solver of the candidates */
+	private final Solver solver;
+	/** The executor solving the candidates, {@code null} to solve in order */
+	private final ExecutorService executor;
+	/** The token that cancels every solve, {@code null} if there is none */
+	private final CancellationToken token;
+
+	/**
+	 * Construct a new scorer.
+	 * 
+	 * @param solver - the solver of the candidates
+	 * @param executor - the executor solving the candidates at the same time,
+	 *            or {@code null} to solve them in order on the calling thread
+	 */
+	public CandidateScorer(Solver solver, ExecutorService executor) {
+		this(solver, executor, null);
+	}
+
+	/**
+	 * Construct a new scorer whose solves can be cancelled.
+	 * 
+	 * @param solver - the solver of the candidates
+	 * @param executor - the executor solving the candidates at the same time,
+	 *            or {@code null} to solve them in order on the calling thread
+	 * @param token - the token that cancels every solve, or {@code null}
+	 */
+	public CandidateScorer(Solver solver, ExecutorService executor, CancellationToken token) {
+		this.solver = solver;
+		this.executor = executor;
+		this.token = token;
+	}
+
+	/**
+	 * Get the solver of the candidates.
+	 * 
+	 * @return The solver.
+	 */
+	public Solver getSolver() {
+		return this.solver;
+	}
+
+	/**
+	 * Solves candidates until one of them has a length within a range.
+	 * 
+	 * @param candidates - the boards to solve, in order of preference
+	 * @param maxDepth - the max depth of every solve
+	 * @param low - the lowest wanted length
+	 * @param high - the highest wanted length
+	 * @return The {@link Solver#solveLength(Board, int)} of each candidate, up
+	 *         to and including the first with a wanted length. Candidates after
+	 *         it are {@link #NOT_SCORED}.
+	 */
+	public int[] score(List<Board> candidates, int maxDepth, int low, int high) {
+		int[] scores = new int[candidates.size()];
+
+		if (this.executor == null || candidates.size() < 2) {
+			for (int i = 0; i < scores.length; i++) {
+				scores[i] = this.solver.solveLength(candidates.get(i), maxDepth, SolveBudget.UNLIMITED, this.token);
+				if (scores[i] >= low && scores[i] <= high) {
+					break;
+				}
+			}
+			return scores;
+		}
+
+		AtomicInteger first = new AtomicInteger(scores.length);
+		CancellationToken[] tokens = new CancellationToken[scores.length];
+		List<Future<Integer>> solves = new ArrayList<Future<Integer>>(scores.length);
+		// a solve that finishes early cancels the ones after it, submitted or not
+		for (int i = 0; i < scores.length; i++) {
+			tokens[i] = new CancellationToken(this.token);
+		}
+		for (int i = 0; i < scores.length; i++) {
+			solves.add(this.executor.submit(new Solve(candidates.get(i), maxDepth, low, high, i, first, tokens)));
+		}
+
+		boolean interrupted = false;
+		for (int i = 0; i < scores.length; i++) {
+			try {
+				scores[i] = solves.get(i).get();
+			}
+			catch (InterruptedException exc) {
+				// stop every solve, but keep the scores consistent
+				interrupted = true;
+				for (CancellationToken token : tokens) {
+					token.cancel();
+				}
+				i--;
+			}
+			catch (ExecutionException exc) {
+				throw new IllegalStateException("Scoring a candidate failed", exc.getCause());
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		// candidates after the first wanted one are not scored, solved or not
+		for (int i = first.get() + 1; i < scores.length; i++) {
+			scores[i] = NOT_SCORED;
+		}
+		return scores;
+	}
+
+	/**
+	 * The solve of one candidate.
+	 */
+	private class Solve implements Callable<Integer> {
+
+		/** The candidate */
+		private final Board board;
+		/** The max depth of the solve */
+		private final int maxDepth;
+		/** The lowest wanted length */
+		private final int low;
+		/** The highest wanted length */
+		private final int high;
+		/** The index of the candidate */
+		private final int index;
+		/** The index of the first candidate with a wanted length */
+		private final AtomicInteger first;
+		/** The token of the solve of every candidate */
+		private final CancellationToken[] tokens;
+
+		/**
+		 * Construct a new solve.
+		 * 
+		 * @param board - the candidate
+		 * @param maxDepth - the max depth of the solve
+		 * @param low - the lowest wanted length
+		 * @param high - the highest wanted length
+		 * @param index - the index of the candidate
+		 * @param first - the index of the first candidate with a wanted length
+		 * @param tokens - the token of the solve of every candidate
+		 */
+		private Solve(Board board, int maxDepth, int low, int high, int index, AtomicInteger first, CancellationToken[] tokens) {
+			this.board = board;
+			this.maxDepth = maxDepth;
+			this.low = low;
+			this.high = high;
+			this.index = index;
+			this.first = first;
+			this.tokens = tokens;
+		}
+
+		@Override
+		public Integer call() {
+			if (this.index > this.first.get()) {
+				return NOT_SCORED;
+			}
+
+			int length = CandidateScorer.this.solver.solveLength(this.board, this.maxDepth, SolveBudget.UNLIMITED, this.tokens[this.index]);
+			if (length >= this.low && length <= this.high) {
+				int current = this.first.get();
+				while (this.index < current && !this.first.compareAndSet(current, this.index)) {
+					current = this.first.get();
+				}
+				for (int i = this.index + 1; i < this.tokens.length; i++) {
+					this.tokens[i].cancel();
+				}
+			}
+			return length;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+
+/**
+ * Static analysis that proves some boards cannot be solved without searching
+ * them.
+ * <p>
+ * Each block is given a range of positions it can never leave. Blocks on the
+ * same line can never pass each other, so a full line leaves little room to
+ * each of its blocks. The cells a block covers at every position of its range
+ * are a wall no other block can cross, which shrinks the ranges of the blocks
+ * across it, until no range shrinks anymore. If a wall or a block the prisoner
+ * cannot pass stands between the prisoner and the exit, the board is
+ * unsolvable.
+ * </p>
+ * <p>
+ * This only ever rejects unsolvable boards, but not every unsolvable board is
+ * rejected.
+ * </p>
+ */
+public final class DeadlockDetector {
+
+	/**
+	 * The detector only has static methods.
+	 */
+	private DeadlockDetector() {
+	}
+
+	/**
+	 * Is a board provably unsolvable.
+	 * 
+	 * @param board - the board
+	 * @return {@code true} if the board cannot be solved. {@code false} if it
+	 *         may be solvable.
+	 */
+	public static boolean isDeadlocked(Board board) {
+		BoardLayout layout = new BoardLayout(board.getBlocks());
+		return isDeadlocked(layout, layout.encode(board.getBlocks()));
+	}
+
+	/**
+	 * Is a state provably unsolvable.
+	 * 
+	 * @param layout - the layout of the state
+	 * @param state - the state
+	 * @return {@code true} if the state cannot be solved. {@code false} if it
+	 *         may be solvable.
+	 */
+	public static boolean isDeadlocked(BoardLayout layout, long state) {
+		int size = layout.getSize();
+		int prisoner = layout.getPrisoner();
+		int[] low = new int[size];
+		int[] high = new int[size];
+
+		/**
+		 * Blocks on a line keep their order, so each block needs room for the
+		 * blocks before and after it.
+		 */
+		for (int i = 0; i < size; i++) {
+			int pos = layout.getPosition(state, i);
+			int before = 0;
+			int after = 0;
+			for (int j = 0; j < size; j++) {
+				if (j == i || layout.isHorizontal(j) != layout.isHorizontal(i) || layout.getLine(j) != layout.getLine(i)) {
+					continue;
+				}
+
+				int length = BoardLayout.SIZE - layout.getPositions(j) + 1;
+				if (layout.getPosition(state, j) < pos) {
+					before += length;
+				}
+				else {
+					after += length;
+
+					// nothing on the line of the prisoner can get out of its way
+					if (i == prisoner) {
+						return true;
+					}
+				}
+			}
+			low[i] = before;
+			high[i] = layout.getPositions(i) - 1 - after;
+		}
+
+		/**
+		 * Shrink the range of every block to the positions it can reach
+		 * without crossing a wall, until no range changes.
+		 */
+		long[] walls = new long[size];
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+
+			for (int i = 0; i < size; i++) {
+				walls[i] = layout.getMask(i, low[i]) & layout.getMask(i, high[i]);
+			}
+
+			for (int i = 0; i < size; i++) {
+				long blocked = getWalls(walls, i);
+				int pos = layout.getPosition(state, i);
+
+				int from = pos;
+				while (from > low[i] && (layout.getMask(i, from - 1) & blocked) == 0) {
+					from--;
+				}
+				int to = pos;
+				while (to < high[i] && (layout.getMask(i, to + 1) & blocked) == 0) {
+					to++;
+				}
+
+				if (from != low[i] || to != high[i]) {
+					low[i] = from;
+					high[i] = to;
+					walls[i] = layout.getMask(i, from) & layout.getMask(i, to);
+					changed = true;
+				}
+			}
+		}
+
+		// the prisoner escapes at its farthest position if at all
+		long exit = layout.getExit(layout.setPosition(state, prisoner, high[prisoner]));
+		return (exit & getWalls(walls, prisoner)) != 0;
+	}
+
+	/**
+	 * Get the walls of every block but one.
+	 * 
+	 * @param walls - the cells each block always covers
+	 * @param index - the index of the block to leave out
+	 * @return The cells that block can never move through.
+	 */
+	private static long getWalls(long[] walls, int index) {
+		long blocked = 0;
+		for (int i = 0; i < walls.length; i++) {
+			if (i != index) {
+				blocked |= walls[i];
+			}
+		}
+		return blocked;
+	}
+}
@@ -0,0 +1,294 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+import me.sbahr.unblockmegenerator.util.StateTable;
+
+/**
+ * The amount of moves to a solution of every state of a connected component
+ * of a puzzle.
+ * <p>
+ * The component is every state reachable from a starting state by moving
+ * blocks. It is enumerated once, then every winning state
+ * in it is searched backward from at the same time, so each state learns its
+ * distance to the closest solution. Any state of the component can then be
+ * looked up without searching again.
+ * </p>
+ */
+public class DistanceMap {
+
+	/** The layout of the states */
+	private final BoardLayout layout;
+	/** The fewest moves to a solution of each state, -1 if there is none */
+	private final StateTable moves;
+	/** Every state of the component, in the order they were found */
+	private final long[] states;
+	/** The state that needs the most moves to solve */
+	private final long farthest;
+	/** The amount of states needing each amount of moves */
+	private final int[] histogram;
+	/** The amount of states that cannot be solved */
+	private final int unsolvable;
+
+	/**
+	 * Construct a new distance map of the component of a state.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param start - any state of the component
+	 * @return The distance map of the whole component.
+	 */
+	public static DistanceMap build(BoardLayout layout, long start) {
+		return build(layout, start, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Finds every state of the component of a state and constructs its
+	 * distance map.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param start - any state of the component
+	 * @param maxStates - the maximum amount of states of the component
+	 * @return The distance map, or {@code null} if the component has more
+	 *         than maxStates states.
+	 */
+	public static DistanceMap build(BoardLayout layout, long start, int maxStates) {
+		long[] next = new long[Math.max(layout.getMaxSuccessors(), layout.getMaxPredecessors())];
+
+		/**
+		 * Find every state of the component and queue its winning states.
+		 */
+		StateTable moves = new StateTable();
+		LongQueue queue = new LongQueue();
+		LongQueue winners = new LongQueue();
+		LongQueue found = new LongQueue();
+		moves.put(start, Solver.UNSOLVABLE);
+		queue.add(start);
+
+		while (!queue.isEmpty()) {
+			if (moves.size() > maxStates) {
+				return null;
+			}
+
+			long state = queue.poll();
+			found.add(state);
+			if (layout.isWinner(state)) {
+				winners.add(state);
+			}
+
+			// every move can be taken back, so successors cover both ways
+			int count = layout.getNextStates(state, next);
+			for (int i = 0; i < count; i++) {
+				if (moves.putIfAbsent(next[i], Solver.UNSOLVABLE)) {
+					queue.add(next[i]);
+				}
+			}
+		}
+
+		long[] states = new long[found.size()];
+		for (int i = 0; i < states.length; i++) {
+			states[i] = found.poll();
+		}
+		return new DistanceMap(layout, moves, states, winners, next);
+	}
+
+	/**
+	 * Construct a new distance map of a component.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param moves - every state of the component, none of them solved yet
+	 * @param states - every state of the component, in the order found
+	 * @param winners - the winning states of the component
+	 * @param next - a buffer of at least {@link BoardLayout#getMaxPredecessors()}
+	 *            in size
+	 */
+	private DistanceMap(BoardLayout layout, StateTable moves, long[] states, LongQueue winners, long[] next) {
+		this.layout = layout;
+		this.moves = moves;
+		this.states = states;
+
+		/**
+		 * Search backward from every winner at once, so each state is first
+		 * reached from its closest solution.
+		 */
+		int[] histogram = new int[1];
+		long farthest = BoardLayout.NO_STATE;
+		int max = -1;
+
+		int solved = winners.size();
+		for (int i = 0; i < solved; i++) {
+			long winner = winners.poll();
+			this.moves.put(winner, 0);
+			winners.add(winner);
+		}
+
+		while (!winners.isEmpty()) {
+			long state = winners.poll();
+			int distance = (int) this.moves.get(state, Solver.UNSOLVABLE);
+
+			if (distance >= histogram.length) {
+				int[] grown = new int[histogram.length * 2];
+				System.arraycopy(histogram, 0, grown, 0, histogram.length);
+				histogram = grown;
+			}
+			histogram[distance]++;
+			if (distance > max) {
+				max = distance;
+				farthest = state;
+			}
+
+			int count = layout.getPreviousStates(state, next);
+			for (int i = 0; i < count; i++) {
+				if (this.moves.get(next[i], Solver.UNSOLVABLE) == Solver.UNSOLVABLE) {
+					this.moves.put(next[i], distance + 1);
+					winners.add(next[i]);
+					solved++;
+				}
+			}
+		}
+
+		this.histogram = new int[max + 1];
+		System.arraycopy(histogram, 0, this.histogram, 0, max + 1);
+		this.farthest = farthest;
+		this.unsolvable = this.moves.size() - solved;
+	}
+
+	/**
+	 * Get the layout of the states of this map.
+	 * 
+	 * @return The layout of the states.
+	 */
+	public BoardLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * Get the amount of states in the component.
+	 * 
+	 * @return The amount of states, solvable or not.
+	 */
+	public int getSize() {
+		return this.moves.size();
+	}
+
+	/**
+	 * Get a state of the component.
+	 * 
+	 * @param index - the index of the state, below {@link #getSize()}
+	 * @return The state found at that index, the first being the state the
+	 *         map was built from.
+	 */
+	public long getState(int index) {
+		return this.states[index];
+	}
+
+	/**
+	 * Is a state part of the component of this map.
+	 * 
+	 * @param state - the state
+	 * @return {@code true} if the state is in the component. {@code false}
+	 *         otherwise.
+	 */
+	public boolean contains(long state) {
+		return this.moves.contains(state);
+	}
+
+	/**
+	 * Get the fewest moves needed to solve a state.
+	 * 
+	 * @param state - a state of the component
+	 * @return The amount of moves, or {@link Solver#UNSOLVABLE} if the state
+	 *         cannot be solved or is not in the component.
+	 */
+	public int getMoves(long state) {
+		return (int) this.moves.get(state, Solver.UNSOLVABLE);
+	}
+
+	/**
+	 * Get the length of the solution of a board. This is the same as
+	 * {@link Solver#solveLength(Board, int)}, without searching.
+	 * 
+	 * @param board - a board of the component, with its blocks in the order
+	 *            of the layout
+	 * @param maxDepth - the max length of the solution
+	 * @return The amount of boards in the shortest solution, including the
+	 *         path to the board. {@link Solver#UNSOLVABLE} if the board cannot
+	 *         be solved or is not in the component,
+	 *         {@link Solver#DEPTH_EXCEEDED} if the solution is longer than the
+	 *         max depth.
+	 */
+	public int getLength(Board board, int maxDepth) {
+		int moves = getMoves(this.layout.encode(board.getBlocks()));
+		if (moves < 0) {
+			return Solver.UNSOLVABLE;
+		}
+		int length = board.getPath().size() + moves;
+		// a solved board is its own solution, whatever the depth
+		return moves > 0 && length > maxDepth ? Solver.DEPTH_EXCEEDED : length;
+	}
+
+	/**
+	 * Get the state that arises from a state one move closer to a solution.
+	 * 
+	 * @param state - a state of the component
+	 * @return The next state of a shortest solution, or
+	 *         {@link BoardLayout#NO_STATE} if the state is already solved or
+	 *         cannot be solved.
+	 */
+	public long getHint(long state) {
+		int moves = getMoves(state);
+		if (moves <= 0) {
+			return BoardLayout.NO_STATE;
+		}
+
+		long[] next = new long[this.layout.getMaxSuccessors()];
+		int count = this.layout.getNextStates(state, next);
+		for (int i = 0; i < count; i++) {
+			if (getMoves(next[i]) == moves - 1) {
+				return next[i];
+			}
+		}
+		return BoardLayout.NO_STATE;
+	}
+
+	/**
+	 * Get the state of the component that needs the most moves to solve.
+	 * 
+	 * @return The hardest state, or {@link BoardLayout#NO_STATE} if no state
+	 *         can be solved.
+	 */
+	public long getFarthestState() {
+		return this.farthest;
+	}
+
+	/**
+	 * Get the most moves needed to solve a state of the component.
+	 * 
+	 * @return The moves of {@link #getFarthestState()}, or
+	 *         {@link Solver#UNSOLVABLE} if no state can be solved.
+	 */
+	public int getMaxMoves() {
+		return this.histogram.length - 1;
+	}
+
+	/**
+	 * Get the amount of states for each amount of moves to a solution.
+	 * 
+	 * @return A new array where element i is the amount of states that need
+	 *         i moves to solve.
+	 */
+	public int[] getHistogram() {
+		int[] histogram = new int[this.histogram.length];
+		System.arraycopy(this.histogram, 0, histogram, 0, histogram.length);
+		return histogram;
+	}
+
+	/**
+	 * Get the amount of states of the component that cannot be solved.
+	 * 
+	 * @return The amount of unsolvable states.
+	 */
+	public int getUnsolvableCount() {
+		return this.unsolvable;
+	}
+}
@@ -0,0 +1,18 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * Estimate of the amount of moves left to solve a state, used to guide a
+ * search toward a solution. Estimates never overestimate, so guided searches
+ * still find the shortest solution.
+ */
+public interface Heuristic {
+
+	/**
+	 * Estimates the amount of moves needed to solve a state.
+	 * 
+	 * @param state - the state
+	 * @return A lower bound of the amount of moves to a winning state, or
+	 *         {@link Solver#UNSOLVABLE} if the state is known to have none.
+	 */
+	int estimate(long state);
+}
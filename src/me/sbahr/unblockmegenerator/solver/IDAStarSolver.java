@@ -0,0 +1,202 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.Arrays;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.SearchState;
+import me.sbahr.unblockmegenerator.util.StateTable;
+
+/**
+ * Solver that runs depth first searches bounded by the moves taken plus the
+ * {@link BlockerHeuristic} estimate of the moves left, raising the bound
+ * until a solution is found. Only the current path is kept, growing with the
+ * bound, along with a bounded table of the states seen during the current
+ * bound, so memory stays small no matter how large the puzzle is. Moves are applied and undone in
+ * place on a {@link SearchState}, so no objects are created per state.
+ */
+public class IDAStarSolver extends Solver {
+
+	/** The default maximum amount of states remembered per bound */
+	public static final int DEFAULT_MAX_TABLE_SIZE = 1 << 16;
+	/** Bound returned when a search found a winner */
+	private static final int FOUND = -1;
+	/** Bound returned when a search ran out of budget */
+	private static final int INTERRUPTED = -2;
+
+	/** The maximum amount of states remembered per bound */
+	private final int maxTableSize;
+
+	/**
+	 * Construct a new IDA* solver.
+	 */
+	public IDAStarSolver() {
+		this(DEFAULT_MAX_TABLE_SIZE);
+	}
+
+	/**
+	 * Construct a new IDA* solver.
+	 * 
+	 * @param maxTableSize - the maximum amount of states remembered per bound
+	 *            to skip states reached again, 0 to only skip states on the
+	 *            current path
+	 */
+	public IDAStarSolver(int maxTableSize) {
+		this.maxTableSize = maxTableSize;
+	}
+
+	@Override
+	protected int search(SearchContext context) {
+		BoardLayout layout = context.getLayout();
+		long start = context.getStart();
+		int depth = context.getDepth();
+		int maxDepth = context.getMaxDepth();
+		BlockerHeuristic heuristic = new BlockerHeuristic(layout);
+		int maxMoves = maxDepth - depth;
+
+		// the states of the current path, and the moves from each
+		long[] states = new long[0];
+		int[][] moves = new int[0][];
+		SearchState current = new SearchState(layout, start);
+		StateTable seen = new StateTable();
+
+		int bound = heuristic.estimate(start);
+		while (bound <= maxMoves) {
+			seen.clear();
+
+			// a path under the bound has at most bound moves, and the search
+			// looks one state past its end
+			if (states.length < bound + 2) {
+				int length = Math.max(bound + 2, states.length * 2);
+				states = Arrays.copyOf(states, length);
+				moves = Arrays.copyOf(moves, length);
+				for (int i = 0; i < length; i++) {
+					if (moves[i] == null) {
+						moves[i] = new int[layout.getMaxSuccessors()];
+					}
+				}
+				states[0] = start;
+			}
+
+			int result = search(context, current, heuristic, states, moves, seen, 0, bound);
+			if (result == FOUND) {
+				long[] found = trim(states);
+				context.setPath(found);
+				return depth + found.length - 1;
+			}
+			if (result == INTERRUPTED) {
+				return context.getInterruption();
+			}
+			context.layer(seen.size());
+			// nothing was cut off by the bound, so every state was explored
+			if (result == Integer.MAX_VALUE) {
+				return UNSOLVABLE;
+			}
+			bound = result;
+		}
+
+		return DEPTH_EXCEEDED;
+	}
+
+	/**
+	 * Depth first search from the current state, which is the last state of
+	 * the path. The current state is the same on return.
+	 * 
+	 * @param context - the limits of the search
+	 * @param current - the current state
+	 * @param heuristic - the estimate of the moves left
+	 * @param states - the states of the current path
+	 * @param moves - the move buffer of each depth
+	 * @param seen - the fewest moves each state was reached with in this bound
+	 * @param depth - the index of the last state of the path
+	 * @param bound - the max estimated total moves to explore
+	 * @return {@link #FOUND} if the path ends in a winner,
+	 *         {@link #INTERRUPTED} if the budget ran out, else the smallest
+	 *         estimated total moves that was over the bound.
+	 */
+	private int search(SearchContext context, SearchState current, BlockerHeuristic heuristic, long[] states, int[][] moves, StateTable seen, int depth, int bound) {
+		int total = depth + heuristic.estimate(current.getState());
+		if (total > bound) {
+			return total;
+		}
+
+		// If board can win
+		if (current.isWinner()) {
+			states[depth + 1] = BoardLayout.NO_STATE;
+			return FOUND;
+		}
+		if (!context.expand(1, seen.size() + depth)) {
+			return INTERRUPTED;
+		}
+
+		int min = Integer.MAX_VALUE;
+		int count = current.getMoves(moves[depth]);
+		int duplicates = 0;
+		for (int i = 0; i < count; i++) {
+			int move = moves[depth][i];
+
+			long child = current.getNextState(move);
+
+			if (isOnPath(states, depth, child)) {
+				duplicates++;
+				continue;
+			}
+
+			// already reached with as few moves during this bound
+			if (seen.get(child, Long.MAX_VALUE) <= depth + 1) {
+				duplicates++;
+				continue;
+			}
+			if (seen.size() < this.maxTableSize) {
+				seen.put(child, depth + 1);
+			}
+
+			states[depth + 1] = child;
+			current.apply(move);
+			int result = search(context, current, heuristic, states, moves, seen, depth + 1, bound);
+			current.undo(move);
+			if (result == FOUND || result == INTERRUPTED) {
+				context.generate(i + 1, duplicates);
+				return result;
+			}
+			min = Math.min(min, result);
+		}
+
+		context.generate(count, duplicates);
+		return min;
+	}
+
+	/**
+	 * Is a state on the current path.
+	 * 
+	 * @param states - the states of the current path
+	 * @param moves - the index of the last state of the path
+	 * @param state - the state in question
+	 * @return {@code true} if the state is on the path. {@code false}
+	 *         otherwise.
+	 */
+	private boolean isOnPath(long[] states, int moves, long state) {
+		for (int i = 0; i <= moves; i++) {
+			if (states[i] == state) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the states of a found path.
+	 * 
+	 * @param states - the states of the path, ending at the winner or with
+	 *            {@link BoardLayout#NO_STATE} after it
+	 * @return The states of the path.
+	 */
+	private long[] trim(long[] states) {
+		int length = 0;
+		while (length < states.length && states[length] != BoardLayout.NO_STATE) {
+			length++;
+		}
+		long[] path = new long[length];
+		System.arraycopy(states, 0, path, 0, length);
+		return path;
+	}
+}
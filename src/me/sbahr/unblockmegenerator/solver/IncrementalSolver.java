@@ -0,0 +1,288 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+
+/**
+ * Solver for boards made by adding one block to a base board, reusing what is
+ * known of the base instead of searching from scratch.
+ * <p>
+ * Adding a block only takes moves away, so the blocks of the base move the
+ * same way in any solution of the new board, and the base needs no more
+ * moves than the new board. A board whose base cannot be solved is rejected
+ * without a search, and a shortest solution of the base that never crosses
+ * the new block solves the new board as is. Otherwise, when the distances of
+ * the component of the base are known, they guide an {@link AStarSolver A*}
+ * search of the new board. Every other board is searched by the solver this
+ * one wraps.
+ * </p>
+ * <p>
+ * The base is the last board given to {@link #setBase(Board)}, and the added
+ * block is the last block of the new board. An incremental solver remembers
+ * its base, so it must only be used by one thread at a time.
+ * </p>
+ */
+public class IncrementalSolver extends Solver {
+
+	/** Largest component of a base whose distances are found */
+	public static final int DEFAULT_MAX_COMPONENT_SIZE = 1 << 14;
+
+	/** The solver of the boards that are not made from the base */
+	private final Solver solver;
+	/** Largest component of a base whose distances are found */
+	private final int maxComponentSize;
+
+	/** The layout of the base, {@code null} if there is none */
+	private BoardLayout layout;
+	/** The state of the base */
+	private long start;
+	/** The moves to a solution of every state of the base's component */
+	private DistanceMap distances;
+	/** A shortest solution of the base, {@code null} if none is known */
+	private long[] path;
+
+	/** The layout of the last board searched by the wrapped solver */
+	private BoardLayout lastLayout;
+	/** The state of the last board searched by the wrapped solver */
+	private long lastStart;
+	/** The solution found by the last search of the wrapped solver */
+	private long[] lastPath;
+
+	/**
+	 * Construct a new incremental solver.
+	 * 
+	 * @param solver - the solver of the boards that are not made from the
+	 *            base, whose metrics and cache this solver shares
+	 */
+	public IncrementalSolver(Solver solver) {
+		this(solver, DEFAULT_MAX_COMPONENT_SIZE);
+	}
+
+	/**
+	 * Construct a new incremental solver.
+	 * 
+	 * @param solver - the solver of the boards that are not made from the
+	 *            base, whose metrics and cache this solver shares
+	 * @param maxComponentSize - the most states of the component of a base
+	 *            whose distances are found
+	 */
+	public IncrementalSolver(Solver solver, int maxComponentSize) {
+		this.solver = solver;
+		this.maxComponentSize = maxComponentSize;
+		setMetrics(solver.getMetrics());
+		setCache(solver.getCache());
+	}
+
+	/**
+	 * Set the board that the next boards solved are made from, by adding one
+	 * block at the end of its blocks.
+	 * 
+	 * @param base - the base board, which must not change while it is the
+	 *            base
+	 */
+	public void setBase(Board base) {
+		setBase(base, null);
+	}
+
+	/**
+	 * Set the board that the next boards solved are made from, by adding one
+	 * block at the end of its blocks, reusing the distances of its component
+	 * if they are already known.
+	 * 
+	 * @param base - the base board, which must not change while it is the
+	 *            base
+	 * @param distances - the distances of a component with the same layout,
+	 *            used if the base is part of it, or {@code null} to find them
+	 */
+	public void setBase(Board base, DistanceMap distances) {
+		BoardLayout layout = new BoardLayout(base.getBlocks());
+		long start = layout.encode(base.getBlocks());
+
+		// the base did not change, so neither did anything known of it
+		if (this.layout != null && this.start == start && isSame(this.layout, layout)) {
+			return;
+		}
+
+		this.layout = layout;
+		this.start = start;
+		if (distances != null && isSame(distances.getLayout(), layout) && distances.contains(start)) {
+			this.distances = distances;
+		}
+		else {
+			this.distances = DistanceMap.build(layout, start, this.maxComponentSize);
+		}
+
+		if (this.distances != null) {
+			this.path = getSolution(this.distances, start);
+		}
+		else if (this.lastPath != null && this.lastStart == start && isSame(this.lastLayout, layout)) {
+			// a base just searched as a new board already has a solution
+			this.path = this.lastPath;
+		}
+		else {
+			this.path = null;
+		}
+	}
+
+	@Override
+	protected int search(SearchContext context) {
+		BoardLayout layout = context.getLayout();
+		if (this.layout != null && isMadeFromBase(layout)) {
+			int added = this.layout.getSize();
+			long base = layout.setPosition(context.getStart(), added, 0);
+
+			// the base is as far from a solution as any board it makes
+			boolean known = this.distances != null && this.distances.contains(base);
+			if (known && this.distances.getMoves(base) == UNSOLVABLE) {
+				return UNSOLVABLE;
+			}
+
+			if (this.path != null && this.path[0] == base) {
+				long block = layout.getMask(added, layout.getPosition(context.getStart(), added));
+				int moves = this.path.length - 1;
+				if (moves > 0 && context.getDepth() + moves > context.getMaxDepth()) {
+					return DEPTH_EXCEEDED;
+				}
+				if (!isCrossed(block)) {
+					long[] states = new long[this.path.length];
+					for (int i = 0; i < states.length; i++) {
+						states[i] = this.path[i] | (context.getStart() ^ base);
+					}
+					context.setPath(states);
+					return context.getDepth() + moves;
+				}
+			}
+
+			if (known) {
+				return AStarSolver.search(context, new BaseDistances(this.distances, added));
+			}
+		}
+
+		int length = this.solver.search(context);
+		this.lastLayout = layout;
+		this.lastStart = context.getStart();
+		this.lastPath = length >= 0 ? context.getPath() : null;
+		return length;
+	}
+
+	/**
+	 * Get a shortest solution of a state from the distances of its component.
+	 * 
+	 * @param distances - the distances of the component of the state
+	 * @param state - the state
+	 * @return The states from the state to a winning state, or {@code null}
+	 *         if the state cannot be solved.
+	 */
+	private static long[] getSolution(DistanceMap distances, long state) {
+		int moves = distances.getMoves(state);
+		if (moves < 0) {
+			return null;
+		}
+
+		long[] states = new long[moves + 1];
+		states[0] = state;
+		for (int i = 1; i < states.length; i++) {
+			states[i] = distances.getHint(states[i - 1]);
+		}
+		return states;
+	}
+
+	/**
+	 * Is a layout made by adding one block at the end of the blocks of the
+	 * base.
+	 * 
+	 * @param layout - the layout
+	 * @return {@code true} if the layout has every block of the base, in the
+	 *         same order, followed by one more. {@code false} otherwise.
+	 */
+	private boolean isMadeFromBase(BoardLayout layout) {
+		return layout.getSize() == this.layout.getSize() + 1 && isSameShape(this.layout, layout);
+	}
+
+	/**
+	 * Does the solution of the base cross the cells of a block, either by
+	 * moving through them or by needing them empty for the prisoner to
+	 * escape.
+	 * 
+	 * @param block - the cells of the block
+	 * @return {@code true} if the solution cannot be taken with the block on
+	 *         the board. {@code false} otherwise.
+	 */
+	private boolean isCrossed(long block) {
+		for (int i = 1; i < this.path.length; i++) {
+			int index = this.layout.getMovedBlock(this.path[i - 1], this.path[i]);
+			int from = this.layout.getPosition(this.path[i - 1], index);
+			int to = this.layout.getPosition(this.path[i], index);
+
+			for (int pos = Math.min(from, to); pos <= Math.max(from, to); pos++) {
+				if ((this.layout.getMask(index, pos) & block) != 0) {
+					return true;
+				}
+			}
+		}
+		return (this.layout.getExit(this.path[this.path.length - 1]) & block) != 0;
+	}
+
+	/**
+	 * Do two layouts have the same blocks, so their states are the same
+	 * boards.
+	 * 
+	 * @param a - a layout
+	 * @param b - the other layout
+	 * @return {@code true} if the layouts have the same amount of blocks, of
+	 *         the same shapes. {@code false} otherwise.
+	 */
+	private static boolean isSame(BoardLayout a, BoardLayout b) {
+		return a.getSize() == b.getSize() && isSameShape(a, b);
+	}
+
+	/**
+	 * Do two layouts place their first blocks on the same lines with the same
+	 * lengths, so states of the smaller layout are states of the other with
+	 * its extra blocks left out.
+	 * 
+	 * @param smaller - the layout with the fewest blocks
+	 * @param layout - the other layout
+	 * @return {@code true} if every block of the smaller layout has the same
+	 *         shape in the other. {@code false} otherwise.
+	 */
+	private static boolean isSameShape(BoardLayout smaller, BoardLayout layout) {
+		if (smaller.getSize() > layout.getSize() || smaller.getPrisoner() != layout.getPrisoner()) {
+			return false;
+		}
+		for (int i = 0; i < smaller.getSize(); i++) {
+			if (smaller.getMask(i, 0) != layout.getMask(i, 0) || smaller.getPositions(i) != layout.getPositions(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Estimates the moves left of a state by the moves left of the same state
+	 * without its added block.
+	 */
+	private static class BaseDistances implements Heuristic {
+
+		/** The distances of the component of the base */
+		private final DistanceMap distances;
+		/** The index of the added block */
+		private final int added;
+
+		/**
+		 * Construct a new heuristic.
+		 * 
+		 * @param distances - the distances of the component of the base
+		 * @param added - the index of the added block
+		 */
+		private BaseDistances(DistanceMap distances, int added) {
+			this.distances = distances;
+			this.added = added;
+		}
+
+		@Override
+		public int estimate(long state) {
+			return this.distances.getMoves(this.distances.getLayout().setPosition(state, this.added, 0));
+		}
+	}
+}
@@ -0,0 +1,148 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded {@link SolveCache} that evicts the least recently used boards.
+ * Keys are spread over a fixed amount of segments, each an access ordered map
+ * guarded by its own lock, so threads looking up different boards rarely wait
+ * on each other. Each segment holds an equal share of the capacity.
+ */
+public class LruSolveCache implements SolveCache {
+
+	/** The amount of bits used to pick a segment */
+	private static final int SEGMENT_BITS = 4;
+	/** Multiplier used to pick a segment */
+	private static final long MIX = 0xC2B2AE3D27D4EB4FL;
+
+	/** The segments of this cache */
+	private final Segment[] segments;
+	/** The amount of lookups that found an entry */
+	private final LongAdder hits = new LongAdder();
+	/** The amount of lookups that found no entry */
+	private final LongAdder misses = new LongAdder();
+	/** The amount of entries evicted to stay within capacity */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Construct a new, empty cache.
+	 * 
+	 * @param capacity - the most boards stored at once, at least the amount
+	 *            of segments
+	 */
+	public LruSolveCache(int capacity) {
+		this.segments = new Segment[1 << SEGMENT_BITS];
+		if (capacity < this.segments.length) {
+			throw new IllegalArgumentException("Capacity must be at least " + this.segments.length + ": " + capacity);
+		}
+
+		for (int i = 0; i < this.segments.length; i++) {
+			this.segments[i] = new Segment(capacity >> SEGMENT_BITS);
+		}
+	}
+
+	@Override
+	public int get(long key) {
+		Segment segment = getSegment(key);
+		Integer entry;
+		synchronized (segment) {
+			entry = segment.get(key);
+		}
+
+		if (entry == null) {
+			this.misses.increment();
+			return MISSING;
+		}
+		this.hits.increment();
+		return entry;
+	}
+
+	@Override
+	public void put(long key, int entry) {
+		Segment segment = getSegment(key);
+		synchronized (segment) {
+			Integer stored = segment.get(key);
+			if (stored == null || Solver.tellsMore(entry, stored)) {
+				segment.put(key, entry);
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		int size = 0;
+		for (Segment segment : this.segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Get the amount of boards evicted to make room for others.
+	 * 
+	 * @return The amount of evictions since the cache was created.
+	 */
+	public long getEvictionCount() {
+		return this.evictions.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "LruSolveCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", evictions=" + getEvictionCount() + "]";
+	}
+
+	/**
+	 * Get the segment a key belongs to.
+	 * 
+	 * @param key - the key
+	 * @return The segment of the key.
+	 */
+	private Segment getSegment(long key) {
+		return this.segments[(int) ((key * MIX) >>> (Long.SIZE - SEGMENT_BITS))];
+	}
+
+	/**
+	 * Access ordered map of one segment, dropping its least recently used
+	 * entry once it is over capacity.
+	 */
+	private class Segment extends LinkedHashMap<Long, Integer> {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The most entries of this segment */
+		private final int capacity;
+
+		/**
+		 * Construct a new, empty segment.
+		 * 
+		 * @param capacity - the most entries of this segment
+		 */
+		private Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, Integer> eldest) {
+			if (size() > this.capacity) {
+				LruSolveCache.this.evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
@@ -0,0 +1,304 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.concurrent.atomic.LongAdder;
+
+import me.sbahr.unblockmegenerator.component.Zobrist;
+
+/**
+ * {@link SolveCache} stored in a memory mapped file, so boards solved by one
+ * run are known to the next.
+ * <p>
+ * The file is an open addressing table of a fixed power of two amount of
+ * slots after a header. The header holds the version of the file, the
+ * {@link Zobrist} keys and the entries, and a file of another version is
+ * started over, as its keys or entries would mean other boards or lengths.
+ * Each slot is 16 bytes: the key, then the entry in the upper half of a word
+ * whose lowest bit marks it as written. Writes are serialized. Once three
+ * quarters of the slots are used, new boards are no longer stored.
+ * </p>
+ * <p>
+ * Lookups take no lock. Slots are filled once and never moved, and every
+ * word is read and written whole through a {@link VarHandle}: the entry is
+ * stored with release semantics before the key, and the key is loaded with
+ * acquire semantics before the entry. A reader that sees a key therefore
+ * sees an entry written for it, never a torn or older word.
+ * </p>
+ * <p>
+ * One process at a time writes to a file, holding a lock on it until it is
+ * closed. A file opened while another process holds the lock is only read,
+ * seeing the boards the other process stores as it stores them.
+ * </p>
+ */
+public class MappedSolveCache implements SolveCache, Closeable {
+
+	/** Value of the first word of every cache file */
+	private static final int MAGIC = 0x0055424D;
+	/** Version of the file, of the keys and of the entries it stores */
+	private static final int VERSION = (1 << 16) | (Zobrist.VERSION << 8) | SolveCache.VERSION;
+	/** Offset of the version in the header */
+	private static final int VERSION_OFFSET = 4;
+	/** The size of the header, and of a slot, in bytes */
+	private static final int SLOT_SIZE = 16;
+	/** The fewest slots of a file */
+	private static final int MIN_SLOTS = 16;
+	/** The most slots of a file, so it can be mapped at once */
+	private static final int MAX_SLOTS = 1 << 26;
+	/** Key stored for boards whose hash is the empty key */
+	private static final long ZERO_KEY = 0x9E3779B97F4A7C15L;
+	/** Multiplier used to pick the first slot of a key */
+	private static final long MIX = 0xC2B2AE3D27D4EB4FL;
+	/** Offset of the amount of slots in the header */
+	private static final int SLOTS_OFFSET = 8;
+	/** Offset of the amount of slots used in the header */
+	private static final int SIZE_OFFSET = 12;
+	/** Ordered access to the 8 byte words of the file */
+	private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+	/** Ordered access to the 4 byte words of the header */
+	private static final VarHandle INTS = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+
+	/** The file of this cache */
+	private final RandomAccessFile file;
+	/** The lock on the file, {@code null} if this cache only reads it */
+	private final FileLock lock;
+	/** The mapped file, {@code null} if it holds no table yet */
+	private final MappedByteBuffer buffer;
+	/** The amount of bits of the slot index */
+	private final int bits;
+	/** The most slots used before new boards are dropped */
+	private final int maxSize;
+	/** The amount of lookups that found an entry */
+	private final LongAdder hits = new LongAdder();
+	/** The amount of lookups that found no entry */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Opens a cache file, creating it if it does not exist.
+	 * 
+	 * @param path - the cache file
+	 * @param slots - the amount of slots of a new file, at least
+	 *            {@value #MIN_SLOTS} and rounded up to a power of two. An
+	 *            existing file keeps its own amount.
+	 * @throws IOException if the file cannot be opened, or is not a cache.
+	 */
+	public MappedSolveCache(File path, int slots) throws IOException {
+		if (slots < MIN_SLOTS || slots > MAX_SLOTS) {
+			throw new IllegalArgumentException("Slots must be between " + MIN_SLOTS + " and " + MAX_SLOTS + ": " + slots);
+		}
+
+		this.file = new RandomAccessFile(path, "rw");
+		FileChannel channel = this.file.getChannel();
+		try {
+			this.lock = tryLock(channel);
+
+			int count = readSlots(path);
+			if (count < 0 && this.lock != null) {
+				// a file of another version is started over
+				count = Integer.highestOneBit(slots - 1) << 1;
+				this.file.setLength(0);
+				this.file.setLength(SLOT_SIZE + (long) count * SLOT_SIZE);
+			}
+			else if (count < 0) {
+				// the owner of the file has not written it yet, or its boards
+				// cannot be read by this version
+				count = 0;
+			}
+
+			if (count == 0) {
+				this.buffer = null;
+				this.bits = 0;
+				this.maxSize = 0;
+			}
+			else {
+				FileChannel.MapMode mode = this.lock != null ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+				this.buffer = channel.map(mode, 0, SLOT_SIZE + (long) count * SLOT_SIZE);
+				this.bits = Integer.numberOfTrailingZeros(count);
+				this.maxSize = count - (count >> 2);
+
+				if (this.lock != null && this.buffer.getInt(0) != MAGIC) {
+					this.buffer.putInt(VERSION_OFFSET, VERSION);
+					this.buffer.putInt(SLOTS_OFFSET, count);
+					this.buffer.putInt(SIZE_OFFSET, 0);
+					this.buffer.putInt(0, MAGIC);
+				}
+			}
+		}
+		catch (IOException exc) {
+			this.file.close();
+			throw exc;
+		}
+	}
+
+	/**
+	 * Takes the lock on a cache file, if no one else holds it.
+	 * 
+	 * @param channel - the channel of the file
+	 * @return The lock, or {@code null} if it is held by another process or
+	 *         another cache of this process.
+	 * @throws IOException if the lock cannot be asked for.
+	 */
+	private static FileLock tryLock(FileChannel channel) throws IOException {
+		try {
+			return channel.tryLock();
+		}
+		catch (OverlappingFileLockException exc) {
+			return null;
+		}
+	}
+
+	/**
+	 * Reads the amount of slots of a cache file.
+	 * 
+	 * @param path - the cache file
+	 * @return The amount of slots, or {@code -1} if the file is not written
+	 *         yet or was written by another version.
+	 * @throws IOException if the file is not a cache.
+	 */
+	private int readSlots(File path) throws IOException {
+		if (this.file.length() < SLOT_SIZE) {
+			return -1;
+		}
+
+		this.file.seek(0);
+		int magic = this.file.readInt();
+		int version = this.file.readInt();
+		int count = this.file.readInt();
+		if (magic == 0 || (magic == MAGIC && version != VERSION)) {
+			return -1;
+		}
+		if (magic != MAGIC || count < MIN_SLOTS || count > MAX_SLOTS || Integer.bitCount(count) != 1 || this.file.length() < SLOT_SIZE + (long) count * SLOT_SIZE) {
+			throw new IOException("Not a solve cache: " + path);
+		}
+		return count;
+	}
+
+	@Override
+	public int get(long key) {
+		if (this.buffer != null) {
+			key = key == 0 ? ZERO_KEY : key;
+			int mask = (1 << this.bits) - 1;
+
+			for (int slot = getSlot(key), probes = 0; probes <= mask; slot = (slot + 1) & mask, probes++) {
+				int offset = SLOT_SIZE + slot * SLOT_SIZE;
+				long stored = (long) LONGS.getAcquire(this.buffer, offset);
+				if (stored == 0) {
+					break;
+				}
+				if (stored == key) {
+					long value = (long) LONGS.getAcquire(this.buffer, offset + 8);
+					if ((value & 1) == 0) {
+						break;
+					}
+					this.hits.increment();
+					return (int) (value >> 32);
+				}
+			}
+		}
+
+		this.misses.increment();
+		return MISSING;
+	}
+
+	@Override
+	public synchronized void put(long key, int entry) {
+		if (this.lock == null || this.buffer == null) {
+			return;
+		}
+
+		key = key == 0 ? ZERO_KEY : key;
+		int mask = (1 << this.bits) - 1;
+		long value = ((long) entry << 32) | 1;
+
+		for (int slot = getSlot(key);; slot = (slot + 1) & mask) {
+			int offset = SLOT_SIZE + slot * SLOT_SIZE;
+			long stored = this.buffer.getLong(offset);
+			if (stored == key) {
+				if (Solver.tellsMore(entry, (int) (this.buffer.getLong(offset + 8) >> 32))) {
+					LONGS.setRelease(this.buffer, offset + 8, value);
+				}
+				return;
+			}
+			if (stored == 0) {
+				int size = this.buffer.getInt(SIZE_OFFSET);
+				if (size >= this.maxSize) {
+					return;
+				}
+
+				// readers only look at the entry of a key they can see
+				LONGS.setRelease(this.buffer, offset + 8, value);
+				LONGS.setRelease(this.buffer, offset, key);
+				INTS.setRelease(this.buffer, SIZE_OFFSET, size + 1);
+				return;
+			}
+		}
+	}
+
+	@Override
+	public int size() {
+		return this.buffer != null ? (int) INTS.getAcquire(this.buffer, SIZE_OFFSET) : 0;
+	}
+
+	@Override
+	public long getHitCount() {
+		return this.hits.sum();
+	}
+
+	@Override
+	public long getMissCount() {
+		return this.misses.sum();
+	}
+
+	/**
+	 * Is this cache storing the boards it is given.
+	 * 
+	 * @return {@code true} if this cache holds the lock on its file.
+	 *         {@code false} if it only reads the file.
+	 */
+	public boolean isWritable() {
+		return this.lock != null;
+	}
+
+	/**
+	 * Writes every stored board to the file and releases it. The cache must
+	 * not be used afterwards.
+	 * 
+	 * @throws IOException if the file cannot be written.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			if (this.lock != null && this.buffer != null) {
+				this.buffer.force();
+			}
+		}
+		finally {
+			// the lock is released along with the channel
+			this.file.close();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "MappedSolveCache [size=" + size() + ", hits=" + getHitCount() + ", misses=" + getMissCount() + ", writable=" + isWritable() + "]";
+	}
+
+	/**
+	 * Get the first slot probed for a key.
+	 * 
+	 * @param key - the key, never {@code 0}
+	 * @return The index of the slot.
+	 */
+	private int getSlot(long key) {
+		return (int) ((key * MIX) >>> (Long.SIZE - this.bits));
+	}
+}
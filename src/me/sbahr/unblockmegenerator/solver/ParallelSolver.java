@@ -0,0 +1,315 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.ConcurrentStateTable;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+
+/**
+ * Solver that runs the breadth first search of {@link Solver} one depth at a
+ * time, expanding the states of each depth on every core of a fork-join pool.
+ * <p>
+ * A state reached from several states of the same depth is kept as a child of
+ * the first of them in queue order, and the next depth is kept in the order
+ * the sequential search would queue it, so the path found is exactly the one
+ * of {@link Solver}.
+ * </p>
+ */
+public class ParallelSolver extends Solver {
+
+	/** The amount of states of a depth expanded by one task */
+	private static final int CHUNK_SIZE = 512;
+
+	/** The pool that expands the states */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Construct a new parallel solver on the common fork-join pool.
+	 */
+	public ParallelSolver() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Construct a new parallel solver.
+	 * 
+	 * @param pool - the pool that expands the states
+	 */
+	public ParallelSolver(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	@Override
+	protected int search(SearchContext context) {
+		BoardLayout layout = context.getLayout();
+		long start = context.getStart();
+		int depth = context.getDepth();
+		int maxDepth = context.getMaxDepth();
+
+		/**
+		 * We must not revisit board states that have already been queued, so
+		 * keep every state we have seen along with the state it arises from.
+		 */
+		ConcurrentStateTable visited = new ConcurrentStateTable();
+		visited.put(start, BoardLayout.NO_STATE);
+
+		long[] frontier = { start };
+		long winner = layout.isWinner(start) ? start : BoardLayout.NO_STATE;
+
+		while (winner == BoardLayout.NO_STATE) {
+			if (frontier.length == 0) {
+				return UNSOLVABLE;
+			}
+			if (depth >= maxDepth) {
+				return DEPTH_EXCEEDED;
+			}
+			if (!context.expand(frontier.length, visited.size())) {
+				return context.getInterruption();
+			}
+
+			// every new state must be claimed before any of them is kept
+			Level level = new Level(layout, visited, frontier);
+			if (level.children.length == 1) {
+				level.generate(0);
+				level.collect(0);
+			}
+			else {
+				this.pool.invoke(new Expand(level, false, 0, level.children.length));
+				this.pool.invoke(new Expand(level, true, 0, level.children.length));
+			}
+
+			int generated = level.getGenerated();
+			frontier = level.getStates();
+			winner = level.getWinner();
+			depth++;
+			context.generate(generated, generated - frontier.length);
+			context.layer(frontier.length);
+		}
+
+		context.setPath(getPath(visited, winner));
+		return depth;
+	}
+
+	/**
+	 * Get the states along the path to a state.
+	 * 
+	 * @param parents - the state each visited state arises from
+	 * @param state - the last state of the path
+	 * @return The states from the first state up to the given state.
+	 */
+	private static long[] getPath(ConcurrentStateTable parents, long state) {
+		int length = 0;
+		for (long s = state; s != BoardLayout.NO_STATE; s = parents.get(s, BoardLayout.NO_STATE)) {
+			length++;
+		}
+
+		long[] states = new long[length];
+		for (long s = state; s != BoardLayout.NO_STATE; s = parents.get(s, BoardLayout.NO_STATE)) {
+			states[--length] = s;
+		}
+		return states;
+	}
+
+	/**
+	 * The expansion of one depth of the search, split into chunks of states.
+	 */
+	private static class Level {
+
+		/** The layout of the states */
+		private final BoardLayout layout;
+		/** Every state seen, along with the state it arises from */
+		private final ConcurrentStateTable visited;
+		/** The states of this depth */
+		private final long[] frontier;
+		/** The lowest frontier index each new state is reached from */
+		private final ConcurrentStateTable claims = new ConcurrentStateTable();
+		/** The new states of each chunk, paired with their frontier index */
+		private final LongQueue[] candidates;
+		/** The new states of each chunk, in queue order */
+		private final LongQueue[] children;
+		/** The first winning state of each chunk */
+		private final long[] winners;
+		/** The amount of successors generated by each chunk */
+		private final int[] generated;
+
+		/**
+		 * Construct a new level.
+		 * 
+		 * @param layout - the layout of the states
+		 * @param visited - every state seen so far
+		 * @param frontier - the states of this depth
+		 */
+		private Level(BoardLayout layout, ConcurrentStateTable visited, long[] frontier) {
+			this.layout = layout;
+			this.visited = visited;
+			this.frontier = frontier;
+
+			int chunks = (frontier.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+			this.candidates = new LongQueue[chunks];
+			this.children = new LongQueue[chunks];
+			this.winners = new long[chunks];
+			this.generated = new int[chunks];
+		}
+
+		/**
+		 * Finds the unseen states that arise from the states of a chunk, and
+		 * claims each for the lowest index that reaches it.
+		 * 
+		 * @param chunk - the chunk
+		 */
+		private void generate(int chunk) {
+			LongQueue candidates = new LongQueue();
+			long[] next = new long[this.layout.getMaxSuccessors()];
+			int generated = 0;
+
+			int end = Math.min(this.frontier.length, (chunk + 1) * CHUNK_SIZE);
+			for (int index = chunk * CHUNK_SIZE; index < end; index++) {
+				int count = this.layout.getNextStates(this.frontier[index], next);
+				generated += count;
+				for (int i = 0; i < count; i++) {
+					if (!this.visited.contains(next[i])) {
+						this.claims.putMin(next[i], index);
+						candidates.add(next[i]);
+						candidates.add(index);
+					}
+				}
+			}
+
+			this.candidates[chunk] = candidates;
+			this.generated[chunk] = generated;
+		}
+
+		/**
+		 * Keeps the states of a chunk that were claimed by the state that
+		 * reached them, and finds the first winner among them.
+		 * 
+		 * @param chunk - the chunk
+		 */
+		private void collect(int chunk) {
+			LongQueue candidates = this.candidates[chunk];
+			LongQueue children = new LongQueue(candidates.size() / 2);
+			long winner = BoardLayout.NO_STATE;
+
+			while (!candidates.isEmpty()) {
+				long state = candidates.poll();
+				long index = candidates.poll();
+
+				if (this.claims.get(state, -1) == index) {
+					this.visited.put(state, this.frontier[(int) index]);
+					children.add(state);
+
+					if (winner == BoardLayout.NO_STATE && this.layout.isWinner(state)) {
+						winner = state;
+					}
+				}
+			}
+
+			this.candidates[chunk] = null;
+			this.children[chunk] = children;
+			this.winners[chunk] = winner;
+		}
+
+		/**
+		 * Get the states of the next depth.
+		 * 
+		 * @return The new states of every chunk, in queue order.
+		 */
+		private long[] getStates() {
+			int size = 0;
+			for (LongQueue chunk : this.children) {
+				size += chunk.size();
+			}
+
+			long[] states = new long[size];
+			int i = 0;
+			for (LongQueue chunk : this.children) {
+				while (!chunk.isEmpty()) {
+					states[i++] = chunk.poll();
+				}
+			}
+			return states;
+		}
+
+		/**
+		 * Get the amount of successors generated by this level.
+		 * 
+		 * @return The amount of successors of every state of this depth.
+		 */
+		private int getGenerated() {
+			int generated = 0;
+			for (int chunk : this.generated) {
+				generated += chunk;
+			}
+			return generated;
+		}
+
+		/**
+		 * Get the first winning state of the next depth.
+		 * 
+		 * @return The winning state, or {@link BoardLayout#NO_STATE} if there
+		 *         is none.
+		 */
+		private long getWinner() {
+			for (long winner : this.winners) {
+				if (winner != BoardLayout.NO_STATE) {
+					return winner;
+				}
+			}
+			return BoardLayout.NO_STATE;
+		}
+	}
+
+	/**
+	 * Task that runs one phase of the expansion of a level over a range of
+	 * chunks, splitting the range until it is a single chunk.
+	 */
+	private static class Expand extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		/** The level being expanded */
+		private final Level level;
+		/** If the new states are kept, rather than generated and claimed */
+		private final boolean collect;
+		/** The first chunk of the range */
+		private final int from;
+		/** The chunk after the range */
+		private final int to;
+
+		/**
+		 * Construct a new task.
+		 * 
+		 * @param level - the level being expanded
+		 * @param collect - if the new states are kept, rather than generated
+		 *            and claimed
+		 * @param from - the first chunk of the range
+		 * @param to - the chunk after the range
+		 */
+		private Expand(Level level, boolean collect, int from, int to) {
+			this.level = level;
+			this.collect = collect;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > 1) {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new Expand(this.level, this.collect, this.from, middle), new Expand(this.level, this.collect, middle, this.to));
+				return;
+			}
+
+			for (int chunk = this.from; chunk < this.to; chunk++) {
+				if (this.collect) {
+					this.level.collect(chunk);
+				}
+				else {
+					this.level.generate(chunk);
+				}
+			}
+		}
+	}
+}
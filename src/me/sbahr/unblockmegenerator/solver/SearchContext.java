@@ -0,0 +1,248 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+
+/**
+ * Everything one search works with: where it starts, how deep it may go, the
+ * budget it may spend and the path it found. Searches report every state they
+ * expand with {@link #expand(int, int)} and stop as soon as it refuses.
+ * <p>
+ * Searches also report the successors they generate and the end of each of
+ * their layers, which {@link #finish(int)} turns into the
+ * {@link SolveStatistics} of the search.
+ * </p>
+ */
+public class SearchContext {
+
+	/** The amount of expansions between two checks of the clock and token */
+	private static final int CHECK_INTERVAL = 1024;
+	/** The shortest timeout in nanoseconds that is never checked */
+	private static final long MAX_TIMEOUT = Long.MAX_VALUE / 2;
+
+	/** The layout of the states */
+	private final BoardLayout layout;
+	/** The state to search from */
+	private final long start;
+	/** The path length of the start state */
+	private final int depth;
+	/** The max path length to search */
+	private final int maxDepth;
+	/** The budget of the search */
+	private final SolveBudget budget;
+	/** The token that cancels the search */
+	private final CancellationToken token;
+	/** If the search has a deadline */
+	private final boolean timed;
+	/** The time the search must stop at, in nanoseconds */
+	private final long deadline;
+
+	/** The time the search started at, in nanoseconds */
+	private final long started;
+
+	/** The amount of states expanded so far */
+	private long expanded;
+	/** The amount of successors generated so far */
+	private long generated;
+	/** The amount of successors that were already seen */
+	private long duplicates;
+	/** The most states waiting to be expanded at once */
+	private int peakFrontier = 1;
+	/** The most states remembered at once */
+	private int peakVisited = 1;
+	/** The time each finished layer took, in nanoseconds */
+	private long[] layers = new long[16];
+	/** The amount of finished layers */
+	private int layerCount;
+	/** The time the current layer started at, in nanoseconds */
+	private long layerStarted;
+	/** The amount of expansions when the clock and token are next checked */
+	private long nextCheck;
+	/** Why the search was stopped, 0 if it was not */
+	private int interruption;
+	/** The states from the start to the winner found */
+	private long[] path;
+
+	/**
+	 * Construct a new context.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param start - the state to search from
+	 * @param depth - the path length of the start state
+	 * @param maxDepth - the max path length to search
+	 * @param budget - the budget of the search
+	 * @param token - the token that cancels the search, {@code null} if it
+	 *            cannot be cancelled
+	 */
+	SearchContext(BoardLayout layout, long start, int depth, int maxDepth, SolveBudget budget, CancellationToken token) {
+		this.layout = layout;
+		this.start = start;
+		this.depth = depth;
+		this.maxDepth = maxDepth;
+		this.budget = budget;
+		this.token = token;
+
+		this.started = System.nanoTime();
+		this.layerStarted = this.started;
+		// longer timeouts would overflow the deadline, and never run out anyway
+		long timeout = TimeUnit.MILLISECONDS.toNanos(budget.getTimeout());
+		this.timed = timeout < MAX_TIMEOUT;
+		this.deadline = this.timed ? this.started + timeout : 0;
+	}
+
+	/**
+	 * Get the layout of the states.
+	 * 
+	 * @return The layout of the states.
+	 */
+	public BoardLayout getLayout() {
+		return this.layout;
+	}
+
+	/**
+	 * Get the state to search from.
+	 * 
+	 * @return The start state.
+	 */
+	public long getStart() {
+		return this.start;
+	}
+
+	/**
+	 * Get the path length of the start state.
+	 * 
+	 * @return The amount of boards up to and including the start state.
+	 */
+	public int getDepth() {
+		return this.depth;
+	}
+
+	/**
+	 * Get the max path length to search.
+	 * 
+	 * @return The max depth.
+	 */
+	public int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * Counts states that are about to be expanded, and checks the budget.
+	 * Once this returns {@code false} the search must stop and return
+	 * {@link #getInterruption()}.
+	 * 
+	 * @param states - the amount of states about to be expanded
+	 * @param visited - the amount of states the search remembers
+	 * @return {@code true} if the states may be expanded. {@code false} if
+	 *         the budget is spent or the search was cancelled.
+	 */
+	public boolean expand(int states, int visited) {
+		if (this.interruption != 0) {
+			return false;
+		}
+
+		this.expanded += states;
+		if (visited > this.peakVisited) {
+			this.peakVisited = visited;
+		}
+		if (this.expanded > this.budget.getMaxExpanded() || visited > this.budget.getMaxVisited()) {
+			this.interruption = Solver.BUDGET_EXCEEDED;
+			return false;
+		}
+
+		// the clock and token are too slow to look at for every state
+		if (this.expanded >= this.nextCheck) {
+			this.nextCheck = this.expanded + CHECK_INTERVAL;
+			if (this.token != null && this.token.isCancelled()) {
+				this.interruption = Solver.CANCELLED;
+				return false;
+			}
+			if (this.timed && System.nanoTime() - this.deadline >= 0) {
+				this.interruption = Solver.BUDGET_EXCEEDED;
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Counts the successors generated by an expansion.
+	 * 
+	 * @param successors - the amount of successors generated
+	 * @param duplicates - how many of them were already seen
+	 */
+	public void generate(int successors, int duplicates) {
+		this.generated += successors;
+		this.duplicates += duplicates;
+	}
+
+	/**
+	 * Ends the current layer of the search and starts the next one.
+	 * 
+	 * @param frontier - the amount of states waiting to be expanded
+	 */
+	public void layer(int frontier) {
+		long now = System.nanoTime();
+		if (this.layerCount == this.layers.length) {
+			this.layers = Arrays.copyOf(this.layers, this.layers.length * 2);
+		}
+		this.layers[this.layerCount++] = now - this.layerStarted;
+		this.layerStarted = now;
+
+		if (frontier > this.peakFrontier) {
+			this.peakFrontier = frontier;
+		}
+	}
+
+	/**
+	 * Ends the search, along with its last layer.
+	 * 
+	 * @param length - the result of the search
+	 * @return The statistics of the search.
+	 */
+	public SolveStatistics finish(int length) {
+		layer(0);
+		long elapsed = this.layerStarted - this.started;
+		return new SolveStatistics(length, this.expanded, this.generated, this.duplicates, this.peakFrontier, this.peakVisited, elapsed, Arrays.copyOf(this.layers, this.layerCount));
+	}
+
+	/**
+	 * Get why the search was stopped.
+	 * 
+	 * @return {@link Solver#BUDGET_EXCEEDED} or {@link Solver#CANCELLED}, or 0
+	 *         if {@link #expand(int, int)} never refused.
+	 */
+	public int getInterruption() {
+		return this.interruption;
+	}
+
+	/**
+	 * Get the amount of states expanded so far.
+	 * 
+	 * @return The amount of expanded states.
+	 */
+	public long getExpanded() {
+		return this.expanded;
+	}
+
+	/**
+	 * Stores the path to the winner found.
+	 * 
+	 * @param path - the states from the start state to the winner
+	 */
+	public void setPath(long[] path) {
+		this.path = path;
+	}
+
+	/**
+	 * Get the path to the winner found.
+	 * 
+	 * @return The states from the start state to the winner, or {@code null}
+	 *         if no winner was found.
+	 */
+	public long[] getPath() {
+		return this.path;
+	}
+}
@@ -0,0 +1,66 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * Limits on the work of one solve, on top of its max depth. A solve that
+ * runs out of budget stops with {@link Solver#BUDGET_EXCEEDED}, whatever it
+ * found so far.
+ */
+public class SolveBudget {
+
+	/** A budget without any limit */
+	public static final SolveBudget UNLIMITED = new SolveBudget(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+
+	/** The maximum amount of states expanded */
+	private final long maxExpanded;
+	/** The maximum amount of states remembered */
+	private final int maxVisited;
+	/** The maximum time of the solve, in milliseconds */
+	private final long timeout;
+
+	/**
+	 * Construct a new budget.
+	 * 
+	 * @param maxExpanded - the maximum amount of states expanded,
+	 *            {@link Long#MAX_VALUE} for no limit
+	 * @param maxVisited - the maximum amount of states remembered,
+	 *            {@link Integer#MAX_VALUE} for no limit
+	 * @param timeout - the maximum time of the solve in milliseconds,
+	 *            {@link Long#MAX_VALUE} for no limit
+	 */
+	public SolveBudget(long maxExpanded, int maxVisited, long timeout) {
+		if (maxExpanded < 0 || maxVisited < 0 || timeout < 0) {
+			throw new IllegalArgumentException("A budget cannot be negative");
+		}
+		this.maxExpanded = maxExpanded;
+		this.maxVisited = maxVisited;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * Get the maximum amount of states a solve may expand.
+	 * 
+	 * @return The maximum amount of expanded states.
+	 */
+	public long getMaxExpanded() {
+		return this.maxExpanded;
+	}
+
+	/**
+	 * Get the maximum amount of states a solve may remember.
+	 * 
+	 * @return The maximum amount of visited states.
+	 */
+	public int getMaxVisited() {
+		return this.maxVisited;
+	}
+
+	/**
+	 * Get the maximum time of a solve.
+	 * 
+	 * @return The timeout in milliseconds, {@link Long#MAX_VALUE} if there is
+	 *         none.
+	 */
+	public long getTimeout() {
+		return this.timeout;
+	}
+}
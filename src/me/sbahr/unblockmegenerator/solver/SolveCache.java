@@ -0,0 +1,58 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * Cache of what is known about solving boards, shared by any amount of
+ * solvers and threads. Boards are keyed by their Zobrist hash, so boards with
+ * the same blocks share an entry whatever their block ids or block order.
+ * <p>
+ * An entry is the fewest moves to a solution when it is known,
+ * {@link Solver#UNSOLVABLE} when there is no solution, or the complement
+ * ({@code ~}) of the fewest moves a solution could have when only a depth
+ * limited search failed. Every entry other than {@link #MISSING} is below
+ * {@code 0} when it does not give the exact moves.
+ * </p>
+ */
+public interface SolveCache {
+
+	/** Version of the entries, changed whenever their encoding does */
+	int VERSION = 1;
+	/** Entry returned for a board that is not cached */
+	int MISSING = Integer.MIN_VALUE;
+
+	/**
+	 * Get the entry of a board.
+	 * 
+	 * @param key - the Zobrist hash of the board
+	 * @return The entry of the board, or {@link #MISSING} if there is none.
+	 */
+	int get(long key);
+
+	/**
+	 * Stores the entry of a board, unless the entry already stored tells more.
+	 * 
+	 * @param key - the Zobrist hash of the board
+	 * @param entry - the entry of the board
+	 */
+	void put(long key, int entry);
+
+	/**
+	 * Get the amount of boards stored.
+	 * 
+	 * @return The amount of entries.
+	 */
+	int size();
+
+	/**
+	 * Get the amount of lookups that found an entry.
+	 * 
+	 * @return The amount of hits since the cache was created.
+	 */
+	long getHitCount();
+
+	/**
+	 * Get the amount of lookups that found no entry.
+	 * 
+	 * @return The amount of misses since the cache was created.
+	 */
+	long getMissCount();
+}
@@ -0,0 +1,74 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.util.List;
+
+import me.sbahr.unblockmegenerator.component.Board;
+
+/**
+ * The outcome of a solve: the solution if one was found, or why there is
+ * none.
+ */
+public class SolveResult {
+
+	/** The length of the solution, or why there is none */
+	private final int length;
+	/** The boards of the solution, {@code null} if there is none */
+	private final List<Board> path;
+	/** What the search did */
+	private final SolveStatistics statistics;
+
+	/**
+	 * Construct a new result.
+	 * 
+	 * @param length - the amount of boards in the solution, or one of
+	 *            {@link Solver#UNSOLVABLE}, {@link Solver#DEPTH_EXCEEDED},
+	 *            {@link Solver#BUDGET_EXCEEDED} and {@link Solver#CANCELLED}
+	 * @param path - the boards of the solution, {@code null} if there is none
+	 * @param statistics - what the search did
+	 */
+	public SolveResult(int length, List<Board> path, SolveStatistics statistics) {
+		this.length = length;
+		this.path = path;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Was a solution found.
+	 * 
+	 * @return {@code true} if the board was solved. {@code false} otherwise.
+	 */
+	public boolean isSolved() {
+		return this.length > 0;
+	}
+
+	/**
+	 * Get the length of the solution, or why there is none.
+	 * 
+	 * @return The amount of boards in the solution, including the path to
+	 *         the solved board. Otherwise {@link Solver#UNSOLVABLE},
+	 *         {@link Solver#DEPTH_EXCEEDED}, {@link Solver#BUDGET_EXCEEDED}
+	 *         or {@link Solver#CANCELLED}.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Get the boards of the solution.
+	 * 
+	 * @return A list of boards from the solved board to the winning board, or
+	 *         {@code null} if no solution was found.
+	 */
+	public List<Board> getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Get the statistics of the search.
+	 * 
+	 * @return What the search did to find this result.
+	 */
+	public SolveStatistics getStatistics() {
+		return this.statistics;
+	}
+}
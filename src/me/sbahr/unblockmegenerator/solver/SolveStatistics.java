@@ -0,0 +1,130 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * What one search did: how many states it expanded and generated, how much
+ * it had to remember, and how long each layer of the search took. A layer is
+ * one depth of a breadth first search, one estimate of {@link AStarSolver}
+ * or one bound of {@link IDAStarSolver}.
+ */
+public class SolveStatistics {
+
+	/** The length of the solution, or why there is none */
+	private final int length;
+	/** The amount of states expanded */
+	private final long expanded;
+	/** The amount of successors generated */
+	private final long generated;
+	/** The amount of successors that were already seen */
+	private final long duplicates;
+	/** The most states waiting to be expanded at once */
+	private final int peakFrontier;
+	/** The most states remembered at once */
+	private final int peakVisited;
+	/** The time of the whole search, in nanoseconds */
+	private final long elapsed;
+	/** The time of each layer of the search, in nanoseconds */
+	private final long[] layers;
+
+	/**
+	 * Construct new statistics.
+	 * 
+	 * @param length - the length of the solution, or why there is none
+	 * @param expanded - the amount of states expanded
+	 * @param generated - the amount of successors generated
+	 * @param duplicates - the amount of successors that were already seen
+	 * @param peakFrontier - the most states waiting to be expanded at once
+	 * @param peakVisited - the most states remembered at once
+	 * @param elapsed - the time of the whole search, in nanoseconds
+	 * @param layers - the time of each layer of the search, in nanoseconds
+	 */
+	public SolveStatistics(int length, long expanded, long generated, long duplicates, int peakFrontier, int peakVisited, long elapsed, long[] layers) {
+		this.length = length;
+		this.expanded = expanded;
+		this.generated = generated;
+		this.duplicates = duplicates;
+		this.peakFrontier = peakFrontier;
+		this.peakVisited = peakVisited;
+		this.elapsed = elapsed;
+		this.layers = layers;
+	}
+
+	/**
+	 * Get the result of the search.
+	 * 
+	 * @return The amount of boards in the solution, or one of
+	 *         {@link Solver#UNSOLVABLE}, {@link Solver#DEPTH_EXCEEDED},
+	 *         {@link Solver#BUDGET_EXCEEDED} and {@link Solver#CANCELLED}.
+	 */
+	public int getLength() {
+		return this.length;
+	}
+
+	/**
+	 * Get the amount of states expanded.
+	 * 
+	 * @return The amount of states whose successors were generated.
+	 */
+	public long getExpanded() {
+		return this.expanded;
+	}
+
+	/**
+	 * Get the amount of successors generated.
+	 * 
+	 * @return The amount of successors, including duplicates.
+	 */
+	public long getGenerated() {
+		return this.generated;
+	}
+
+	/**
+	 * Get the amount of successors that were already seen.
+	 * 
+	 * @return The amount of duplicate successors.
+	 */
+	public long getDuplicates() {
+		return this.duplicates;
+	}
+
+	/**
+	 * Get the most states waiting to be expanded at once.
+	 * 
+	 * @return The peak size of the frontier.
+	 */
+	public int getPeakFrontier() {
+		return this.peakFrontier;
+	}
+
+	/**
+	 * Get the most states remembered at once.
+	 * 
+	 * @return The peak size of the visited set.
+	 */
+	public int getPeakVisited() {
+		return this.peakVisited;
+	}
+
+	/**
+	 * Get the time of the whole search.
+	 * 
+	 * @return The time in nanoseconds.
+	 */
+	public long getElapsed() {
+		return this.elapsed;
+	}
+
+	/**
+	 * Get the time of each layer of the search.
+	 * 
+	 * @return A new array where element i is the time of layer i in
+	 *         nanoseconds.
+	 */
+	public long[] getLayerTimes() {
+		return this.layers.clone();
+	}
+
+	@Override
+	public String toString() {
+		return "SolveStatistics (length: " + this.length + ", expanded: " + this.expanded + ", generated: " + this.generated + ", duplicates: " + this.duplicates + ", peak frontier: " + this.peakFrontier + ", peak visited: " + this.peakVisited + ", elapsed: " + this.elapsed / 1000 + "us, layers: " + this.layers.length + ")";
+	}
+}
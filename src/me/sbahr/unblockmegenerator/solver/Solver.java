@@ -1,17 +1,29 @@
 package me.sbahr.unblockmegenerator.solver;
 
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Queue;
-import java.util.Set;
 
-import me.sbahr.unblockmegenerator.component.Block;
 import me.sbahr.unblockmegenerator.component.Board;
-import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.Move;
+import me.sbahr.unblockmegenerator.util.LongQueue;
+import me.sbahr.unblockmegenerator.util.StateTable;
 
 public class Solver {
 
+	/** Length returned when the board cannot be solved */
+	public static final int UNSOLVABLE = -1;
+	/** Length returned when every solution is longer than the max depth */
+	public static final int DEPTH_EXCEEDED = -2;
+	/** Length returned when the search ran out of budget */
+	public static final int BUDGET_EXCEEDED = -3;
+	/** Length returned when the search was cancelled */
+	public static final int CANCELLED = -4;
+
+	/** The metrics every solve is recorded into */
+	private SolverMetrics metrics = SolverMetrics.getDefault();
+	/** The cache of the lengths found, {@code null} to always search */
+	private SolveCache cache;
+
 	/**
 	 * Solves a given board, constructing the list of boards that represent how
 	 * a piece moves in order to solve the puzzle.
@@ -26,78 +38,365 @@ public class Solver {
 	 *         {@code null} if no solution exists.
 	 */
 	public List<Board> solve(Board mainBoard, int maxDepth) {
+		return solve(mainBoard, maxDepth, SolveBudget.UNLIMITED, null).getPath();
+	}
+
+	/**
+	 * Solves a given board within a budget, constructing the list of boards
+	 * that represent how a piece moves in order to solve the puzzle.
+	 * 
+	 * @param mainBoard - The board to be solved.
+	 * @param maxDepth - the max search depth of the tree
+	 * @param budget - the limits on the work of the search
+	 * @param token - the token that cancels the search, {@code null} if it
+	 *            cannot be cancelled
+	 * @return The solution, or why there is none.
+	 */
+	public SolveResult solve(Board mainBoard, int maxDepth, SolveBudget budget, CancellationToken token) {
 
 		// System.out.println("Searching tree for a solution.");
 
 		/**
-		 * We must not revisit board states that have already been examined.
+		 * Search on packed states, only constructing boards for the solution.
+		 * Boards that are provably unsolvable are not searched at all.
+		 */
+		BoardLayout layout = new BoardLayout(mainBoard.getBlocks());
+		long start = layout.encode(mainBoard.getBlocks());
+		if (DeadlockDetector.isDeadlocked(layout, start)) {
+			store(mainBoard, UNSOLVABLE, maxDepth);
+			return new SolveResult(UNSOLVABLE, null, recordDeadlock());
+		}
+
+		SearchContext context = new SearchContext(layout, start, mainBoard.getPath().size(), maxDepth, budget, token);
+		int length = search(context);
+		SolveStatistics statistics = context.finish(length);
+		this.metrics.record(statistics);
+		store(mainBoard, length, maxDepth);
+		return new SolveResult(length, length < 0 ? null : toPath(layout, mainBoard, context.getPath()), statistics);
+	}
+
+	/**
+	 * Solves a given board, only finding the length of the solution. This has
+	 * the same result as the size of the list from
+	 * {@link #solve(Board, int)}, without constructing any boards.
+	 * 
+	 * @param mainBoard - The board to be solved.
+	 * @param maxDepth - the max search depth of the tree
+	 * @return The amount of boards in the shortest solution, including the
+	 *         path to mainBoard. {@link #UNSOLVABLE} if no solution exists, or
+	 *         {@link #DEPTH_EXCEEDED} if no solution exists within maxDepth.
+	 */
+	public int solveLength(Board mainBoard, int maxDepth) {
+		return solveLength(mainBoard, maxDepth, SolveBudget.UNLIMITED, null);
+	}
+
+	/**
+	 * Solves a given board within a budget, only finding the length of the
+	 * solution.
+	 * 
+	 * @param mainBoard - The board to be solved.
+	 * @param maxDepth - the max search depth of the tree
+	 * @param budget - the limits on the work of the search
+	 * @param token - the token that cancels the search, {@code null} if it
+	 *            cannot be cancelled
+	 * @return The amount of boards in the shortest solution, including the
+	 *         path to mainBoard. Otherwise {@link #UNSOLVABLE},
+	 *         {@link #DEPTH_EXCEEDED}, {@link #BUDGET_EXCEEDED} or
+	 *         {@link #CANCELLED}.
+	 */
+	public int solveLength(Board mainBoard, int maxDepth, SolveBudget budget, CancellationToken token) {
+		// boards solved before are not searched again
+		SolveCache cache = this.cache;
+		if (cache != null) {
+			int length = getLength(cache.get(mainBoard.getHash()), mainBoard.getPath().size(), maxDepth);
+			if (length != SolveCache.MISSING) {
+				this.metrics.recordCacheHit(length);
+				return length;
+			}
+		}
+
+		BoardLayout layout = new BoardLayout(mainBoard.getBlocks());
+		long start = layout.encode(mainBoard.getBlocks());
+		if (DeadlockDetector.isDeadlocked(layout, start)) {
+			store(mainBoard, UNSOLVABLE, maxDepth);
+			recordDeadlock();
+			return UNSOLVABLE;
+		}
+
+		SearchContext context = new SearchContext(layout, start, mainBoard.getPath().size(), maxDepth, budget, token);
+		int length = search(context);
+		this.metrics.record(context.finish(length));
+		store(mainBoard, length, maxDepth);
+		return length;
+	}
+
+	/**
+	 * Get the metrics this solver records every solve into.
+	 * 
+	 * @return The metrics of this solver, {@link SolverMetrics#getDefault()}
+	 *         unless set otherwise.
+	 */
+	public SolverMetrics getMetrics() {
+		return this.metrics;
+	}
+
+	/**
+	 * Set the metrics this solver records every solve into.
+	 * 
+	 * @param metrics - the metrics
+	 */
+	public void setMetrics(SolverMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * Get the cache this solver looks up boards in before searching.
+	 * 
+	 * @return The cache, or {@code null} if every board is searched.
+	 */
+	public SolveCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Set the cache this solver looks up boards in before searching, and
+	 * stores what it finds into. Only {@link #solveLength(Board, int)} is
+	 * answered from the cache, as the cache holds no paths. A board cached as
+	 * unsolvable is {@link #UNSOLVABLE} whatever the max depth.
+	 * 
+	 * @param cache - the cache, shared by any amount of solvers, or
+	 *            {@code null} to search every board
+	 */
+	public void setCache(SolveCache cache) {
+		this.cache = cache;
+	}
+
+	/**
+	 * Finds the moves to a solution of every state that is connected to a
+	 * given board, so any board arising from it can be scored without solving
+	 * it again.
+	 * 
+	 * @param mainBoard - any board of the component
+	 * @param maxStates - the maximum amount of states to enumerate
+	 * @return The distance map of the component of the board, or {@code null}
+	 *         if the component has more than maxStates states.
+	 */
+	public DistanceMap getDistanceMap(Board mainBoard, int maxStates) {
+		BoardLayout layout = new BoardLayout(mainBoard.getBlocks());
+		return DistanceMap.build(layout, layout.encode(mainBoard.getBlocks()), maxStates);
+	}
+
+	/**
+	 * Searches from a state to the closest winning state. Solvers that search
+	 * in a different way override this method.
+	 * 
+	 * @param context - the start of the search and its limits, where the
+	 *            states from the start to the winning state are stored
+	 * @return The path length of the winning state, {@link #UNSOLVABLE},
+	 *         {@link #DEPTH_EXCEEDED}, or the interruption of the context.
+	 */
+	protected int search(SearchContext context) {
+		BoardLayout layout = context.getLayout();
+		long start = context.getStart();
+		int depth = context.getDepth();
+		int maxDepth = context.getMaxDepth();
+		int[] moves = new int[layout.getMaxSuccessors()];
+
+		/**
+		 * We must not revisit board states that have already been queued, so
+		 * keep every state we have seen along with the state it arises from.
+		 * The path only has to be rebuilt once a winner is found.
 		 */
-		Set<Board> visited = new HashSet<Board>();
+		StateTable visited = new StateTable();
+		visited.put(start, BoardLayout.NO_STATE);
+
+		// If board can win
+		if (layout.isWinner(start)) {
+			context.setPath(getPath(visited, start));
+			return depth;
+		}
 
 		/**
-		 * Use a queue to keep track of which elements to track
+		 * Use a queue to keep track of which elements to track, each state
+		 * followed by the index of the block moved to reach it.
 		 */
-		Queue<Board> queue = new LinkedList<Board>();
-		queue.add(mainBoard);
+		LongQueue queue = new LongQueue();
+		queue.add(start);
+		queue.add(-1);
+
+		// how many states are left at the current depth
+		int remaining = 1;
 
 		while (!queue.isEmpty()) {
 
-			// Dequeue front board and examine it
-			Board board = queue.poll();
+			// every state queued before this one has been examined
+			if (remaining-- == 0) {
+				depth++;
+				remaining = queue.size() / 2 - 1;
+				context.layer(remaining + 1);
+			}
+
+			// Dequeue front state and examine it
+			long state = queue.poll();
+			int moved = (int) queue.poll();
 
-			// Have we seen this board before?
-			if (visited.contains(board)) {
-				// If so, skip
-				continue;
+			// the states of the next depth are past the max depth
+			if (depth >= maxDepth) {
+				return DEPTH_EXCEEDED;
+			}
+			if (!context.expand(1, visited.size())) {
+				return context.getInterruption();
 			}
 
-			// Else we haven't seen the board, so store it.
-			visited.add(board);
+			/**
+			 * Queue every state we haven't seen before, testing each as it is
+			 * generated. The first winner generated is the first one the
+			 * queue would have reached, so the path is the same.
+			 */
+			long occupied = layout.getOccupancy(state);
+			int count = layout.getMoves(state, occupied, moves);
+			int generated = 0;
+			int duplicates = 0;
+			for (int i = 0; i < count; i++) {
+				int index = Move.getIndex(moves[i]);
 
-			// If board can win
-			if (isWinner(board))
-				return board.getPath();
+				// moving the same block again reaches only states the
+				// previous state already queued
+				if (index == moved) {
+					continue;
+				}
 
-			// Else can't
-			for (Board b : board.getNextPossibleBoards()) {
-				queue.add(b);
+				long child = layout.move(state, moves[i]);
+				generated++;
+				if (visited.putIfAbsent(child, state)) {
+					if (layout.isWinner(child, layout.moveCells(occupied, moves[i]))) {
+						context.generate(generated, duplicates);
+						context.setPath(getPath(visited, child));
+						return depth + 1;
+					}
+					queue.add(child);
+					queue.add(index);
+				}
+				else {
+					duplicates++;
+				}
 			}
+			context.generate(generated, duplicates);
+		}
 
-			if (board.getPath().size() >= maxDepth) {
-				System.out.println("Search depth reached maximum depth of " + maxDepth + ". Breaking...");
-				break;
-			}
+		return UNSOLVABLE;
+	}
+
+	/**
+	 * Stores the result of a solve into the cache, if there is one.
+	 * 
+	 * @param mainBoard - the board solved
+	 * @param length - the length found
+	 * @param maxDepth - the max depth of the solve
+	 */
+	private void store(Board mainBoard, int length, int maxDepth) {
+		SolveCache cache = this.cache;
+		if (cache == null) {
+			return;
+		}
+
+		int depth = mainBoard.getPath().size();
+		if (length >= 0) {
+			cache.put(mainBoard.getHash(), length - depth);
 		}
+		else if (length == UNSOLVABLE) {
+			cache.put(mainBoard.getHash(), UNSOLVABLE);
+		}
+		else if (length == DEPTH_EXCEEDED && maxDepth >= depth) {
+			// every solution needs more moves than the search was allowed
+			cache.put(mainBoard.getHash(), ~(maxDepth - depth + 1));
+		}
+	}
 
-		return null;
+	/**
+	 * Get the length of a solve from a cache entry.
+	 * 
+	 * @param entry - the cache entry of the board
+	 * @param depth - the length of the path to the board
+	 * @param maxDepth - the max depth of the solve
+	 * @return The length the solve would find, or {@link SolveCache#MISSING}
+	 *         if the entry does not tell.
+	 */
+	static int getLength(int entry, int depth, int maxDepth) {
+		if (entry == SolveCache.MISSING) {
+			return SolveCache.MISSING;
+		}
+		if (entry == UNSOLVABLE) {
+			return UNSOLVABLE;
+		}
+		if (entry >= 0) {
+			return entry == 0 || depth + entry <= maxDepth ? depth + entry : DEPTH_EXCEEDED;
+		}
+		return depth + ~entry > maxDepth ? DEPTH_EXCEEDED : SolveCache.MISSING;
 	}
 
 	/**
-	 * Is this board a winner. A winner is defined as a board that has the
-	 * prisoner able to move off the board to the right in the third row.
+	 * Does a cache entry tell more about a board than another.
 	 * 
-	 * @param board - the board in question
-	 * @return {@code true} if there exists no blocks between prisoner's x
-	 *         coordinates and the exit at [2,5]. {@code false} otherwise.
+	 * @param entry - the new entry
+	 * @param stored - the entry stored
+	 * @return {@code true} if the new entry is exact and the stored one is not,
+	 *         or both are lower bounds and the new one is higher.
+	 *         {@code false} otherwise.
 	 */
-	private boolean isWinner(Board board) {
+	static boolean tellsMore(int entry, int stored) {
+		if (stored >= 0 || stored == UNSOLVABLE) {
+			return false;
+		}
+		return entry >= 0 || entry == UNSOLVABLE || ~entry > ~stored;
+	}
 
-		// find the prisoner on this board
-		Block prisoner = null;
-		for (Block b : board.getBlocks()) {
-			if (b.getKind() == TileKind.PRISONER) {
-				prisoner = b;
-				break;
-			}
+	/**
+	 * Records a solve rejected by the {@link DeadlockDetector}.
+	 * 
+	 * @return The statistics of the solve, which expanded nothing.
+	 */
+	private SolveStatistics recordDeadlock() {
+		SolveStatistics statistics = new SolveStatistics(UNSOLVABLE, 0, 0, 0, 0, 0, 0, new long[0]);
+		this.metrics.record(statistics);
+		this.metrics.recordDeadlock();
+		return statistics;
+	}
+
+	/**
+	 * Get the states along the path to a state.
+	 * 
+	 * @param parents - the state each visited state arises from, where the
+	 *            first state arises from {@link BoardLayout#NO_STATE}
+	 * @param state - the last state of the path
+	 * @return The states from the first state up to the given state.
+	 */
+	protected static long[] getPath(StateTable parents, long state) {
+		int length = 0;
+		for (long s = state; s != BoardLayout.NO_STATE; s = parents.get(s, BoardLayout.NO_STATE)) {
+			length++;
 		}
 
-		// check if he can move all the way over
-		for (int x = prisoner.getX(); x < board.getGameboard().length; x++) {
-			if (board.getGameboard()[prisoner.getY()][x] > 1) {
-				return false;
-			}
+		long[] states = new long[length];
+		for (long s = state; s != BoardLayout.NO_STATE; s = parents.get(s, BoardLayout.NO_STATE)) {
+			states[--length] = s;
 		}
+		return states;
+	}
 
-		return true;
+	/**
+	 * Constructs the boards along a path of states.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param mainBoard - the board of the first state
+	 * @param states - the states, starting with the state of mainBoard
+	 * @return The path of the board of the last state.
+	 */
+	private List<Board> toPath(BoardLayout layout, Board mainBoard, long[] states) {
+		Board board = mainBoard;
+		for (int i = 1; i < states.length; i++) {
+			board = layout.toBoard(states[i], board.getPath());
+		}
+		return board.getPath();
 	}
 }
@@ -0,0 +1,87 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * The search algorithms a {@link Solver} can run. Every kind finds the same
+ * path lengths, they only differ in how fast and with how much memory.
+ */
+public enum SolverKind {
+
+	/** Breadth first search, see {@link Solver} */
+	BFS("bfs"),
+	/** Search from both ends, see {@link BidirectionalSolver} */
+	BIDIRECTIONAL("bidirectional"),
+	/** Best first search, see {@link AStarSolver} */
+	ASTAR("astar"),
+	/** Iterative deepening best first search, see {@link IDAStarSolver} */
+	IDASTAR("idastar"),
+	/** Breadth first search on every core, see {@link ParallelSolver} */
+	PARALLEL("parallel");
+
+	/** The name of the kind on the command line */
+	private final String name;
+
+	SolverKind(String name) {
+		this.name = name;
+	}
+
+	/**
+	 * Get the name of this kind on the command line.
+	 * 
+	 * @return The name of the kind.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Construct a new solver of this kind, with its default settings.
+	 * 
+	 * @return The new solver.
+	 */
+	public Solver newSolver() {
+		switch (this) {
+			case BIDIRECTIONAL:
+				return new BidirectionalSolver();
+			case ASTAR:
+				return new AStarSolver();
+			case IDASTAR:
+				return new IDAStarSolver();
+			case PARALLEL:
+				return new ParallelSolver();
+			default:
+				return new Solver();
+		}
+	}
+
+	/**
+	 * Get the kind of solver with a name.
+	 * 
+	 * @param name - the name of the kind, ignoring case
+	 * @return The kind with the name.
+	 * @throws IllegalArgumentException if no kind has the name.
+	 */
+	public static SolverKind forName(String name) {
+		for (SolverKind kind : values()) {
+			if (kind.name.equalsIgnoreCase(name)) {
+				return kind;
+			}
+		}
+		throw new IllegalArgumentException("Unknown solver " + name + ", expected one of " + getNames());
+	}
+
+	/**
+	 * Get the names of every kind, for usage messages.
+	 * 
+	 * @return The names, separated by a comma.
+	 */
+	public static String getNames() {
+		StringBuilder names = new StringBuilder();
+		for (SolverKind kind : values()) {
+			if (names.length() > 0) {
+				names.append(", ");
+			}
+			names.append(kind.name);
+		}
+		return names.toString();
+	}
+}
@@ -0,0 +1,302 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counters and histograms of every solve recorded into them, safe to update
+ * from any amount of threads. Every solver records into the
+ * {@link #getDefault() default metrics} unless given others, which can be
+ * read through JMX once {@link #register(String)} is called.
+ */
+public class SolverMetrics implements SolverMetricsMBean {
+
+	/** The name the default metrics are registered under */
+	public static final String DEFAULT_NAME = "me.sbahr.unblockmegenerator:type=SolverMetrics";
+	/** The amount of buckets of each histogram */
+	private static final int BUCKETS = 48;
+
+	/** The metrics every solver records into by default */
+	private static final SolverMetrics DEFAULT = new SolverMetrics();
+
+	/** The amount of solves */
+	private final LongAdder solves = new LongAdder();
+	/** The amount of solves that found a solution */
+	private final LongAdder solved = new LongAdder();
+	/** The amount of solves that proved there is no solution */
+	private final LongAdder unsolvable = new LongAdder();
+	/** The amount of solves rejected without a search */
+	private final LongAdder deadlocked = new LongAdder();
+	/** The amount of solves answered by a cache without a search */
+	private final LongAdder cacheHits = new LongAdder();
+	/** The amount of solves stopped by their max depth */
+	private final LongAdder depthExceeded = new LongAdder();
+	/** The amount of solves stopped by their budget */
+	private final LongAdder budgetExceeded = new LongAdder();
+	/** The amount of solves that were cancelled */
+	private final LongAdder cancelled = new LongAdder();
+	/** The amount of states expanded */
+	private final LongAdder expanded = new LongAdder();
+	/** The amount of successors generated */
+	private final LongAdder generated = new LongAdder();
+	/** The amount of successors already seen */
+	private final LongAdder duplicates = new LongAdder();
+	/** The time of every solve, in nanoseconds */
+	private final LongAdder time = new LongAdder();
+	/** The amount of boards explored by traversals */
+	private final LongAdder traversedBoards = new LongAdder();
+	/** The largest frontier of any solve */
+	private final AtomicLong peakFrontier = new AtomicLong();
+	/** The largest visited set of any solve */
+	private final AtomicLong peakVisited = new AtomicLong();
+	/** Solves by the log2 of the states they expanded */
+	private final AtomicLongArray expandedHistogram = new AtomicLongArray(BUCKETS);
+	/** Solves by the log2 of their time in microseconds */
+	private final AtomicLongArray timeHistogram = new AtomicLongArray(BUCKETS);
+
+	/**
+	 * Get the metrics every solver records into by default.
+	 * 
+	 * @return The default metrics.
+	 */
+	public static SolverMetrics getDefault() {
+		return DEFAULT;
+	}
+
+	/**
+	 * Records the statistics of a solve.
+	 * 
+	 * @param statistics - the statistics of the solve
+	 */
+	public void record(SolveStatistics statistics) {
+		count(statistics.getLength());
+		this.expanded.add(statistics.getExpanded());
+		this.generated.add(statistics.getGenerated());
+		this.duplicates.add(statistics.getDuplicates());
+		this.time.add(statistics.getElapsed());
+		max(this.peakFrontier, statistics.getPeakFrontier());
+		max(this.peakVisited, statistics.getPeakVisited());
+		this.expandedHistogram.incrementAndGet(getBucket(statistics.getExpanded()));
+		this.timeHistogram.incrementAndGet(getBucket(statistics.getElapsed() / 1000));
+	}
+
+	/**
+	 * Records that a solve was rejected by the {@link DeadlockDetector}
+	 * without a search, on top of its statistics.
+	 */
+	public void recordDeadlock() {
+		this.deadlocked.increment();
+	}
+
+	/**
+	 * Records a solve answered by a {@link SolveCache} without a search. It
+	 * counts as a solve with its result, but is left out of the histograms.
+	 * 
+	 * @param length - the length of the solution, or why there is none
+	 */
+	public void recordCacheHit(int length) {
+		count(length);
+		this.cacheHits.increment();
+	}
+
+	/**
+	 * Records boards explored while traversing the boards around a board.
+	 * 
+	 * @param boards - the amount of boards explored
+	 */
+	public void recordTraversal(int boards) {
+		this.traversedBoards.add(boards);
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server.
+	 * 
+	 * @param name - the object name to register under, such as
+	 *            {@link #DEFAULT_NAME}
+	 * @throws IllegalStateException if the metrics could not be registered
+	 */
+	public void register(String name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(name));
+		}
+		catch (JMException exc) {
+			throw new IllegalStateException("Could not register the solver metrics as " + name, exc);
+		}
+	}
+
+	@Override
+	public long getSolves() {
+		return this.solves.sum();
+	}
+
+	@Override
+	public long getSolved() {
+		return this.solved.sum();
+	}
+
+	@Override
+	public long getUnsolvable() {
+		return this.unsolvable.sum();
+	}
+
+	@Override
+	public long getDeadlocked() {
+		return this.deadlocked.sum();
+	}
+
+	@Override
+	public long getCacheHits() {
+		return this.cacheHits.sum();
+	}
+
+	@Override
+	public long getDepthExceeded() {
+		return this.depthExceeded.sum();
+	}
+
+	@Override
+	public long getBudgetExceeded() {
+		return this.budgetExceeded.sum();
+	}
+
+	@Override
+	public long getCancelled() {
+		return this.cancelled.sum();
+	}
+
+	@Override
+	public long getExpanded() {
+		return this.expanded.sum();
+	}
+
+	@Override
+	public long getGenerated() {
+		return this.generated.sum();
+	}
+
+	@Override
+	public long getDuplicates() {
+		return this.duplicates.sum();
+	}
+
+	@Override
+	public long getPeakFrontier() {
+		return this.peakFrontier.get();
+	}
+
+	@Override
+	public long getPeakVisited() {
+		return this.peakVisited.get();
+	}
+
+	@Override
+	public long getSolveTimeMillis() {
+		return this.time.sum() / 1000000;
+	}
+
+	@Override
+	public long getTraversedBoards() {
+		return this.traversedBoards.sum();
+	}
+
+	@Override
+	public long[] getExpandedHistogram() {
+		return toArray(this.expandedHistogram);
+	}
+
+	@Override
+	public long[] getTimeHistogram() {
+		return toArray(this.timeHistogram);
+	}
+
+	@Override
+	public void reset() {
+		this.solves.reset();
+		this.solved.reset();
+		this.unsolvable.reset();
+		this.deadlocked.reset();
+		this.cacheHits.reset();
+		this.depthExceeded.reset();
+		this.budgetExceeded.reset();
+		this.cancelled.reset();
+		this.expanded.reset();
+		this.generated.reset();
+		this.duplicates.reset();
+		this.time.reset();
+		this.traversedBoards.reset();
+		this.peakFrontier.set(0);
+		this.peakVisited.set(0);
+		for (int i = 0; i < BUCKETS; i++) {
+			this.expandedHistogram.set(i, 0);
+			this.timeHistogram.set(i, 0);
+		}
+	}
+
+	/**
+	 * Counts a solve by its result.
+	 * 
+	 * @param length - the length of the solution, or why there is none
+	 */
+	private void count(int length) {
+		this.solves.increment();
+		switch (length) {
+			case Solver.UNSOLVABLE:
+				this.unsolvable.increment();
+				break;
+			case Solver.DEPTH_EXCEEDED:
+				this.depthExceeded.increment();
+				break;
+			case Solver.BUDGET_EXCEEDED:
+				this.budgetExceeded.increment();
+				break;
+			case Solver.CANCELLED:
+				this.cancelled.increment();
+				break;
+			default:
+				this.solved.increment();
+		}
+	}
+
+	/**
+	 * Raises a counter to a value, if the value is larger.
+	 * 
+	 * @param counter - the counter
+	 * @param value - the value
+	 */
+	private static void max(AtomicLong counter, long value) {
+		long current = counter.get();
+		while (value > current && !counter.compareAndSet(current, value)) {
+			current = counter.get();
+		}
+	}
+
+	/**
+	 * Get the histogram bucket of a value.
+	 * 
+	 * @param value - the value
+	 * @return The amount of bits needed by the value, capped to the last
+	 *         bucket.
+	 */
+	private static int getBucket(long value) {
+		return Math.min(BUCKETS - 1, Long.SIZE - Long.numberOfLeadingZeros(Math.max(value, 0)));
+	}
+
+	/**
+	 * Get a copy of a histogram.
+	 * 
+	 * @param histogram - the histogram
+	 * @return A new array of the buckets of the histogram.
+	 */
+	private static long[] toArray(AtomicLongArray histogram) {
+		long[] buckets = new long[histogram.length()];
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i] = histogram.get(i);
+		}
+		return buckets;
+	}
+}
@@ -0,0 +1,137 @@
+package me.sbahr.unblockmegenerator.solver;
+
+/**
+ * Management interface of {@link SolverMetrics}, as seen through JMX.
+ */
+public interface SolverMetricsMBean {
+
+	/**
+	 * Get the amount of solves recorded.
+	 * 
+	 * @return The amount of solves recorded.
+	 */
+	long getSolves();
+
+	/**
+	 * Get the amount of solves that found a solution.
+	 * 
+	 * @return The amount of solves that found a solution.
+	 */
+	long getSolved();
+
+	/**
+	 * Get the amount of solves that proved there is no solution.
+	 * 
+	 * @return The amount of solves that proved there is no solution.
+	 */
+	long getUnsolvable();
+
+	/**
+	 * Get the amount of solves rejected by the {@link DeadlockDetector} without
+	 * searching.
+	 * 
+	 * @return The amount of solves rejected by the {@link DeadlockDetector}
+	 *         without searching.
+	 */
+	long getDeadlocked();
+
+	/**
+	 * Get the amount of solves answered by a cache without searching.
+	 * 
+	 * @return The amount of solves answered by a cache without searching.
+	 */
+	long getCacheHits();
+
+	/**
+	 * Get the amount of solves stopped by their max depth.
+	 * 
+	 * @return The amount of solves stopped by their max depth.
+	 */
+	long getDepthExceeded();
+
+	/**
+	 * Get the amount of solves stopped by their budget.
+	 * 
+	 * @return The amount of solves stopped by their budget.
+	 */
+	long getBudgetExceeded();
+
+	/**
+	 * Get the amount of solves that were cancelled.
+	 * 
+	 * @return The amount of solves that were cancelled.
+	 */
+	long getCancelled();
+
+	/**
+	 * Get the amount of states expanded by every solve.
+	 * 
+	 * @return The amount of states expanded by every solve.
+	 */
+	long getExpanded();
+
+	/**
+	 * Get the amount of successors generated by every solve.
+	 * 
+	 * @return The amount of successors generated by every solve.
+	 */
+	long getGenerated();
+
+	/**
+	 * Get the amount of successors every solve had already seen.
+	 * 
+	 * @return The amount of successors every solve had already seen.
+	 */
+	long getDuplicates();
+
+	/**
+	 * Get the largest frontier of any solve.
+	 * 
+	 * @return The largest frontier of any solve.
+	 */
+	long getPeakFrontier();
+
+	/**
+	 * Get the largest visited set of any solve.
+	 * 
+	 * @return The largest visited set of any solve.
+	 */
+	long getPeakVisited();
+
+	/**
+	 * Get the time of every solve, in milliseconds.
+	 * 
+	 * @return The time of every solve, in milliseconds.
+	 */
+	long getSolveTimeMillis();
+
+	/**
+	 * Get the amount of boards explored by {@code Board.traverse}.
+	 * 
+	 * @return The amount of boards explored by {@code Board.traverse}.
+	 */
+	long getTraversedBoards();
+
+	/**
+	 * Get the amount of solves by states expanded, where element i counts solves
+	 * that expanded below 2^i states.
+	 * 
+	 * @return The amount of solves by states expanded, where element i counts
+	 *         solves that expanded below 2^i states.
+	 */
+	long[] getExpandedHistogram();
+
+	/**
+	 * Get the amount of solves by time, where element i counts solves that took
+	 * below 2^i microseconds.
+	 * 
+	 * @return The amount of solves by time, where element i counts solves that
+	 *         took below 2^i microseconds.
+	 */
+	long[] getTimeHistogram();
+
+	/**
+	 * Sets every counter back to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,123 @@
+package me.sbahr.unblockmegenerator.util;
+
+/**
+ * Thread-safe version of {@link StateTable}. Keys are spread over a fixed
+ * amount of segments, each a {@link StateTable} guarded by its own lock, so
+ * threads working on different keys rarely wait on each other.
+ */
+public class ConcurrentStateTable {
+
+	/** The amount of bits used to pick a segment */
+	private static final int SEGMENT_BITS = 6;
+	/** Multiplier used to pick a segment, different from the one of the table */
+	private static final long MIX = 0xC2B2AE3D27D4EB4FL;
+
+	/** The segments of this table */
+	private final StateTable[] segments;
+
+	/**
+	 * Construct a new, empty table.
+	 */
+	public ConcurrentStateTable() {
+		this.segments = new StateTable[1 << SEGMENT_BITS];
+		for (int i = 0; i < this.segments.length; i++) {
+			this.segments[i] = new StateTable();
+		}
+	}
+
+	/**
+	 * Stores the value for a key, if the key is not already in the table.
+	 * 
+	 * @param key - the key
+	 * @param value - the value
+	 * @return {@code true} if the key was added. {@code false} if it was
+	 *         already in the table, in which case the table is unchanged.
+	 */
+	public boolean putIfAbsent(long key, long value) {
+		StateTable segment = getSegment(key);
+		synchronized (segment) {
+			return segment.putIfAbsent(key, value);
+		}
+	}
+
+	/**
+	 * Stores the value for a key, replacing any previous value.
+	 * 
+	 * @param key - the key
+	 * @param value - the value
+	 */
+	public void put(long key, long value) {
+		StateTable segment = getSegment(key);
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+
+	/**
+	 * Stores the value for a key, if the key is not in the table yet or its
+	 * value is larger.
+	 * 
+	 * @param key - the key
+	 * @param value - the value
+	 */
+	public void putMin(long key, long value) {
+		StateTable segment = getSegment(key);
+		synchronized (segment) {
+			if (value < segment.get(key, Long.MAX_VALUE)) {
+				segment.put(key, value);
+			}
+		}
+	}
+
+	/**
+	 * Get the value of a key.
+	 * 
+	 * @param key - the key
+	 * @param defaultValue - the value to return if the key is not stored
+	 * @return The value of the key, or defaultValue if there is none.
+	 */
+	public long get(long key, long defaultValue) {
+		StateTable segment = getSegment(key);
+		synchronized (segment) {
+			return segment.get(key, defaultValue);
+		}
+	}
+
+	/**
+	 * Is the key in this table.
+	 * 
+	 * @param key - the key
+	 * @return {@code true} if the key is stored. {@code false} otherwise.
+	 */
+	public boolean contains(long key) {
+		StateTable segment = getSegment(key);
+		synchronized (segment) {
+			return segment.contains(key);
+		}
+	}
+
+	/**
+	 * Get the amount of entries in this table.
+	 * 
+	 * @return The amount of keys stored.
+	 */
+	public int size() {
+		int size = 0;
+		for (StateTable segment : this.segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * Get the segment a key belongs to.
+	 * 
+	 * @param key - the key
+	 * @return The segment of the key.
+	 */
+	private StateTable getSegment(long key) {
+		return this.segments[(int) ((key * MIX) >>> (Long.SIZE - SEGMENT_BITS))];
+	}
+}
@@ -0,0 +1,92 @@
+package me.sbahr.unblockmegenerator.util;
+
+import java.util.NoSuchElementException;
+
+/**
+ * First-in first-out queue of longs, backed by a ring buffer that grows as
+ * needed.
+ */
+public class LongQueue {
+
+	/** Elements of the queue */
+	private long[] elements;
+	/** Index of the first element */
+	private int head;
+	/** Amount of elements in the queue */
+	private int size;
+
+	/**
+	 * Construct a new, empty queue.
+	 */
+	public LongQueue() {
+		this(64);
+	}
+
+	/**
+	 * Construct a new, empty queue that holds the given amount of elements
+	 * without growing.
+	 * 
+	 * @param capacity - the initial capacity
+	 */
+	public LongQueue(int capacity) {
+		this.elements = new long[Integer.highestOneBit(Math.max(capacity, 8) * 2 - 1)];
+	}
+
+	/**
+	 * Adds an element to the back of the queue.
+	 * 
+	 * @param element - the element to add
+	 */
+	public void add(long element) {
+		if (this.size == this.elements.length) {
+			long[] grown = new long[this.elements.length * 2];
+			int first = this.elements.length - this.head;
+			System.arraycopy(this.elements, this.head, grown, 0, first);
+			System.arraycopy(this.elements, 0, grown, first, this.head);
+			this.elements = grown;
+			this.head = 0;
+		}
+		this.elements[(this.head + this.size++) & (this.elements.length - 1)] = element;
+	}
+
+	/**
+	 * Removes the element at the front of the queue.
+	 * 
+	 * @return The element that was at the front of the queue.
+	 */
+	public long poll() {
+		if (this.size == 0) {
+			throw new NoSuchElementException("Queue is empty");
+		}
+		long element = this.elements[this.head];
+		this.head = (this.head + 1) & (this.elements.length - 1);
+		this.size--;
+		return element;
+	}
+
+	/**
+	 * Is this queue empty.
+	 * 
+	 * @return {@code true} if there are no elements. {@code false} otherwise.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Get the amount of elements in this queue.
+	 * 
+	 * @return The amount of elements.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes every element from this queue.
+	 */
+	public void clear() {
+		this.head = 0;
+		this.size = 0;
+	}
+}
@@ -1,7 +1,9 @@
 package me.sbahr.unblockmegenerator.util;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import me.sbahr.unblockmegenerator.component.Block;
 import me.sbahr.unblockmegenerator.component.Board;
@@ -73,13 +75,98 @@ public class PuzzleUtils {
 		return 0;
 	}
 
+	/**
+	 * Writes the blocks of a board as a single line of text, one block after
+	 * the other separated by spaces. Each block is written as its id, y and x
+	 * coordinates, 1 if horizontal else 0, 1 if the prisoner else 0, and its
+	 * length, separated by commas.
+	 * 
+	 * @param board - the board to write
+	 * 
+	 * @return The text representation of the blocks on the board.
+	 */
+	public static String serialize(Board board) {
+		StringBuilder builder = new StringBuilder();
+
+		for (Block b : board.getBlocks()) {
+			if (builder.length() > 0) {
+				builder.append(' ');
+			}
+			builder.append(b.getId()).append(',');
+			builder.append(b.getY()).append(',');
+			builder.append(b.getX()).append(',');
+			builder.append(b.isHorizontal() ? 1 : 0).append(',');
+			builder.append(b.getKind() == TileKind.PRISONER ? 1 : 0).append(',');
+			builder.append(b.getLength());
+		}
+
+		return builder.toString();
+	}
+
+	/**
+	 * Reads a board written by {@link #serialize(Board)}.
+	 * 
+	 * @param text - the text representation of the blocks
+	 * 
+	 * @return A new Board with an empty path.
+	 * @throws IllegalArgumentException if the text is not a valid board.
+	 */
+	public static Board deserialize(String text) {
+		List<Block> blocks = new ArrayList<Block>();
+
+		for (String block : text.trim().split("\\s+")) {
+			String[] fields = block.split(",");
+			if (fields.length != 6) {
+				throw new IllegalArgumentException("Invalid block: " + block);
+			}
+
+			try {
+				byte id = Byte.parseByte(fields[0]);
+				int y = Integer.parseInt(fields[1]);
+				int x = Integer.parseInt(fields[2]);
+				boolean isHorizontal = Integer.parseInt(fields[3]) == 1;
+				TileKind kind = Integer.parseInt(fields[4]) == 1 ? TileKind.PRISONER : TileKind.BLOCK;
+				int length = Integer.parseInt(fields[5]);
+
+				blocks.add(new Block(id, y, x, isHorizontal, kind, length));
+			}
+			catch (NumberFormatException exc) {
+				throw new IllegalArgumentException("Invalid block: " + block, exc);
+			}
+		}
+
+		return new Board(blocks, new ArrayList<Board>());
+	}
+
+	/**
+	 * Get every reference board, each with a known shortest solution.
+	 * 
+	 * @return A new map of new boards by the name of their method, from the
+	 *         easiest to the hardest.
+	 */
+	public static Map<String, Board> getReferenceBoards() {
+		Map<String, Board> boards = new LinkedHashMap<String, Board>();
+		boards.put("TestBoardB", getTestBoardB());
+		boards.put("TestBoardA", getTestBoardA());
+		boards.put("TestBoardC", getTestBoardC());
+		boards.put("Beginner1", getBoardBeginner1());
+		boards.put("Beginner2", getBoardBeginner2());
+		boards.put("Moderate1", getBoardModerate1());
+		boards.put("Moderate2", getBoardModerate2());
+		boards.put("Advanced1", getBoardAdvanced1());
+		boards.put("Advanced2", getBoardAdvanced2());
+		boards.put("Expert2", getBoardExpert2());
+		boards.put("Expert1", getBoardExpert1());
+		return boards;
+	}
+
 	/**
 	 * Get a test board to try out. This board features a path length of 5. The
 	 * amount of blocks on this board: 5
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getTestBoardA() {
+	public static Board getTestBoardA() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -99,7 +186,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getTestBoardB() {
+	public static Board getTestBoardB() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -119,7 +206,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getTestBoardC() {
+	public static Board getTestBoardC() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -146,7 +233,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardBeginner1() {
+	public static Board getBoardBeginner1() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -172,7 +259,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardBeginner2() {
+	public static Board getBoardBeginner2() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -196,12 +283,12 @@ public class PuzzleUtils {
 	}
 
 	/**
-	 * This board features a path length of 22. The amount of blocks on this
+	 * This board features a path length of 21. The amount of blocks on this
 	 * board: 11
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardModerate1() {
+	public static Board getBoardModerate1() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -227,7 +314,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardModerate2() {
+	public static Board getBoardModerate2() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -253,7 +340,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardAdvanced1() {
+	public static Board getBoardAdvanced1() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -278,7 +365,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardAdvanced2() {
+	public static Board getBoardAdvanced2() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -303,7 +390,7 @@ public class PuzzleUtils {
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardExpert1() {
+	public static Board getBoardExpert1() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -327,12 +414,12 @@ public class PuzzleUtils {
 	}
 
 	/**
-	 * This board features a path length of 33. The amount of blocks on this
+	 * This board features a path length of 32. The amount of blocks on this
 	 * board: 12
 	 * 
 	 * @return A new Board.
 	 */
-	private static Board getBoardExpert2() {
+	public static Board getBoardExpert2() {
 
 		List<Block> possibleBlocks = new ArrayList<Block>();
 		List<Board> path = new ArrayList<Board>();
@@ -0,0 +1,177 @@
+package me.sbahr.unblockmegenerator.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table from packed states to a long value, such as the
+ * state it was reached from. Keys and values are stored in flat primitive
+ * arrays, so an entry costs 16 bytes plus the free slots of the table.
+ * <p>
+ * The key {@link #EMPTY} marks free slots and cannot be stored, which is fine
+ * for packed states as they never use the sign bit.
+ * </p>
+ */
+public class StateTable {
+
+	/** The key of a free slot */
+	public static final long EMPTY = -1L;
+	/** Multiplier used to spread the bits of a key */
+	private static final long MIX = 0x9E3779B97F4A7C15L;
+
+	/** Keys of the table, EMPTY where free */
+	private long[] keys;
+	/** Values of the table */
+	private long[] values;
+	/** Amount of entries in the table */
+	private int size;
+	/** Shift to turn a mixed key into a slot */
+	private int shift;
+
+	/**
+	 * Construct a new, empty table.
+	 */
+	public StateTable() {
+		this(64);
+	}
+
+	/**
+	 * Construct a new, empty table that holds the given amount of entries
+	 * without resizing.
+	 * 
+	 * @param expected - the expected amount of entries
+	 */
+	public StateTable(int expected) {
+		int capacity = Integer.highestOneBit(Math.max(expected, 8) * 2 - 1) << 1;
+		allocate(capacity);
+	}
+
+	/**
+	 * Stores the value for a key, if the key is not already in the table.
+	 * 
+	 * @param key - the key
+	 * @param value - the value
+	 * @return {@code true} if the key was added. {@code false} if it was
+	 *         already in the table, in which case the table is unchanged.
+	 */
+	public boolean putIfAbsent(long key, long value) {
+		int slot = find(key);
+		if (this.keys[slot] == key) {
+			return false;
+		}
+		insert(slot, key, value);
+		return true;
+	}
+
+	/**
+	 * Stores the value for a key, replacing any previous value.
+	 * 
+	 * @param key - the key
+	 * @param value - the value
+	 */
+	public void put(long key, long value) {
+		int slot = find(key);
+		if (this.keys[slot] == key) {
+			this.values[slot] = value;
+		}
+		else {
+			insert(slot, key, value);
+		}
+	}
+
+	/**
+	 * Get the value of a key.
+	 * 
+	 * @param key - the key
+	 * @param defaultValue - the value to return if the key is not stored
+	 * @return The value of the key, or defaultValue if there is none.
+	 */
+	public long get(long key, long defaultValue) {
+		int slot = find(key);
+		return this.keys[slot] == key ? this.values[slot] : defaultValue;
+	}
+
+	/**
+	 * Is the key in this table.
+	 * 
+	 * @param key - the key
+	 * @return {@code true} if the key is stored. {@code false} otherwise.
+	 */
+	public boolean contains(long key) {
+		return this.keys[find(key)] == key;
+	}
+
+	/**
+	 * Get the amount of entries in this table.
+	 * 
+	 * @return The amount of keys stored.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Removes every entry from this table.
+	 */
+	public void clear() {
+		Arrays.fill(this.keys, EMPTY);
+		this.size = 0;
+	}
+
+	/**
+	 * Find the slot of a key, or the free slot where it would go.
+	 * 
+	 * @param key - the key
+	 * @return The slot of the key.
+	 */
+	private int find(long key) {
+		if (key == EMPTY) {
+			throw new IllegalArgumentException("Cannot store the empty key");
+		}
+
+		int mask = this.keys.length - 1;
+		int slot = (int) ((key * MIX) >>> this.shift);
+		while (this.keys[slot] != EMPTY && this.keys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Insert a new entry into a free slot, growing the table when it becomes
+	 * half full.
+	 * 
+	 * @param slot - the free slot
+	 * @param key - the key
+	 * @param value - the value
+	 */
+	private void insert(int slot, long key, long value) {
+		this.keys[slot] = key;
+		this.values[slot] = value;
+
+		if (++this.size * 2 > this.keys.length) {
+			long[] oldKeys = this.keys;
+			long[] oldValues = this.values;
+			allocate(oldKeys.length * 2);
+
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) {
+					int s = find(oldKeys[i]);
+					this.keys[s] = oldKeys[i];
+					this.values[s] = oldValues[i];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Replaces the arrays with empty ones of the given capacity.
+	 * 
+	 * @param capacity - a power of two
+	 */
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new long[capacity];
+		this.shift = Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+		Arrays.fill(this.keys, EMPTY);
+	}
+}
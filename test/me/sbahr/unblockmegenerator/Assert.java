@@ -0,0 +1,68 @@
+package me.sbahr.unblockmegenerator;
+
+/**
+ * Checks made by the tests, each throwing an {@link AssertionError} that
+ * describes what failed.
+ */
+public final class Assert {
+
+	private Assert() {
+	}
+
+	/**
+	 * Checks that a condition holds.
+	 * 
+	 * @param message - what the condition means
+	 * @param condition - the condition
+	 */
+	public static void assertTrue(String message, boolean condition) {
+		if (!condition) {
+			fail(message);
+		}
+	}
+
+	/**
+	 * Checks that a condition does not hold.
+	 * 
+	 * @param message - what the condition means
+	 * @param condition - the condition
+	 */
+	public static void assertFalse(String message, boolean condition) {
+		assertTrue(message, !condition);
+	}
+
+	/**
+	 * Checks that two numbers are equal.
+	 * 
+	 * @param message - what the numbers are
+	 * @param expected - the expected number
+	 * @param actual - the number found
+	 */
+	public static void assertEquals(String message, long expected, long actual) {
+		if (expected != actual) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	/**
+	 * Checks that two objects are equal.
+	 * 
+	 * @param message - what the objects are
+	 * @param expected - the expected object, or {@code null}
+	 * @param actual - the object found, or {@code null}
+	 */
+	public static void assertEquals(String message, Object expected, Object actual) {
+		if (expected == null ? actual != null : !expected.equals(actual)) {
+			fail(message + ": expected " + expected + " but was " + actual);
+		}
+	}
+
+	/**
+	 * Fails the test.
+	 * 
+	 * @param message - why the test failed
+	 */
+	public static void fail(String message) {
+		throw new AssertionError(message);
+	}
+}
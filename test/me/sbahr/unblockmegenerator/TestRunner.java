@@ -0,0 +1,102 @@
+package me.sbahr.unblockmegenerator;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import me.sbahr.unblockmegenerator.component.BoardLayoutTest;
+import me.sbahr.unblockmegenerator.component.BoardTest;
+import me.sbahr.unblockmegenerator.generator.BatchGeneratorTest;
+import me.sbahr.unblockmegenerator.generator.EnumeratorTest;
+import me.sbahr.unblockmegenerator.generator.GeneratorTest;
+import me.sbahr.unblockmegenerator.generator.ShardedGeneratorTest;
+import me.sbahr.unblockmegenerator.solver.CandidateScorerTest;
+import me.sbahr.unblockmegenerator.solver.DeadlockDetectorTest;
+import me.sbahr.unblockmegenerator.solver.DistanceMapTest;
+import me.sbahr.unblockmegenerator.solver.IncrementalSolverTest;
+import me.sbahr.unblockmegenerator.solver.MappedSolveCacheTest;
+import me.sbahr.unblockmegenerator.solver.ParallelSolverTest;
+import me.sbahr.unblockmegenerator.solver.SolveCacheTest;
+import me.sbahr.unblockmegenerator.solver.SolverKindTest;
+import me.sbahr.unblockmegenerator.solver.SolverMetricsTest;
+import me.sbahr.unblockmegenerator.solver.SolverTest;
+import me.sbahr.unblockmegenerator.util.PuzzleUtilsTest;
+import me.sbahr.unblockmegenerator.util.StateTableTest;
+
+/**
+ * Runs the tests of the project. A test is a public method without
+ * parameters whose name starts with {@code test}, on a class with a public
+ * constructor without parameters; each test runs on a new instance.
+ * <p>
+ * The tests live in their own source root, {@code test}, and need nothing
+ * but the JDK. They are run with
+ * </p>
+ * 
+ * <pre>
+ * javac -d out $(find src me test -name '*.java')
+ * java -cp out me.sbahr.unblockmegenerator.TestRunner [filter]
+ * </pre>
+ */
+public class TestRunner {
+
+	/** Every class of tests */
+	private static final Class<?>[] TESTS = {
+			BoardLayoutTest.class,
+			BoardTest.class,
+			BatchGeneratorTest.class,
+			EnumeratorTest.class,
+			GeneratorTest.class,
+			ShardedGeneratorTest.class,
+			CandidateScorerTest.class,
+			DeadlockDetectorTest.class,
+			DistanceMapTest.class,
+			IncrementalSolverTest.class,
+			MappedSolveCacheTest.class,
+			ParallelSolverTest.class,
+			SolveCacheTest.class,
+			SolverKindTest.class,
+			SolverMetricsTest.class,
+			SolverTest.class,
+			PuzzleUtilsTest.class,
+			StateTableTest.class,
+	};
+
+	/**
+	 * Runs the tests whose class or method name contains a filter, exiting
+	 * with status 1 if any of them fails.
+	 * 
+	 * @param args - optionally, the filter on the test names
+	 * @throws Exception if a class of tests cannot be constructed.
+	 */
+	public static void main(String[] args) throws Exception {
+		String filter = args.length > 0 ? args[0] : "";
+		int run = 0;
+		int failed = 0;
+
+		for (Class<?> type : TESTS) {
+			for (Method method : type.getMethods()) {
+				String name = type.getSimpleName() + "." + method.getName();
+				if (!method.getName().startsWith("test") || method.getParameterTypes().length != 0 || Modifier.isStatic(method.getModifiers()) || !name.contains(filter)) {
+					continue;
+				}
+
+				run++;
+				long started = System.nanoTime();
+				try {
+					method.invoke(type.getConstructor().newInstance());
+					System.out.println("PASS " + name + " (" + (System.nanoTime() - started) / 1000000 + " ms)");
+				}
+				catch (InvocationTargetException exc) {
+					failed++;
+					System.out.println("FAIL " + name);
+					exc.getCause().printStackTrace(System.out);
+				}
+			}
+		}
+
+		System.out.println(run + " tests, " + failed + " failed");
+		if (failed > 0) {
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,254 @@
+package me.sbahr.unblockmegenerator.component;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks the moves of {@link BoardLayout} against moves made cell by cell on
+ * a grid, the way {@link Board} made them before boards were packed.
+ */
+public class BoardLayoutTest {
+
+	/** The amount of random moves made from each reference board */
+	private static final int WALK_LENGTH = 200;
+
+	public void testEncodeDecode() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			List<Block> decoded = layout.decode(layout.encode(board.getBlocks()));
+			assertEquals("blocks of " + board.getBlocks(), board.getBlocks(), decoded);
+		}
+	}
+
+	public void testNextStatesMatchGrid() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			long state = layout.encode(board.getBlocks());
+			List<Long> expected = getGridStates(layout, board.getBlocks(), false);
+
+			long[] next = new long[layout.getMaxSuccessors()];
+			int count = layout.getNextStates(state, next);
+			assertEquals("successors of " + board.getBlocks(), expected, toList(next, count));
+			assertEquals("successors of the previous states", expected, toList(next, layout.getPreviousStates(state, next)));
+		}
+	}
+
+	public void testNextStatesKeepFarthestSlides() {
+		// the moves before full moves were added are still there
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			List<Long> all = getGridStates(layout, board.getBlocks(), false);
+			List<Long> slides = getGridStates(layout, board.getBlocks(), true);
+			assertTrue("slides to the end of " + board.getBlocks(), all.containsAll(slides));
+		}
+	}
+
+	public void testNeighbourStatesMatchGrid() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			long state = layout.encode(board.getBlocks());
+			List<Long> expected = new ArrayList<Long>();
+			boolean[][] grid = getGrid(board.getBlocks());
+			for (int i = 0; i < board.getBlocks().size(); i++) {
+				Block b = board.getBlocks().get(i);
+				int pos = b.isHorizontal ? b.x : b.y;
+				if (isFree(grid, b, pos - 1)) {
+					expected.add(layout.setPosition(state, i, pos - 1));
+				}
+				if (isFree(grid, b, pos + 1)) {
+					expected.add(layout.setPosition(state, i, pos + 1));
+				}
+			}
+
+			long[] next = new long[layout.getMaxSuccessors()];
+			assertEquals("neighbours of " + board.getBlocks(), expected, toList(next, layout.getNeighbourStates(state, next)));
+		}
+	}
+
+	public void testBoardsMatchStates() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			long state = layout.encode(board.getBlocks());
+			long[] next = new long[layout.getMaxSuccessors()];
+			int count = layout.getNextStates(state, next);
+
+			final List<Long> visited = new ArrayList<Long>();
+			final BoardLayout visitedLayout = layout;
+			board.visitNextPossibleBoards(new BoardVisitor() {
+
+				@Override
+				public boolean visit(Board child) {
+					visited.add(visitedLayout.encode(child.getBlocks()));
+					return true;
+				}
+			});
+			assertEquals("visited boards of " + board.getBlocks(), toList(next, count), visited);
+
+			List<Board> children = board.getNextPossibleBoards();
+			assertEquals("boards of " + board.getBlocks(), count, children.size());
+			for (int i = 0; i < count; i++) {
+				Board child = children.get(i);
+				assertEquals("board " + i + " of " + board.getBlocks(), next[i], layout.encode(child.getBlocks()));
+				assertEquals("hash of board " + i, Zobrist.hash(child.getBlocks()), child.getHash());
+				assertEquals("path of board " + i, board.getPath().size() + 1, child.getPath().size());
+			}
+		}
+	}
+
+	public void testMovesMatchStates() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			long state = layout.encode(board.getBlocks());
+			long[] next = new long[layout.getMaxSuccessors()];
+			int count = layout.getNextStates(state, next);
+
+			SearchState search = new SearchState(layout, state);
+			int[] moves = new int[layout.getMaxSuccessors()];
+			assertEquals("moves of " + board.getBlocks(), count, search.getMoves(moves));
+			for (int i = 0; i < count; i++) {
+				assertEquals("state of move " + i, next[i], search.getNextState(moves[i]));
+
+				search.apply(moves[i]);
+				assertEquals("state after move " + i, next[i], search.getState());
+				assertEquals("occupancy after move " + i, layout.getOccupancy(next[i]), search.getOccupancy());
+				assertEquals("winner after move " + i, layout.isWinner(next[i]), search.isWinner());
+				search.undo(moves[i]);
+				assertEquals("state after undoing move " + i, state, search.getState());
+				assertEquals("occupancy after undoing move " + i, layout.getOccupancy(state), search.getOccupancy());
+			}
+		}
+	}
+
+	public void testWinnerMatchesGrid() {
+		for (Board board : getBoards()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			boolean[][] grid = getGrid(board.getBlocks());
+			Block prisoner = board.getBlocks().get(layout.getPrisoner());
+
+			boolean free = true;
+			for (int x = prisoner.x + prisoner.length; x < BoardLayout.SIZE; x++) {
+				free &= !grid[prisoner.y][x];
+			}
+			assertEquals("winner " + board.getBlocks(), free, layout.isWinner(layout.encode(board.getBlocks())));
+		}
+	}
+
+	/**
+	 * Get the reference boards, and the boards of random moves from each.
+	 * 
+	 * @return The boards to check.
+	 */
+	private static List<Board> getBoards() {
+		SplittableRandom random = new SplittableRandom(7);
+		List<Board> boards = new ArrayList<Board>();
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			List<Block> blocks = board.getBlocks();
+			for (int i = 0; i < WALK_LENGTH; i++) {
+				boards.add(new Board(blocks, new ArrayList<Board>()));
+				List<Long> next = getGridStates(layout, blocks, false);
+				blocks = layout.decode(next.get(random.nextInt(next.size())));
+			}
+		}
+		return boards;
+	}
+
+	/**
+	 * Get the states that arise from sliding one block, found by moving it
+	 * cell by cell on a grid.
+	 * 
+	 * @param layout - the layout of the blocks
+	 * @param blocks - the blocks
+	 * @param farthest - {@code true} to only slide each block as far as it
+	 *            goes, {@code false} to stop at every free position
+	 * @return The states, for each block from its leftmost (topmost) position
+	 *         to its rightmost (bottommost).
+	 */
+	private static List<Long> getGridStates(BoardLayout layout, List<Block> blocks, boolean farthest) {
+		boolean[][] grid = getGrid(blocks);
+		long state = layout.encode(blocks);
+		List<Long> states = new ArrayList<Long>();
+
+		for (int i = 0; i < blocks.size(); i++) {
+			Block b = blocks.get(i);
+			int pos = b.isHorizontal ? b.x : b.y;
+			int low = pos;
+			while (isFree(grid, b, low - 1)) {
+				low--;
+			}
+			int high = pos;
+			while (isFree(grid, b, high + 1)) {
+				high++;
+			}
+
+			for (int to = low; to <= high; to++) {
+				if (to != pos && (!farthest || to == low || to == high)) {
+					states.add(layout.setPosition(state, i, to));
+				}
+			}
+		}
+		return states;
+	}
+
+	/**
+	 * Can a block move to a position, passing only cells that are free or its
+	 * own. The position is one cell from a position it can reach.
+	 * 
+	 * @param grid - the cells covered by blocks
+	 * @param b - the block
+	 * @param to - the position along its line
+	 * @return {@code true} if the new cell the block covers is free.
+	 *         {@code false} otherwise.
+	 */
+	private static boolean isFree(boolean[][] grid, Block b, int to) {
+		if (to < 0 || to + b.length > BoardLayout.SIZE) {
+			return false;
+		}
+		int pos = b.isHorizontal ? b.x : b.y;
+		// the cell the block enters when it moves by one from the side of to
+		int cell = to < pos ? to : to + b.length - 1;
+		return b.isHorizontal ? !grid[b.y][cell] : !grid[cell][b.x];
+	}
+
+	/**
+	 * Get the cells covered by blocks.
+	 * 
+	 * @param blocks - the blocks
+	 * @return The grid, by row then column.
+	 */
+	private static boolean[][] getGrid(List<Block> blocks) {
+		boolean[][] grid = new boolean[BoardLayout.SIZE][BoardLayout.SIZE];
+		for (Block b : blocks) {
+			for (int k = 0; k < b.length; k++) {
+				if (b.isHorizontal) {
+					grid[b.y][b.x + k] = true;
+				}
+				else {
+					grid[b.y + k][b.x] = true;
+				}
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Get the first states of a buffer as a list.
+	 * 
+	 * @param states - the buffer
+	 * @param count - the amount of states
+	 * @return The states.
+	 */
+	private static List<Long> toList(long[] states, int count) {
+		List<Long> list = new ArrayList<Long>(count);
+		for (int i = 0; i < count; i++) {
+			list.add(states[i]);
+		}
+		return list;
+	}
+}
@@ -0,0 +1,177 @@
+package me.sbahr.unblockmegenerator.component;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertFalse;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import me.sbahr.unblockmegenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that the hash, equivalence and canonical blocks of a board only
+ * depend on where its blocks are, so the database finds a puzzle whatever
+ * the ids of its blocks, and that the boards made from a board extend its
+ * path.
+ */
+public class BoardTest {
+
+	public void testRenumberedBoardsAreTheSame() {
+		Random random = new Random(41);
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			for (int i = 0; i < 10; i++) {
+				Board renumbered = new Board(renumber(board.getBlocks(), random), new ArrayList<Board>());
+				String name = PuzzleUtils.serialize(renumbered);
+
+				assertEquals("hash of " + name, board.getHash(), renumbered.getHash());
+				assertEquals("hash code of " + name, board.hashCode(), renumbered.hashCode());
+				assertTrue("equivalent " + name, board.isEquivalent(renumbered));
+				assertEquals("equal " + name, board, renumbered);
+				assertEquals("canonical blocks of " + name, toString(board.getCanonicalBlocks()), toString(renumbered.getCanonicalBlocks()));
+			}
+		}
+	}
+
+	public void testCanonicalBlocksKeepGeometry() {
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			Board canonical = new Board(board.getCanonicalBlocks(), new ArrayList<Board>());
+			assertTrue("canonical board is equivalent", board.isEquivalent(canonical));
+			assertEquals("hash of the canonical board", board.getHash(), canonical.getHash());
+			assertEquals("canonical blocks are canonical", toString(board.getCanonicalBlocks()), toString(canonical.getCanonicalBlocks()));
+		}
+	}
+
+	public void testMovedBoardsDiffer() {
+		List<Board> boards = new ArrayList<Board>(PuzzleUtils.getReferenceBoards().values());
+		for (int i = 0; i < boards.size(); i++) {
+			for (Board child : boards.get(i).getNextPossibleBoards()) {
+				assertFalse("moved board is equivalent", boards.get(i).isEquivalent(child));
+				assertTrue("moved board has another hash", boards.get(i).getHash() != child.getHash());
+			}
+			for (int j = i + 1; j < boards.size(); j++) {
+				assertTrue("reference boards have other hashes", boards.get(i).getHash() != boards.get(j).getHash());
+			}
+		}
+	}
+
+	public void testChildPathsExtendParentPath() {
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			Board parent = board;
+			for (int depth = 1; depth <= 30; depth++) {
+				List<Board> children = parent.getNextPossibleBoards();
+				Board child = children.get(depth % children.size());
+				List<Board> path = child.getPath();
+
+				assertEquals("path size", depth + 1, path.size());
+				assertEquals("path ends with the child", child, path.get(depth));
+				assertTrue("path ends with the child itself", path.get(depth) == child);
+				for (int i = 0; i < depth; i++) {
+					assertTrue("path " + i + " is the parent path", path.get(i) == parent.getPath().get(i));
+				}
+				assertEquals("path of the visited child", path, getVisited(parent, depth % children.size()).getPath());
+				parent = child;
+			}
+		}
+	}
+
+	public void testChangedBlocksArePackedAgain() {
+		Board board = PuzzleUtils.getReferenceBoards().get("Beginner1");
+		List<Board> before = board.getNextPossibleBoards();
+
+		// as the generator changes a board
+		Block removed = board.getBlocks().remove(board.getBlocks().size() - 1);
+		board.updateGameboard();
+		List<Board> after = board.getNextPossibleBoards();
+		assertTrue("more moves without a block", after.size() > before.size());
+		for (Board child : after) {
+			assertEquals("blocks of a child", board.getBlocks().size(), child.getBlocks().size());
+			assertEquals("hash of a child", Zobrist.hash(child.getBlocks()), child.getHash());
+		}
+
+		board.getBlocks().add(removed);
+		board.updateGameboard();
+		assertEquals("moves with the block back", toBoardsString(before), toBoardsString(board.getNextPossibleBoards()));
+	}
+
+	public void testSetPath() {
+		Board board = PuzzleUtils.getReferenceBoards().get("TestBoardA");
+		List<Board> solution = new Solver().solve(board, Integer.MAX_VALUE);
+		board.setPath(solution);
+		assertEquals("path of the board", solution, board.getPath());
+	}
+
+	/**
+	 * Get a board visited from a board.
+	 * 
+	 * @param board - the board
+	 * @param index - the index of the board to get
+	 * @return The board visited at the index.
+	 */
+	private static Board getVisited(Board board, final int index) {
+		final List<Board> visited = new ArrayList<Board>();
+		board.visitNextPossibleBoards(new BoardVisitor() {
+
+			@Override
+			public boolean visit(Board child) {
+				visited.add(child);
+				return visited.size() <= index;
+			}
+		});
+		return visited.get(index);
+	}
+
+	/**
+	 * Copy blocks in a random order, giving them new ids.
+	 * 
+	 * @param blocks - the blocks
+	 * @param random - the source of the order and the ids
+	 * @return The new blocks, at the same places as the blocks.
+	 */
+	private static List<Block> renumber(List<Block> blocks, Random random) {
+		List<Byte> ids = new ArrayList<Byte>();
+		for (int i = 0; i < blocks.size(); i++) {
+			ids.add((byte) (20 + i));
+		}
+		Collections.shuffle(ids, random);
+
+		List<Block> renumbered = new ArrayList<Block>();
+		for (int i = 0; i < blocks.size(); i++) {
+			Block b = blocks.get(i);
+			renumbered.add(new Block(ids.get(i), b.getY(), b.getX(), b.isHorizontal(), b.getKind(), b.getLength()));
+		}
+		Collections.shuffle(renumbered, random);
+		return renumbered;
+	}
+
+	/**
+	 * Describe the blocks of boards.
+	 * 
+	 * @param boards - the boards
+	 * @return The blocks of each board, one board per line.
+	 */
+	private static String toBoardsString(List<Board> boards) {
+		StringBuilder text = new StringBuilder();
+		for (Board board : boards) {
+			text.append(toString(board.getBlocks())).append('\n');
+		}
+		return text.toString();
+	}
+
+	/**
+	 * Describe blocks, ids included.
+	 * 
+	 * @param blocks - the blocks
+	 * @return The id, place, direction, kind and length of each block.
+	 */
+	private static String toString(List<Block> blocks) {
+		StringBuilder text = new StringBuilder();
+		for (Block b : blocks) {
+			text.append(b.getId()).append(' ').append(b.getY()).append(' ').append(b.getX()).append(' ').append(b.isHorizontal()).append(' ').append(b.getKind()).append(' ').append(b.getLength()).append(';');
+		}
+		return text.toString();
+	}
+}
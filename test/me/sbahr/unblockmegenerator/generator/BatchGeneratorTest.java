@@ -0,0 +1,102 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardVisitor;
+import me.sbahr.unblockmegenerator.solver.SolverKind;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that a batch generates the same boards whatever the amount of
+ * threads and the kind of solver.
+ */
+public class BatchGeneratorTest {
+
+	/** The master seed of the batches */
+	private static final long SEED = 31;
+	/** The amount of boards of the batches */
+	private static final int BOARDS = 12;
+
+	public void testBoardsDoNotDependOnThreads() throws Exception {
+		List<String> expected = generate(SolverKind.BFS, 1);
+		assertEquals("boards generated", BOARDS, expected.size());
+		for (int threads : new int[] { 2, 4 }) {
+			assertEquals("boards on " + threads + " threads", expected, generate(SolverKind.BFS, threads));
+		}
+	}
+
+	public void testBoardsDoNotDependOnSolver() throws Exception {
+		List<String> expected = generate(SolverKind.BFS, 2);
+		for (SolverKind kind : SolverKind.values()) {
+			assertEquals("boards of " + kind.getName(), expected, generate(kind, 2));
+		}
+	}
+
+	public void testBoardIsGeneratedAlone() throws Exception {
+		List<String> expected = generate(SolverKind.BFS, 2);
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			BatchGenerator batch = new BatchGenerator(SolverKind.BFS.newSolver(), executor);
+			for (int i = 0; i < BOARDS; i++) {
+				assertEquals("board " + i + " alone", expected.get(i), PuzzleUtils.serialize(batch.generate(SEED, i, 8, 9, 5)));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	public void testVisitorStopsBatch() throws Exception {
+		List<String> expected = generate(SolverKind.BFS, 2);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			BatchGenerator batch = new BatchGenerator(SolverKind.BFS.newSolver(), executor);
+			final List<Board> visited = new ArrayList<Board>();
+			List<Board> boards = batch.generate(SEED, BOARDS, 8, 9, 5, new BoardVisitor() {
+
+				@Override
+				public boolean visit(Board board) {
+					visited.add(board);
+					return visited.size() < 3;
+				}
+			});
+			assertEquals("boards visited", 3, visited.size());
+			assertTrue("boards kept", boards.size() >= 3 && boards.size() <= BOARDS);
+			for (Board board : boards) {
+				assertTrue("kept board is in the batch", expected.contains(PuzzleUtils.serialize(board)));
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Generate the boards of the batch.
+	 * 
+	 * @param kind - the kind of solver of the batch
+	 * @param threads - the amount of threads generating boards
+	 * @return The boards, serialized, in the order of their index.
+	 * @throws InterruptedException if interrupted while waiting on a board.
+	 */
+	private static List<String> generate(SolverKind kind, int threads) throws InterruptedException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<String> boards = new ArrayList<String>();
+			for (Board board : new BatchGenerator(kind.newSolver(), executor).generate(SEED, BOARDS, 8, 9, 5, null)) {
+				boards.add(PuzzleUtils.serialize(board));
+			}
+			return boards;
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
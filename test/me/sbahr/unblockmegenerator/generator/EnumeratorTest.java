@@ -0,0 +1,125 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+import static me.sbahr.unblockmegenerator.Assert.fail;
+import static me.sbahr.unblockmegenerator.generator.ShardedGeneratorTest.createDirectory;
+import static me.sbahr.unblockmegenerator.generator.ShardedGeneratorTest.delete;
+import static me.sbahr.unblockmegenerator.generator.ShardedGeneratorTest.read;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * Checks that shards of an enumeration add up to the whole enumeration, and
+ * only continue files of the same settings.
+ */
+public class EnumeratorTest {
+
+	/** The amount of shards of the enumerations */
+	private static final int SHARDS = 3;
+
+	public void testShardsAddUp() throws Exception {
+		File directory = createDirectory();
+		File whole = createDirectory();
+		try {
+			long puzzles = new Enumerator(directory, 1, 3).run(SHARDS, 2);
+			assertTrue("puzzles recorded", puzzles > 0);
+			assertEquals("puzzles of one shard", puzzles, new Enumerator(whole, 1, 3).runShard(0, 1));
+		}
+		finally {
+			delete(directory);
+			delete(whole);
+		}
+	}
+
+	public void testResumeSkipsDoneLayouts() throws Exception {
+		File directory = createDirectory();
+		try {
+			Enumerator enumerator = new Enumerator(directory, 1, 3);
+			enumerator.runShard(1, SHARDS);
+			List<String> before = read(getShard(directory, 1));
+			assertTrue("header", before.get(0).startsWith("# enumeration minBlocks=1 maxBlocks=3 "));
+			assertTrue("header records the shards", before.get(0).endsWith(" shards=" + SHARDS));
+
+			assertEquals("puzzles of a finished shard", 0, enumerator.runShard(1, SHARDS));
+			assertEquals("lines of a finished shard", before, read(getShard(directory, 1)));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testUnfinishedLayoutsAreEnumeratedAgain() throws Exception {
+		File directory = createDirectory();
+		try {
+			Enumerator enumerator = new Enumerator(directory, 1, 3);
+			enumerator.runShard(0, SHARDS);
+			File shard = getShard(directory, 0);
+			byte[] before = Files.readAllBytes(shard.toPath());
+
+			// a crash anywhere after the header
+			int header = new String(before, StandardCharsets.UTF_8).indexOf('\n') + 1;
+			for (int cut : new int[] { header, (header + before.length) / 2, before.length - 1 }) {
+				byte[] cutShort = new byte[cut];
+				System.arraycopy(before, 0, cutShort, 0, cut);
+				Files.write(shard.toPath(), cutShort);
+
+				enumerator.runShard(0, SHARDS);
+				assertEquals("shard after a cut at " + cut, new String(before, StandardCharsets.UTF_8), new String(Files.readAllBytes(shard.toPath()), StandardCharsets.UTF_8));
+			}
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testOtherSettingsAreRefused() throws Exception {
+		File directory = createDirectory();
+		try {
+			new Enumerator(directory, 1, 3).runShard(0, SHARDS);
+			Enumerator[] others = { new Enumerator(directory, 2, 3), new Enumerator(directory, 1, 2), new Enumerator(directory, 1, 3, 2, Enumerator.DEFAULT_MAX_STATES) };
+			for (Enumerator other : others) {
+				try {
+					other.runShard(0, SHARDS);
+					fail("a shard of other settings was continued");
+				}
+				catch (IllegalStateException exc) {
+					// expected
+				}
+			}
+
+			// files written before the settings were recorded
+			File shard = getShard(directory, 0);
+			List<String> lines = read(shard);
+			StringBuilder text = new StringBuilder();
+			for (String line : lines.subList(1, lines.size())) {
+				text.append(line).append('\n');
+			}
+			Files.write(shard.toPath(), text.toString().getBytes(StandardCharsets.UTF_8));
+			try {
+				new Enumerator(directory, 1, 3).runShard(0, SHARDS);
+				fail("a shard without settings was continued");
+			}
+			catch (IllegalStateException exc) {
+				// expected
+			}
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Get the file of a shard of the enumeration.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param shard - the index of the shard
+	 * @return The shard file.
+	 */
+	private static File getShard(File directory, int shard) {
+		return new File(directory, "shard-" + shard + "-of-" + SHARDS + ".txt");
+	}
+}
@@ -0,0 +1,53 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.solver.Solver;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that every generator variant generates the same boards with and
+ * without a pool solving its candidates.
+ */
+public class GeneratorTest {
+
+	public void testPoolDoesNotChangeBoards() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			for (int variant = 1; variant <= 3; variant++) {
+				for (long seed = 1; seed <= 3; seed++) {
+					String expected = PuzzleUtils.serialize(generate(new Generator(new SplittableRandom(seed)), variant));
+					String pooled = PuzzleUtils.serialize(generate(new Generator(new SplittableRandom(seed), executor), variant));
+					assertEquals("board of v" + variant + " from seed " + seed, expected, pooled);
+				}
+			}
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Generate a board with a variant of the generator.
+	 * 
+	 * @param generator - the generator
+	 * @param variant - the variant, 1 to 3
+	 * @return The generated board.
+	 */
+	private static Board generate(Generator generator, int variant) {
+		Solver solver = new Solver();
+		switch (variant) {
+			case 1:
+				return generator.generateRandomBoard(solver, 8, 8, 6);
+			case 2:
+				return generator.generateRandomBoardv2(solver, 8, 8, 6);
+			default:
+				return generator.generateRandomBoardv3(solver, 8, 8, 6);
+		}
+	}
+}
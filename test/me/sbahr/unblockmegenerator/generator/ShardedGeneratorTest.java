@@ -0,0 +1,206 @@
+package me.sbahr.unblockmegenerator.generator;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+import static me.sbahr.unblockmegenerator.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that sharded jobs resume where they stopped, drop lines cut short
+ * and merge into one file of distinct boards.
+ */
+public class ShardedGeneratorTest {
+
+	/** The amount of boards of the job */
+	private static final int BOARDS = 8;
+	/** The amount of shards of the job */
+	private static final int SHARDS = 2;
+
+	public void testShardsCoverJob() throws Exception {
+		File directory = createDirectory();
+		try {
+			ShardedGenerator job = createJob(directory, 1);
+			assertEquals("boards of shard 0", BOARDS / SHARDS, job.runShard(0, SHARDS, 2));
+			assertEquals("boards of shard 1", BOARDS / SHARDS, job.runShard(1, SHARDS, 2));
+
+			List<String> lines = read(getShard(directory, 0));
+			assertTrue("header", lines.get(0).startsWith("# job "));
+			for (int i = 1; i < lines.size(); i++) {
+				String[] fields = lines.get(i).split("\t");
+				long index = Long.parseLong(fields[0]);
+				assertEquals("shard of board " + index, 0, index % SHARDS);
+				assertEquals("seed of board " + index, BatchGenerator.getSeed(1, index), Long.parseLong(fields[1]));
+				assertEquals("board " + index + " generated again", fields[3], PuzzleUtils.serialize(job.regenerate(index)));
+			}
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testResumeSkipsDoneBoards() throws Exception {
+		File directory = createDirectory();
+		try {
+			ShardedGenerator job = createJob(directory, 2);
+			job.runShard(0, SHARDS, 2);
+			List<String> before = read(getShard(directory, 0));
+
+			assertEquals("boards of a finished shard", 0, job.runShard(0, SHARDS, 2));
+			assertEquals("lines of a finished shard", before, read(getShard(directory, 0)));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testTruncatedLinesAreGeneratedAgain() throws Exception {
+		File directory = createDirectory();
+		try {
+			ShardedGenerator job = createJob(directory, 3);
+			job.runShard(0, SHARDS, 2);
+			File shard = getShard(directory, 0);
+			List<String> before = read(shard);
+
+			// a crash anywhere in the last line, even in its block count
+			String last = before.get(before.size() - 1);
+			int[] cuts = { 1, last.indexOf('\t') + 1, last.lastIndexOf('\t') - 3, last.lastIndexOf('\t') + 1, last.length() - 1 };
+			for (int cut : cuts) {
+				String text = join(before.subList(0, before.size() - 1)) + last.substring(0, cut);
+				Files.write(shard.toPath(), text.getBytes(StandardCharsets.UTF_8));
+
+				assertEquals("boards generated again after a cut at " + cut, 1, job.runShard(0, SHARDS, 2));
+				assertEquals("lines after a cut at " + cut, before, read(shard));
+			}
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testMergeDropsTruncatedLines() throws Exception {
+		File directory = createDirectory();
+		try {
+			ShardedGenerator job = createJob(directory, 4);
+			job.runShard(0, SHARDS, 2);
+			job.runShard(1, SHARDS, 2);
+			File merged = new File(directory, "merged.txt");
+			int boards = ShardedGenerator.merge(directory, merged);
+			List<String> lines = read(merged);
+			assertEquals("merged lines", boards + 1, lines.size());
+			for (int i = 2; i < lines.size(); i++) {
+				assertTrue("merged in order", Long.parseLong(lines.get(i - 1).split("\t")[0]) < Long.parseLong(lines.get(i).split("\t")[0]));
+			}
+
+			// drop the last digit of the block count of the last board
+			File shard = getShard(directory, 1);
+			List<String> shardLines = read(shard);
+			String last = shardLines.get(shardLines.size() - 1);
+			Files.write(shard.toPath(), (join(shardLines.subList(0, shardLines.size() - 1)) + last.substring(0, last.length() - 1)).getBytes(StandardCharsets.UTF_8));
+
+			List<String> expected = new ArrayList<String>(lines);
+			expected.remove(last);
+			assertEquals("boards merged without the cut line", expected.size() - 1, ShardedGenerator.merge(directory, merged));
+			assertEquals("lines merged without the cut line", expected, read(merged));
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	public void testOtherJobIsRefused() throws Exception {
+		File directory = createDirectory();
+		try {
+			createJob(directory, 5).runShard(0, SHARDS, 2);
+			try {
+				createJob(directory, 6).runShard(0, SHARDS, 2);
+				fail("a shard of another job was resumed");
+			}
+			catch (IllegalStateException exc) {
+				// expected
+			}
+		}
+		finally {
+			delete(directory);
+		}
+	}
+
+	/**
+	 * Construct a small job.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param seed - the master seed of the job
+	 * @return The job.
+	 */
+	private static ShardedGenerator createJob(File directory, long seed) {
+		return new ShardedGenerator(directory, seed, BOARDS, 6, 6, 4);
+	}
+
+	/**
+	 * Get the file of a shard of the job.
+	 * 
+	 * @param directory - the directory of the shard files
+	 * @param shard - the index of the shard
+	 * @return The shard file.
+	 */
+	private static File getShard(File directory, int shard) {
+		return new File(directory, "shard-" + shard + "-of-" + SHARDS + ".txt");
+	}
+
+	/**
+	 * Create an empty directory for a job.
+	 * 
+	 * @return The directory.
+	 * @throws IOException if the directory cannot be created.
+	 */
+	static File createDirectory() throws IOException {
+		return Files.createTempDirectory("unblockme-test").toFile();
+	}
+
+	/**
+	 * Delete a directory and the files in it.
+	 * 
+	 * @param directory - the directory
+	 */
+	static void delete(File directory) {
+		File[] files = directory.listFiles();
+		if (files != null) {
+			for (File file : files) {
+				file.delete();
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Read the lines of a file.
+	 * 
+	 * @param file - the file
+	 * @return The lines.
+	 * @throws IOException if the file cannot be read.
+	 */
+	static List<String> read(File file) throws IOException {
+		return Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Join lines, ending each with a line break.
+	 * 
+	 * @param lines - the lines
+	 * @return The text of the lines.
+	 */
+	private static String join(List<String> lines) {
+		StringBuilder text = new StringBuilder();
+		for (String line : lines) {
+			text.append(line).append('\n');
+		}
+		return text.toString();
+	}
+}
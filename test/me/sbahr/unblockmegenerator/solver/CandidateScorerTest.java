@@ -0,0 +1,41 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that scoring candidates on a pool gives the scores of scoring them
+ * one after the other.
+ */
+public class CandidateScorerTest {
+
+	public void testPoolMatchesSequential() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			int stopped = 0;
+			for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+				List<Board> candidates = board.getBoardPermutation();
+				for (int low : new int[] { 1, 15, 30 }) {
+					int[] expected = new CandidateScorer(new Solver(), null).score(candidates, 40, low, low + 3);
+					int[] scores = new CandidateScorer(new Solver(), executor).score(candidates, 40, low, low + 3);
+					assertEquals("scores of " + PuzzleUtils.serialize(board) + " from " + low, Arrays.toString(expected), Arrays.toString(scores));
+					if (expected.length > 0 && expected[expected.length - 1] == CandidateScorer.NOT_SCORED) {
+						stopped++;
+					}
+				}
+			}
+			assertTrue("scores stopped early", stopped > 0);
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.component.Block;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that {@link DeadlockDetector} only rejects boards that a full
+ * search cannot solve.
+ */
+public class DeadlockDetectorTest {
+
+	/** The amount of random boards whose components are checked */
+	private static final int BOARDS = 300;
+	/** The largest component checked */
+	private static final int MAX_COMPONENT_SIZE = 1 << 15;
+
+	public void testNeverRejectsSolvableStates() {
+		SplittableRandom random = new SplittableRandom(13);
+		int checked = 0;
+		int rejected = 0;
+
+		for (int i = 0; i < BOARDS; i++) {
+			Board board = getRandomBoard(random, random.nextInt(3, 13));
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			DistanceMap distances = DistanceMap.build(layout, layout.encode(board.getBlocks()), MAX_COMPONENT_SIZE);
+			if (distances == null) {
+				continue;
+			}
+
+			// every state of the component, solvable or not
+			for (int j = 0; j < distances.getSize(); j++) {
+				long state = distances.getState(j);
+				if (DeadlockDetector.isDeadlocked(layout, state)) {
+					rejected++;
+					assertEquals("moves of a rejected state of " + PuzzleUtils.serialize(board), -1, distances.getMoves(state));
+				}
+				checked++;
+			}
+		}
+
+		assertTrue("states checked", checked > 100000);
+		assertTrue("states rejected", rejected > 0);
+	}
+
+	public void testNeverRejectsReferenceBoards() {
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			assertTrue("reference board rejected", !DeadlockDetector.isDeadlocked(board));
+		}
+	}
+
+	public void testRejectsBlockedBoards() {
+		assertTrue("blocked exit column", DeadlockDetector.isDeadlocked(SolverTest.getBlockedBoard()));
+
+		// a horizontal block in front of the prisoner can never pass it
+		List<Block> blocks = new ArrayList<Block>();
+		blocks.add(new Block((byte) 1, 2, 0, true, TileKind.PRISONER, 2));
+		blocks.add(new Block((byte) 2, 2, 3, true, TileKind.BLOCK, 2));
+		assertTrue("block in the row of the prisoner", DeadlockDetector.isDeadlocked(new Board(blocks, new ArrayList<Board>())));
+	}
+
+	/**
+	 * Get a board with the prisoner and blocks put in random free places.
+	 * 
+	 * @param random - the source of the places
+	 * @param tries - the amount of blocks to try to add
+	 * @return The board, with an empty path.
+	 */
+	static Board getRandomBoard(SplittableRandom random, int tries) {
+		boolean[][] grid = new boolean[BoardLayout.SIZE][BoardLayout.SIZE];
+		List<Block> blocks = new ArrayList<Block>();
+		add(grid, blocks, new Block((byte) 1, 2, random.nextInt(BoardLayout.SIZE - 1), true, TileKind.PRISONER, 2));
+
+		for (int i = 0; i < tries; i++) {
+			boolean horizontal = random.nextBoolean();
+			int length = random.nextInt(4) == 0 ? 3 : 2;
+			int along = random.nextInt(BoardLayout.SIZE - length + 1);
+			int line = random.nextInt(BoardLayout.SIZE);
+			Block b = new Block((byte) (blocks.size() + 1), horizontal ? line : along, horizontal ? along : line, horizontal, TileKind.BLOCK, length);
+			if (isFree(grid, b)) {
+				add(grid, blocks, b);
+			}
+		}
+		return new Board(blocks, new ArrayList<Board>());
+	}
+
+	/**
+	 * Are the cells of a block free.
+	 * 
+	 * @param grid - the cells covered by blocks
+	 * @param b - the block
+	 * @return {@code true} if no block covers the cells. {@code false}
+	 *         otherwise.
+	 */
+	private static boolean isFree(boolean[][] grid, Block b) {
+		for (int k = 0; k < b.getLength(); k++) {
+			if (b.isHorizontal() ? grid[b.getY()][b.getX() + k] : grid[b.getY() + k][b.getX()]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Puts a block on the board.
+	 * 
+	 * @param grid - the cells covered by blocks
+	 * @param blocks - the blocks of the board
+	 * @param b - the block
+	 */
+	private static void add(boolean[][] grid, List<Block> blocks, Block b) {
+		for (int k = 0; k < b.getLength(); k++) {
+			if (b.isHorizontal()) {
+				grid[b.getY()][b.getX() + k] = true;
+			}
+			else {
+				grid[b.getY() + k][b.getX()] = true;
+			}
+		}
+		blocks.add(b);
+	}
+}
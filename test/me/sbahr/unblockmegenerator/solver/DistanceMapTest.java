@@ -0,0 +1,72 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that the lengths looked up in a {@link DistanceMap} are the lengths
+ * {@link Solver} searches for, depth limit included.
+ */
+public class DistanceMapTest {
+
+	/** The amount of random boards whose components are checked */
+	private static final int BOARDS = 60;
+	/** The largest component checked */
+	private static final int MAX_COMPONENT_SIZE = 1 << 12;
+	/** The amount of states checked in each component */
+	private static final int STATES = 20;
+
+	public void testLengthsMatchSolver() {
+		SplittableRandom random = new SplittableRandom(37);
+		List<Board> boards = new ArrayList<Board>(PuzzleUtils.getReferenceBoards().values());
+		for (int i = 0; i < BOARDS; i++) {
+			boards.add(DeadlockDetectorTest.getRandomBoard(random, random.nextInt(3, 13)));
+		}
+
+		int solvable = 0;
+		for (Board board : boards) {
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+			DistanceMap distances = DistanceMap.build(layout, layout.encode(board.getBlocks()), MAX_COMPONENT_SIZE);
+			if (distances == null) {
+				continue;
+			}
+
+			for (int i = 0; i < STATES; i++) {
+				// boards deep in a path, as the generator looks them up
+				List<Board> path = new ArrayList<Board>();
+				for (int j = random.nextInt(3); j > 0; j--) {
+					path.add(board);
+				}
+				Board b = new Board(layout.decode(distances.getState(random.nextInt(distances.getSize()))), path);
+				String name = PuzzleUtils.serialize(b) + " after " + path.size();
+
+				int length = new Solver().solveLength(b, Integer.MAX_VALUE);
+				assertEquals("length of " + name, length, distances.getLength(b, Integer.MAX_VALUE));
+				if (length > 0) {
+					solvable++;
+					assertEquals("length at the limit of " + name, length, distances.getLength(b, length));
+					assertEquals("length under the limit of " + name, new Solver().solveLength(b, length - 1), distances.getLength(b, length - 1));
+				}
+			}
+		}
+		assertTrue("solvable states checked", solvable > 100);
+	}
+
+	public void testSolvedBoardsIgnoreLimit() {
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			List<Board> path = new Solver().solve(board, Integer.MAX_VALUE);
+			Board solved = path.get(path.size() - 1);
+			DistanceMap distances = new Solver().getDistanceMap(board, Integer.MAX_VALUE);
+			assertEquals("length of a solved board", solved.getPath().size(), distances.getLength(solved, 0));
+			assertEquals("length of the board", Solver.DEPTH_EXCEEDED, distances.getLength(board, path.size() - 1));
+		}
+	}
+}
@@ -0,0 +1,135 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.component.Block;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that {@link IncrementalSolver} finds the same lengths and paths as
+ * a fresh {@link Solver}, whichever way it reuses what it knows of the base.
+ */
+public class IncrementalSolverTest {
+
+	/** The amount of base boards */
+	private static final int BASES = 60;
+	/** The amount of blocks tried on each base */
+	private static final int PLACEMENTS = 30;
+
+	public void testMatchesSolverWithDistances() {
+		check(IncrementalSolver.DEFAULT_MAX_COMPONENT_SIZE, false, 19);
+	}
+
+	public void testMatchesSolverWithGivenDistances() {
+		check(IncrementalSolver.DEFAULT_MAX_COMPONENT_SIZE, true, 23);
+	}
+
+	public void testMatchesSolverWithLastPath() {
+		// no component is small enough, so only solutions of the base help
+		check(0, false, 29);
+	}
+
+	public void testOtherBoardsAreSearched() {
+		IncrementalSolver incremental = new IncrementalSolver(new Solver());
+		incremental.setBase(PuzzleUtils.getBoardBeginner1());
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			assertEquals("length of a board not made from the base", new Solver().solveLength(board, Integer.MAX_VALUE), incremental.solveLength(board, Integer.MAX_VALUE));
+		}
+	}
+
+	/**
+	 * Solves random blocks added to random bases, with limits on either side
+	 * of their lengths, and compares with a fresh solver.
+	 * 
+	 * @param maxComponentSize - the largest component whose distances are
+	 *            found
+	 * @param given - {@code true} to hand the distances of the base to the
+	 *            solver
+	 * @param seed - the seed of the boards
+	 */
+	private static void check(int maxComponentSize, boolean given, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		Solver solver = new Solver();
+		IncrementalSolver incremental = new IncrementalSolver(solver, maxComponentSize);
+		int exact = 0;
+
+		List<Board> references = new ArrayList<Board>(PuzzleUtils.getReferenceBoards().values());
+		for (int i = 0; i < BASES; i++) {
+			Board base;
+			if (i % 2 == 0) {
+				// the reference boards have long solutions to reuse
+				List<Block> blocks = references.get(i / 2 % references.size()).getBlocks();
+				base = new Board(new ArrayList<Block>(blocks.subList(0, blocks.size() - 1)), new ArrayList<Board>());
+			}
+			else {
+				base = DeadlockDetectorTest.getRandomBoard(random, random.nextInt(4, 12));
+			}
+			// the generators solve the base before placing blocks on it, which
+			// leaves its solution with the incremental solver
+			incremental.solveLength(base, Integer.MAX_VALUE);
+			if (given) {
+				incremental.setBase(base, solver.getDistanceMap(base, IncrementalSolver.DEFAULT_MAX_COMPONENT_SIZE));
+			}
+			else {
+				incremental.setBase(base);
+			}
+
+			for (int j = 0; j < PLACEMENTS; j++) {
+				Board board = addBlock(random, base);
+				if (board == null) {
+					continue;
+				}
+
+				String name = PuzzleUtils.serialize(board);
+				int length = new Solver().solveLength(board, Integer.MAX_VALUE);
+				assertEquals("length of " + name, length, incremental.solveLength(board, Integer.MAX_VALUE));
+				if (length > 0) {
+					exact++;
+					assertEquals("length at the limit of " + name, length, incremental.solveLength(board, length));
+					assertEquals("length under the limit of " + name, new Solver().solveLength(board, length - 1), incremental.solveLength(board, length - 1));
+					assertEquals("path of " + name, length, incremental.solve(board, Integer.MAX_VALUE).size());
+				}
+			}
+		}
+		assertTrue("solvable boards checked", exact > 100);
+	}
+
+	/**
+	 * Get a board with one more block than a base, put in a random free place.
+	 * 
+	 * @param random - the source of the place
+	 * @param base - the base board
+	 * @return The new board, with the new block last, or {@code null} if the
+	 *         place was taken.
+	 */
+	private static Board addBlock(SplittableRandom random, Board base) {
+		BoardLayout layout = new BoardLayout(base.getBlocks());
+		long occupied = layout.getOccupancy(layout.encode(base.getBlocks()));
+
+		boolean horizontal = random.nextBoolean();
+		int length = random.nextInt(4) == 0 ? 3 : 2;
+		int along = random.nextInt(BoardLayout.SIZE - length + 1);
+		int line = random.nextInt(BoardLayout.SIZE);
+		Block b = new Block((byte) (base.getBlocks().size() + 1), horizontal ? line : along, horizontal ? along : line, horizontal, TileKind.BLOCK, length);
+		for (int k = 0; k < length; k++) {
+			if ((occupied & (horizontal ? BoardLayout.cell(line, along + k) : BoardLayout.cell(along + k, line))) != 0) {
+				return null;
+			}
+		}
+
+		List<Block> blocks = new ArrayList<Block>();
+		for (Block block : base.getBlocks()) {
+			blocks.add(block.getCopy());
+		}
+		blocks.add(b);
+		return new Board(blocks, new ArrayList<Board>());
+	}
+}
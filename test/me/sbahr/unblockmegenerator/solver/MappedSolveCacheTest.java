@@ -0,0 +1,247 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertFalse;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+import static me.sbahr.unblockmegenerator.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Checks that a {@link MappedSolveCache} keeps its entries across runs, starts
+ * over on files of another version, and that readers only see whole entries
+ * while the owner of the file writes them.
+ */
+public class MappedSolveCacheTest {
+
+	/** The amount of slots of the test files */
+	private static final int SLOTS = 1 << 12;
+
+	public void testEntriesOutliveCache() throws Exception {
+		File path = createFile();
+		try {
+			MappedSolveCache cache = new MappedSolveCache(path, SLOTS);
+			assertTrue("first cache writes", cache.isWritable());
+			long[] keys = getKeys(1000, 43);
+			for (long key : keys) {
+				cache.put(key, getEntry(key));
+			}
+			cache.put(0, 7);
+			assertEquals("size", keys.length + 1, cache.size());
+			cache.close();
+
+			cache = new MappedSolveCache(path, SLOTS);
+			try {
+				for (long key : keys) {
+					assertEquals("entry of " + key, getEntry(key), cache.get(key));
+				}
+				assertEquals("entry of the empty key", 7, cache.get(0));
+				assertEquals("entry of a new key", SolveCache.MISSING, cache.get(42));
+
+				// an entry only changes to one that tells more
+				cache.put(43, ~5);
+				cache.put(43, ~3);
+				assertEquals("entry that tells less", ~5, cache.get(43));
+				cache.put(43, 9);
+				assertEquals("entry that tells more", 9, cache.get(43));
+				cache.put(keys[0], ~3);
+				assertEquals("lower bound after an exact entry", getEntry(keys[0]), cache.get(keys[0]));
+			}
+			finally {
+				cache.close();
+			}
+		}
+		finally {
+			path.delete();
+		}
+	}
+
+	public void testOtherVersionIsStartedOver() throws Exception {
+		File path = createFile();
+		try {
+			MappedSolveCache cache = new MappedSolveCache(path, SLOTS);
+			cache.put(42, 5);
+			cache.close();
+			setVersion(path, 0x7FFFFFFF);
+
+			// a reader cannot use the boards of another version
+			RandomAccessFile owner = new RandomAccessFile(path, "rw");
+			FileLock lock = owner.getChannel().lock();
+			try {
+				cache = new MappedSolveCache(path, SLOTS);
+				assertFalse("reader while the file is locked", cache.isWritable());
+				assertEquals("size of a file of another version", 0, cache.size());
+				assertEquals("entry of a file of another version", SolveCache.MISSING, cache.get(42));
+				cache.close();
+			}
+			finally {
+				lock.release();
+				owner.close();
+			}
+
+			// the writer starts it over
+			cache = new MappedSolveCache(path, SLOTS);
+			try {
+				assertTrue("writer", cache.isWritable());
+				assertEquals("size after starting over", 0, cache.size());
+				assertEquals("entry after starting over", SolveCache.MISSING, cache.get(42));
+				cache.put(42, 6);
+				assertEquals("entry stored after starting over", 6, cache.get(42));
+			}
+			finally {
+				cache.close();
+			}
+		}
+		finally {
+			path.delete();
+		}
+	}
+
+	public void testOtherFilesAreRefused() throws Exception {
+		File path = createFile();
+		try {
+			RandomAccessFile file = new RandomAccessFile(path, "rw");
+			file.writeBytes("not a solve cache, just some text");
+			file.close();
+			try {
+				new MappedSolveCache(path, SLOTS).close();
+				fail("a file that is not a cache was opened");
+			}
+			catch (IOException exc) {
+				// expected
+			}
+		}
+		finally {
+			path.delete();
+		}
+	}
+
+	public void testReadersSeeWholeEntries() throws Exception {
+		File path = createFile();
+		try {
+			final MappedSolveCache writer = new MappedSolveCache(path, SLOTS);
+			final long[] keys = getKeys(SLOTS / 2, 47);
+			final AtomicBoolean done = new AtomicBoolean();
+			final AtomicReference<String> failure = new AtomicReference<String>();
+			final long[] seen = new long[1];
+
+			Thread[] readers = new Thread[3];
+			final MappedSolveCache[] caches = new MappedSolveCache[readers.length];
+			for (int i = 0; i < readers.length; i++) {
+				// a second cache of the same file only reads it
+				caches[i] = new MappedSolveCache(path, SLOTS);
+				final MappedSolveCache reader = caches[i];
+				assertFalse("second cache reads", reader.isWritable());
+				readers[i] = new Thread(new Runnable() {
+
+					@Override
+					public void run() {
+						while (!done.get() && failure.get() == null) {
+							for (long key : keys) {
+								int entry = reader.get(key);
+								if (entry != SolveCache.MISSING && entry != getEntry(key) && entry != ~getEntry(key)) {
+									failure.set("entry " + entry + " of " + key);
+								}
+								else if (entry != SolveCache.MISSING) {
+									synchronized (seen) {
+										seen[0]++;
+									}
+								}
+							}
+						}
+					}
+				});
+				readers[i].start();
+			}
+
+			try {
+				// first a lower bound, then the exact entry
+				for (long key : keys) {
+					writer.put(key, ~getEntry(key));
+				}
+				for (long key : keys) {
+					writer.put(key, getEntry(key));
+				}
+			}
+			finally {
+				done.set(true);
+				for (Thread reader : readers) {
+					reader.join();
+				}
+				for (MappedSolveCache cache : caches) {
+					assertEquals("size seen by a reader", keys.length, cache.size());
+					cache.close();
+				}
+				writer.close();
+			}
+
+			assertEquals("failure", null, failure.get());
+			assertTrue("entries seen", seen[0] > 0);
+		}
+		finally {
+			path.delete();
+		}
+	}
+
+	/**
+	 * Get distinct random keys.
+	 * 
+	 * @param count - the amount of keys
+	 * @param seed - the seed of the keys
+	 * @return The keys, none of them {@code 0}.
+	 */
+	private static long[] getKeys(int count, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		long[] keys = new long[count];
+		for (int i = 0; i < count; i++) {
+			keys[i] = random.nextLong() | 1;
+		}
+		return keys;
+	}
+
+	/**
+	 * Get the entry stored for a key.
+	 * 
+	 * @param key - the key
+	 * @return An exact amount of moves that depends on every bit of the key.
+	 */
+	private static int getEntry(long key) {
+		return (int) ((key ^ (key >>> 32)) & 0x3FFFFFFF);
+	}
+
+	/**
+	 * Overwrites the version in the header of a cache file.
+	 * 
+	 * @param path - the cache file
+	 * @param version - the new version
+	 * @throws IOException if the file cannot be written.
+	 */
+	private static void setVersion(File path, int version) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		try {
+			file.seek(4);
+			file.writeInt(version);
+		}
+		finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Get a path for a new cache file.
+	 * 
+	 * @return The path, with no file.
+	 * @throws IOException if the file cannot be created.
+	 */
+	private static File createFile() throws IOException {
+		File path = File.createTempFile("solve-cache", ".bin");
+		path.delete();
+		return path;
+	}
+}
@@ -0,0 +1,46 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that {@link ParallelSolver} finds the same solutions on any amount
+ * of threads.
+ */
+public class ParallelSolverTest {
+
+	/** The amounts of threads of the pools */
+	private static final int[] THREADS = { 1, 2, 4 };
+
+	public void testSolutionsDoNotDependOnThreads() {
+		List<Board> boards = SolverTest.getBoards();
+		int[] expected = new int[boards.size()];
+		for (int i = 0; i < boards.size(); i++) {
+			expected[i] = new Solver().solveLength(boards.get(i), Integer.MAX_VALUE);
+		}
+
+		for (int threads : THREADS) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			try {
+				Solver solver = new ParallelSolver(pool);
+				for (int i = 0; i < boards.size(); i++) {
+					Board board = boards.get(i);
+					String name = PuzzleUtils.serialize(board) + " on " + threads + " threads";
+					assertEquals("length of " + name, expected[i], solver.solveLength(board, Integer.MAX_VALUE));
+					if (expected[i] > 0) {
+						assertEquals("length at the limit of " + name, expected[i], solver.solveLength(board, expected[i]));
+						assertEquals("path of " + name, expected[i], solver.solve(board, Integer.MAX_VALUE).size());
+					}
+				}
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks the encoding of {@link SolveCache} entries, and that a solver with a
+ * cache finds what it finds without one.
+ */
+public class SolveCacheTest {
+
+	public void testExactEntries() {
+		// 5 moves from a board at the end of a path of 3 boards
+		assertEquals("exact within the limit", 8, Solver.getLength(5, 3, 8));
+		assertEquals("exact over the limit", Solver.DEPTH_EXCEEDED, Solver.getLength(5, 3, 7));
+		assertEquals("exact without a limit", 8, Solver.getLength(5, 3, Integer.MAX_VALUE));
+		// a solved board is never over the limit
+		assertEquals("solved board", 3, Solver.getLength(0, 3, 1));
+	}
+
+	public void testUnsolvableEntries() {
+		assertEquals("unsolvable", Solver.UNSOLVABLE, Solver.getLength(Solver.UNSOLVABLE, 3, 8));
+		assertEquals("missing", SolveCache.MISSING, Solver.getLength(SolveCache.MISSING, 3, 8));
+	}
+
+	public void testLowerBoundEntries() {
+		// at least 6 moves are needed
+		int bound = ~6;
+		assertEquals("bound over the limit", Solver.DEPTH_EXCEEDED, Solver.getLength(bound, 3, 8));
+		assertEquals("bound at the limit", SolveCache.MISSING, Solver.getLength(bound, 3, 9));
+		assertEquals("bound under the limit", SolveCache.MISSING, Solver.getLength(bound, 3, 20));
+	}
+
+	public void testTellsMore() {
+		assertTrue("exact over bound", Solver.tellsMore(4, ~3));
+		assertTrue("unsolvable over bound", Solver.tellsMore(Solver.UNSOLVABLE, ~3));
+		assertTrue("higher bound", Solver.tellsMore(~5, ~3));
+		assertTrue("lower bound", !Solver.tellsMore(~2, ~3));
+		assertTrue("same bound", !Solver.tellsMore(~3, ~3));
+		assertTrue("bound over exact", !Solver.tellsMore(~9, 4));
+		assertTrue("exact over exact", !Solver.tellsMore(6, 4));
+		assertTrue("bound over unsolvable", !Solver.tellsMore(~9, Solver.UNSOLVABLE));
+	}
+
+	public void testDepthLimitedSolvesStoreLowerBounds() {
+		Board board = PuzzleUtils.getBoardAdvanced1();
+		int length = new Solver().solveLength(board, Integer.MAX_VALUE);
+		LruSolveCache cache = new LruSolveCache(1 << 10);
+		Solver solver = new Solver();
+		solver.setCache(cache);
+
+		// a path of one board, so a limit of length - 1 allows length - 2 moves
+		assertEquals("limited solve", Solver.DEPTH_EXCEEDED, solver.solveLength(board, length - 1));
+		assertEquals("entry of a limited solve", ~(length - 1), cache.get(board.getHash()));
+		assertEquals("tighter limit from the cache", Solver.DEPTH_EXCEEDED, solver.solveLength(board, length - 3));
+		assertEquals("search past the bound", length, solver.solveLength(board, length));
+		assertEquals("entry of a solve", length - 1, cache.get(board.getHash()));
+		assertEquals("limited solve after an exact one", Solver.DEPTH_EXCEEDED, solver.solveLength(board, length - 1));
+	}
+
+	public void testCachedSolverMatchesUncached() {
+		SplittableRandom random = new SplittableRandom(17);
+		Solver cached = new Solver();
+		cached.setCache(new LruSolveCache(1 << 8));
+		List<Board> boards = getBoards(random);
+
+		// the same boards again and again, with limits on either side of
+		// their lengths, from small caches that evict
+		for (int i = 0; i < 3000; i++) {
+			Board board = boards.get(random.nextInt(boards.size()));
+			int maxDepth = random.nextInt(1, 40);
+			assertEquals("length of " + PuzzleUtils.serialize(board) + " at depth " + board.getPath().size() + " under " + maxDepth, new Solver().solveLength(board, maxDepth), cached.solveLength(board, maxDepth));
+		}
+	}
+
+	public void testCapacity() {
+		LruSolveCache cache = new LruSolveCache(64);
+		for (long key = 0; key < 1000; key++) {
+			cache.put(key * 0x9E3779B97F4A7C15L, (int) key);
+		}
+		assertTrue("size within capacity", cache.size() <= 64);
+		assertEquals("most recent entry", 999, cache.get(999 * 0x9E3779B97F4A7C15L));
+	}
+
+	/**
+	 * Get boards to solve, some of them at the end of a path.
+	 * 
+	 * @param random - the source of the boards
+	 * @return The boards.
+	 */
+	private static List<Board> getBoards(SplittableRandom random) {
+		List<Board> boards = new ArrayList<Board>();
+		for (Board board : SolverTest.getBoards()) {
+			boards.add(board);
+			List<Board> next = board.getNextPossibleBoards();
+			boards.add(next.get(random.nextInt(next.size())));
+		}
+		boards.add(SolverTest.getBlockedBoard());
+		return boards;
+	}
+}
@@ -0,0 +1,86 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+import static me.sbahr.unblockmegenerator.Assert.fail;
+
+import java.util.List;
+import java.util.Map;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that every kind of solver finds the path lengths of the breadth
+ * first search of {@link Solver}.
+ */
+public class SolverKindTest {
+
+	/** The depth limit of the solves that are not limited */
+	private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+	public void testSolveLengthMatchesBreadthFirst() {
+		for (Map.Entry<String, Board> entry : PuzzleUtils.getReferenceBoards().entrySet()) {
+			int expected = new Solver().solveLength(entry.getValue(), NO_LIMIT);
+			assertTrue(entry.getKey() + " is solvable", expected > 0);
+
+			for (SolverKind kind : SolverKind.values()) {
+				assertEquals(kind.getName() + " length of " + entry.getKey(), expected, kind.newSolver().solveLength(entry.getValue(), NO_LIMIT));
+			}
+		}
+	}
+
+	public void testSolveMatchesBreadthFirst() {
+		for (Map.Entry<String, Board> entry : PuzzleUtils.getReferenceBoards().entrySet()) {
+			int expected = new Solver().solve(entry.getValue(), NO_LIMIT).size();
+
+			for (SolverKind kind : SolverKind.values()) {
+				List<Board> path = kind.newSolver().solve(entry.getValue(), NO_LIMIT);
+				assertEquals(kind.getName() + " path of " + entry.getKey(), expected, path.size());
+				assertTrue(kind.getName() + " path of " + entry.getKey() + " ends solved", isSolved(path.get(path.size() - 1)));
+			}
+		}
+	}
+
+	public void testDepthLimitBoundary() {
+		for (Map.Entry<String, Board> entry : PuzzleUtils.getReferenceBoards().entrySet()) {
+			Board board = entry.getValue();
+			int length = new Solver().solveLength(board, NO_LIMIT);
+
+			for (SolverKind kind : SolverKind.values()) {
+				String name = kind.getName() + " on " + entry.getKey();
+				// a limit of the solution length just fits it
+				assertEquals(name + " at the limit", length, kind.newSolver().solveLength(board, length));
+				assertEquals(name + " path at the limit", length, kind.newSolver().solve(board, length).size());
+				assertEquals(name + " below the limit", Solver.DEPTH_EXCEEDED, kind.newSolver().solveLength(board, length - 1));
+				assertEquals(name + " path below the limit", null, kind.newSolver().solve(board, length - 1));
+			}
+		}
+	}
+
+	public void testForName() {
+		for (SolverKind kind : SolverKind.values()) {
+			assertEquals("kind named " + kind.getName(), kind, SolverKind.forName(kind.getName().toUpperCase()));
+		}
+		try {
+			SolverKind.forName("dfs");
+			fail("unknown names are rejected");
+		}
+		catch (IllegalArgumentException exc) {
+			// expected
+		}
+	}
+
+	/**
+	 * Is a board solved.
+	 * 
+	 * @param board - the board
+	 * @return {@code true} if the prisoner can leave the board.
+	 *         {@code false} otherwise.
+	 */
+	private static boolean isSolved(Board board) {
+		BoardLayout layout = new BoardLayout(board.getBlocks());
+		return layout.isWinner(layout.encode(board.getBlocks()));
+	}
+}
@@ -0,0 +1,79 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks that solves are counted by their result, cache hits included, and
+ * that the counts can be read through JMX.
+ */
+public class SolverMetricsTest {
+
+	public void testSolvesAreCounted() {
+		SolverMetrics metrics = new SolverMetrics();
+		Solver solver = new Solver();
+		solver.setMetrics(metrics);
+		Board board = PuzzleUtils.getReferenceBoards().get("Advanced1");
+
+		int length = solver.solveLength(board, Integer.MAX_VALUE);
+		solver.solveLength(board, length - 1);
+		solver.solveLength(SolverTest.getBlockedBoard(), Integer.MAX_VALUE);
+
+		assertEquals("solves", 3, metrics.getSolves());
+		assertEquals("solved", 1, metrics.getSolved());
+		assertEquals("depth exceeded", 1, metrics.getDepthExceeded());
+		assertEquals("unsolvable", 1, metrics.getUnsolvable());
+		assertEquals("deadlocked", 1, metrics.getDeadlocked());
+		assertEquals("cache hits", 0, metrics.getCacheHits());
+		assertTrue("states expanded", metrics.getExpanded() > 0);
+	}
+
+	public void testCacheHitsAreCounted() {
+		SolverMetrics metrics = new SolverMetrics();
+		Solver solver = new Solver();
+		solver.setMetrics(metrics);
+		solver.setCache(new LruSolveCache(1 << 8));
+		Board board = PuzzleUtils.getReferenceBoards().get("Advanced1");
+
+		int length = solver.solveLength(board, Integer.MAX_VALUE);
+		long expanded = metrics.getExpanded();
+		assertEquals("cached length", length, solver.solveLength(board, Integer.MAX_VALUE));
+		assertEquals("cached length under the limit", Solver.DEPTH_EXCEEDED, solver.solveLength(board, length - 1));
+
+		assertEquals("solves", 3, metrics.getSolves());
+		assertEquals("solved", 2, metrics.getSolved());
+		assertEquals("depth exceeded", 1, metrics.getDepthExceeded());
+		assertEquals("cache hits", 2, metrics.getCacheHits());
+		assertEquals("states expanded by hits", expanded, metrics.getExpanded());
+
+		metrics.reset();
+		assertEquals("solves after reset", 0, metrics.getSolves());
+		assertEquals("cache hits after reset", 0, metrics.getCacheHits());
+	}
+
+	public void testMetricsAreRegistered() throws Exception {
+		SolverMetrics metrics = new SolverMetrics();
+		Solver solver = new Solver();
+		solver.setMetrics(metrics);
+		solver.solveLength(PuzzleUtils.getReferenceBoards().get("Advanced1"), Integer.MAX_VALUE);
+
+		String name = "me.sbahr.unblockmegenerator:type=SolverMetrics,name=test";
+		metrics.register(name);
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			assertEquals("solves through JMX", 1L, server.getAttribute(new ObjectName(name), "Solves"));
+			assertEquals("cache hits through JMX", 0L, server.getAttribute(new ObjectName(name), "CacheHits"));
+		}
+		finally {
+			server.unregisterMBean(new ObjectName(name));
+		}
+	}
+}
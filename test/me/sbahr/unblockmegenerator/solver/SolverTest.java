@@ -0,0 +1,166 @@
+package me.sbahr.unblockmegenerator.solver;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+import static me.sbahr.unblockmegenerator.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import me.sbahr.unblockmegenerator.component.Block;
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.component.BoardLayout;
+import me.sbahr.unblockmegenerator.component.TileKind;
+import me.sbahr.unblockmegenerator.util.PuzzleUtils;
+
+/**
+ * Checks the solutions found by the breadth first search of {@link Solver}.
+ */
+public class SolverTest {
+
+	/** The depth limit of the solves that are not limited */
+	private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+	public void testPathIsChainOfMoves() {
+		for (Board board : getBoards()) {
+			List<Board> path = new Solver().solve(board, NO_LIMIT);
+			BoardLayout layout = new BoardLayout(board.getBlocks());
+
+			assertEquals("start of the path", layout.encode(board.getBlocks()), layout.encode(path.get(0).getBlocks()));
+			for (int i = 1; i < path.size(); i++) {
+				long from = layout.encode(path.get(i - 1).getBlocks());
+				long to = layout.encode(path.get(i).getBlocks());
+				assertTrue("move " + i + " is one move", isMove(layout, from, to));
+				assertEquals("path of board " + i, i + 1, path.get(i).getPath().size());
+			}
+			assertTrue("end of the path is solved", layout.isWinner(layout.encode(path.get(path.size() - 1).getBlocks())));
+		}
+	}
+
+	public void testLengthMatchesPath() {
+		for (Board board : getBoards()) {
+			assertEquals("length of " + PuzzleUtils.serialize(board), new Solver().solve(board, NO_LIMIT).size(), new Solver().solveLength(board, NO_LIMIT));
+		}
+	}
+
+	public void testLengthCountsPathToBoard() {
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			int length = new Solver().solveLength(board, NO_LIMIT);
+			// a board one move away is reached with a path of two boards
+			for (Board child : board.getNextPossibleBoards()) {
+				Board fresh = new Board(child.getBlocks(), new ArrayList<Board>());
+				assertEquals("length of a child", new Solver().solveLength(fresh, NO_LIMIT) + 1, new Solver().solveLength(child, NO_LIMIT));
+				assertTrue("a child is at most one move closer", new Solver().solveLength(fresh, NO_LIMIT) >= length - 1);
+			}
+		}
+	}
+
+	public void testUnsolvable() {
+		Board board = getBlockedBoard();
+		assertEquals("length of a blocked board", Solver.UNSOLVABLE, new Solver().solveLength(board, NO_LIMIT));
+		assertEquals("path of a blocked board", null, new Solver().solve(board, NO_LIMIT));
+	}
+
+	public void testSolvedBoard() {
+		List<Block> blocks = new ArrayList<Block>();
+		blocks.add(new Block((byte) 1, 2, 0, true, TileKind.PRISONER, 2));
+		Board board = new Board(blocks, new ArrayList<Board>());
+		assertEquals("length of a solved board", 1, new Solver().solveLength(board, NO_LIMIT));
+		assertEquals("path of a solved board", 1, new Solver().solve(board, NO_LIMIT).size());
+	}
+
+	public void testBudgets() {
+		Board board = PuzzleUtils.getBoardExpert1();
+		int length = new Solver().solveLength(board, NO_LIMIT);
+
+		assertEquals("expansion budget", Solver.BUDGET_EXCEEDED, new Solver().solveLength(board, NO_LIMIT, new SolveBudget(10, Integer.MAX_VALUE, Long.MAX_VALUE), null));
+		assertEquals("visited budget", Solver.BUDGET_EXCEEDED, new Solver().solveLength(board, NO_LIMIT, new SolveBudget(Long.MAX_VALUE, 10, Long.MAX_VALUE), null));
+		assertEquals("timeout", Solver.BUDGET_EXCEEDED, new Solver().solveLength(board, NO_LIMIT, new SolveBudget(Long.MAX_VALUE, Integer.MAX_VALUE, 0), null));
+
+		SolveResult result = new Solver().solve(board, NO_LIMIT, new SolveBudget(10, Integer.MAX_VALUE, Long.MAX_VALUE), null);
+		assertEquals("length of a solve out of budget", Solver.BUDGET_EXCEEDED, result.getLength());
+		assertEquals("path of a solve out of budget", null, result.getPath());
+
+		// timeouts too long for a deadline never run out
+		SolveBudget untimed = new SolveBudget(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE - 1);
+		assertEquals("long timeout", length, new Solver().solveLength(board, NO_LIMIT, untimed, null));
+		for (SolverKind kind : SolverKind.values()) {
+			assertEquals(kind.getName() + " with a long timeout", length, kind.newSolver().solveLength(board, NO_LIMIT, untimed, null));
+		}
+	}
+
+	public void testCancellation() {
+		Board board = PuzzleUtils.getBoardExpert1();
+		CancellationToken token = new CancellationToken();
+		token.cancel();
+		for (SolverKind kind : SolverKind.values()) {
+			assertEquals(kind.getName() + " cancelled", Solver.CANCELLED, kind.newSolver().solveLength(board, NO_LIMIT, SolveBudget.UNLIMITED, token));
+		}
+
+		// cancelling a parent cancels its children, not the other way around
+		CancellationToken parent = new CancellationToken();
+		CancellationToken child = new CancellationToken(parent);
+		child.cancel();
+		assertTrue("parent of a cancelled child", !parent.isCancelled());
+		child = new CancellationToken(parent);
+		parent.cancel();
+		assertTrue("child of a cancelled parent", child.isCancelled());
+		assertEquals("solve with a cancelled parent", Solver.CANCELLED, new Solver().solveLength(board, NO_LIMIT, SolveBudget.UNLIMITED, child));
+	}
+
+	/**
+	 * Get a board whose prisoner can never leave, as two vertical blocks fill
+	 * the column of the exit.
+	 * 
+	 * @return The board.
+	 */
+	static Board getBlockedBoard() {
+		List<Block> blocks = new ArrayList<Block>();
+		blocks.add(new Block((byte) 1, 2, 0, true, TileKind.PRISONER, 2));
+		blocks.add(new Block((byte) 2, 0, 5, false, TileKind.BLOCK, 3));
+		blocks.add(new Block((byte) 3, 3, 5, false, TileKind.BLOCK, 3));
+		return new Board(blocks, new ArrayList<Board>());
+	}
+
+	/**
+	 * Get the reference boards, and boards a few random moves from each.
+	 * 
+	 * @return The boards to solve.
+	 */
+	static List<Board> getBoards() {
+		SplittableRandom random = new SplittableRandom(11);
+		List<Board> boards = new ArrayList<Board>();
+		for (Board board : PuzzleUtils.getReferenceBoards().values()) {
+			boards.add(board);
+			for (int i = 0; i < 5; i++) {
+				Board moved = board;
+				for (int j = random.nextInt(1, 20); j > 0; j--) {
+					List<Board> next = moved.getNextPossibleBoards();
+					moved = next.get(random.nextInt(next.size()));
+				}
+				boards.add(new Board(moved.getBlocks(), new ArrayList<Board>()));
+			}
+		}
+		return boards;
+	}
+
+	/**
+	 * Does one state arise from another by sliding one block.
+	 * 
+	 * @param layout - the layout of the states
+	 * @param from - the state before the move
+	 * @param to - the state after the move
+	 * @return {@code true} if to is a successor of from. {@code false}
+	 *         otherwise.
+	 */
+	private static boolean isMove(BoardLayout layout, long from, long to) {
+		long[] next = new long[layout.getMaxSuccessors()];
+		int count = layout.getNextStates(from, next);
+		for (int i = 0; i < count; i++) {
+			if (next[i] == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,57 @@
+package me.sbahr.unblockmegenerator.util;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import me.sbahr.unblockmegenerator.component.Board;
+import me.sbahr.unblockmegenerator.solver.Solver;
+
+/**
+ * Checks the reference boards of {@link PuzzleUtils} against what their
+ * documentation says of them.
+ */
+public class PuzzleUtilsTest {
+
+	public void testReferenceLengths() {
+		Map<String, Integer> lengths = new LinkedHashMap<String, Integer>();
+		lengths.put("TestBoardB", 3);
+		lengths.put("TestBoardA", 5);
+		lengths.put("TestBoardC", 8);
+		lengths.put("Beginner1", 15);
+		lengths.put("Beginner2", 15);
+		lengths.put("Moderate1", 21);
+		lengths.put("Moderate2", 22);
+		lengths.put("Advanced1", 26);
+		lengths.put("Advanced2", 28);
+		lengths.put("Expert2", 32);
+		lengths.put("Expert1", 34);
+
+		Map<String, Board> boards = PuzzleUtils.getReferenceBoards();
+		assertEquals("reference boards", lengths.keySet(), boards.keySet());
+		for (Map.Entry<String, Integer> entry : lengths.entrySet()) {
+			assertEquals("length of " + entry.getKey(), entry.getValue().intValue(), new Solver().solveLength(boards.get(entry.getKey()), Integer.MAX_VALUE));
+		}
+	}
+
+	public void testReferenceBlockCounts() {
+		Map<String, Integer> blocks = new LinkedHashMap<String, Integer>();
+		blocks.put("TestBoardB", 5);
+		blocks.put("TestBoardA", 5);
+		blocks.put("TestBoardC", 12);
+		blocks.put("Beginner1", 11);
+		blocks.put("Beginner2", 14);
+		blocks.put("Moderate1", 11);
+		blocks.put("Moderate2", 11);
+		blocks.put("Advanced1", 10);
+		blocks.put("Advanced2", 10);
+		blocks.put("Expert2", 12);
+		blocks.put("Expert1", 14);
+
+		Map<String, Board> boards = PuzzleUtils.getReferenceBoards();
+		for (Map.Entry<String, Integer> entry : blocks.entrySet()) {
+			assertEquals("blocks of " + entry.getKey(), entry.getValue().intValue(), boards.get(entry.getKey()).getBlocks().size());
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package me.sbahr.unblockmegenerator.util;
+
+import static me.sbahr.unblockmegenerator.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks the primitive collections of the search against the collections of
+ * the JDK, over the same random operations.
+ */
+public class StateTableTest {
+
+	/** The amount of random operations */
+	private static final int OPERATIONS = 200000;
+
+	public void testTableMatchesHashMap() {
+		SplittableRandom random = new SplittableRandom(3);
+		StateTable table = new StateTable();
+		Map<Long, Long> expected = new HashMap<Long, Long>();
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			// few keys, so most operations find one already there
+			long key = random.nextLong(1 << 15);
+			long value = random.nextLong();
+			int operation = random.nextInt(4);
+			if (operation == 0) {
+				assertEquals("added " + key, !expected.containsKey(key), table.putIfAbsent(key, value));
+				if (!expected.containsKey(key)) {
+					expected.put(key, value);
+				}
+			}
+			else if (operation == 1) {
+				table.put(key, value);
+				expected.put(key, value);
+			}
+			else {
+				assertEquals("contains " + key, expected.containsKey(key), table.contains(key));
+				assertEquals("value of " + key, expected.containsKey(key) ? expected.get(key) : -2L, table.get(key, -2L));
+			}
+			assertEquals("size", expected.size(), table.size());
+
+			if (i % 50000 == 49999) {
+				table.clear();
+				expected.clear();
+			}
+		}
+	}
+
+	public void testConcurrentTableMatchesHashMap() {
+		SplittableRandom random = new SplittableRandom(5);
+		ConcurrentStateTable table = new ConcurrentStateTable();
+		Map<Long, Long> expected = new HashMap<Long, Long>();
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			long key = random.nextLong(1 << 15);
+			long value = random.nextLong(1000);
+			int operation = random.nextInt(3);
+			if (operation == 0) {
+				assertEquals("added " + key, !expected.containsKey(key), table.putIfAbsent(key, value));
+				if (!expected.containsKey(key)) {
+					expected.put(key, value);
+				}
+			}
+			else if (operation == 1) {
+				table.putMin(key, value);
+				expected.put(key, expected.containsKey(key) ? Math.min(expected.get(key), value) : value);
+			}
+			else {
+				assertEquals("value of " + key, expected.containsKey(key) ? expected.get(key) : -2L, table.get(key, -2L));
+			}
+		}
+		assertEquals("size", expected.size(), table.size());
+	}
+
+	public void testConcurrentTableAddsEachKeyOnce() throws InterruptedException {
+		final ConcurrentStateTable table = new ConcurrentStateTable();
+		final AtomicInteger added = new AtomicInteger();
+		Thread[] threads = new Thread[4];
+		for (int t = 0; t < threads.length; t++) {
+			threads[t] = new Thread(new Runnable() {
+
+				@Override
+				public void run() {
+					for (long key = 0; key < OPERATIONS; key++) {
+						if (table.putIfAbsent(key, key)) {
+							added.incrementAndGet();
+						}
+					}
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals("keys added", OPERATIONS, added.get());
+		assertEquals("size", OPERATIONS, table.size());
+	}
+
+	public void testQueueMatchesArrayDeque() {
+		SplittableRandom random = new SplittableRandom(9);
+		LongQueue queue = new LongQueue(4);
+		ArrayDeque<Long> expected = new ArrayDeque<Long>();
+
+		for (int i = 0; i < OPERATIONS; i++) {
+			// more adds than polls, so the ring wraps and grows
+			if (expected.isEmpty() || random.nextInt(5) < 3) {
+				long element = random.nextLong();
+				queue.add(element);
+				expected.add(element);
+			}
+			else {
+				assertEquals("polled", expected.poll().longValue(), queue.poll());
+			}
+			assertEquals("size", expected.size(), queue.size());
+		}
+		while (!expected.isEmpty()) {
+			assertEquals("polled", expected.poll().longValue(), queue.poll());
+		}
+		assertEquals("empty", true, queue.isEmpty());
+	}
+}